@@ -11,6 +11,13 @@ export function formatPrice(price: number): string {
   }).format(price)
 }
 
+export const VAT_PERCENTAGE = 10
+
+// Same rule as the server (integer division), so displayed totals match the order
+export function calculateVat(subtotal: number): number {
+  return Math.floor(subtotal * VAT_PERCENTAGE / 100)
+}
+
 export function formatDate(date: string | Date): string {
   const dateObj = typeof date === 'string' ? new Date(date) : date
   return new Intl.DateTimeFormat('vi-VN', {
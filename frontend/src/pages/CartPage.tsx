@@ -4,7 +4,7 @@ import { useCartStore } from '../stores/cartStore';
 import { Button } from '../components/ui/button';
 import { Input } from '../components/ui/input';
 import { Card, CardContent, CardHeader, CardTitle } from '../components/ui/card';
-import { formatPrice } from '../lib/utils';
+import { calculateVat, formatPrice } from '../lib/utils';
 import { Minus, Plus, Trash2, ShoppingBag, ArrowLeft } from 'lucide-react';
 
 export const CartPage: React.FC = () => {
@@ -64,9 +64,8 @@ export const CartPage: React.FC = () => {
     }
   };
 
-  const vatRate = 0.1; // 10% VAT
   const subtotal = total;
-  const vatAmount = subtotal * vatRate;
+  const vatAmount = calculateVat(subtotal);
   const totalWithVat = subtotal + vatAmount;
 
   return (
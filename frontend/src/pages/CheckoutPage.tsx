@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useForm } from 'react-hook-form';
 import { useNavigate } from 'react-router-dom';
 import { Truck, CreditCard, MapPin, Phone, Mail, User, Check } from 'lucide-react';
@@ -9,7 +9,8 @@ import { Form, FormControl, FormField, FormItem, FormLabel, FormMessage } from '
 import { useCartStore } from '../stores/cartStore';
 import { useAuthStore } from '../stores/authStore';
 import { orderApi, paymentApi } from '../services/api';
-import { CreateOrderRequest } from '../types/api';
+import { CreateOrderRequest, DeliveryInformationDTO } from '../types/api';
+import { calculateVat } from '../lib/utils';
 
 interface CheckoutFormData {
   customerName: string;
@@ -30,6 +31,8 @@ type LocationData = Record<string, Record<string, string[]>>;
 const CheckoutPage: React.FC = () => {
   const [isLoading, setIsLoading] = useState(false);
   const [step, setStep] = useState<'delivery' | 'payment' | 'review'>('delivery');
+  // One key per checkout attempt so double submits don't create duplicate orders
+  const idempotencyKey = useRef(crypto.randomUUID());
   const { items, total } = useCartStore();
   const { user } = useAuthStore();
   const navigate = useNavigate();
@@ -38,6 +41,7 @@ const CheckoutPage: React.FC = () => {
   const regularItems = items.filter(item => !item.product.rushOrderSupported);
 
   const [locations, setLocations] = useState<LocationData>({});
+  const [savedAddresses, setSavedAddresses] = useState<DeliveryInformationDTO[]>([]);
 
   useEffect(() => {
     fetch('/vietnam_locations.json')
@@ -45,6 +49,13 @@ const CheckoutPage: React.FC = () => {
       .then(setLocations);
   }, []);
 
+  useEffect(() => {
+    if (!user?.email) return;
+    orderApi.getSavedAddresses(user.email)
+      .then(response => setSavedAddresses(response.data))
+      .catch(() => setSavedAddresses([]));
+  }, [user?.email]);
+
   const form = useForm<CheckoutFormData>({
     defaultValues: {
       customerName: user?.name || '',
@@ -62,6 +73,16 @@ const CheckoutPage: React.FC = () => {
 
   const watchedValues = form.watch();
 
+  const applySavedAddress = (address: DeliveryInformationDTO) => {
+    form.setValue('customerName', address.name);
+    form.setValue('customerEmail', address.email);
+    form.setValue('customerPhone', address.phone);
+    form.setValue('customerProvince', address.province);
+    form.setValue('customerDistrict', address.district);
+    form.setValue('customerWard', address.ward);
+    form.setValue('customerAddress', address.address);
+  };
+
   useEffect(() => {
     // Uncheck rushDelivery if province is not 'Hà Nội'
     if (watchedValues.customerProvince !== 'Hà Nội' && form.getValues('rushDelivery')) {
@@ -93,7 +114,7 @@ const CheckoutPage: React.FC = () => {
       rushDeliveryFee : regularDeliveryFee);
 
   const subtotal = total;
-  const tax = Math.round(subtotal * 0.1); // 10% VAT
+  const tax = calculateVat(subtotal);
   const finalTotal = subtotal + deliveryFee + tax;
 
   const onSubmit = async (data: CheckoutFormData) => {
@@ -122,7 +143,7 @@ const CheckoutPage: React.FC = () => {
       };
 
       if (data.paymentMethod === 'VNPAY') {
-        const response = await orderApi.create(orderData);
+        const response = await orderApi.create(orderData, idempotencyKey.current);
         console.log('Response from Order creation request:', response);
 
         const paymentRequest = {
@@ -134,12 +155,13 @@ const CheckoutPage: React.FC = () => {
         };
 
         // Use paymentApi instead of fetch
-        const { paymentUrl } = await paymentApi.createVNPayPayment(paymentRequest);
+        const { paymentUrl } = await paymentApi.createVNPayPayment(paymentRequest, idempotencyKey.current);
         window.location.href = paymentUrl;
         return;
       }
 
     } catch (error) {
+      idempotencyKey.current = crypto.randomUUID();
       console.error('Order creation failed:', error);
       console.error('Form data:', data);
     } finally {
@@ -224,6 +246,25 @@ const CheckoutPage: React.FC = () => {
                       </CardDescription>
                     </CardHeader>
                     <CardContent className="space-y-4">
+                      {savedAddresses.length > 0 && (
+                        <div className="space-y-2">
+                          <p className="text-sm font-medium">Saved addresses</p>
+                          <div className="flex flex-wrap gap-2">
+                            {savedAddresses.map(address => (
+                              <Button
+                                key={address.deliveryId}
+                                type="button"
+                                variant="outline"
+                                size="sm"
+                                onClick={() => applySavedAddress(address)}
+                              >
+                                <MapPin className="w-4 h-4 mr-1" />
+                                {address.address}, {address.ward}, {address.province}
+                              </Button>
+                            ))}
+                          </div>
+                        </div>
+                      )}
                       <FormField
                         control={form.control}
                         name="customerName"
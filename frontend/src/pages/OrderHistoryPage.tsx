@@ -1,5 +1,5 @@
 import React, { useState } from 'react';
-import { useQuery } from '@tanstack/react-query';
+import { useInfiniteQuery } from '@tanstack/react-query';
 import { Link } from 'react-router-dom';
 import { Package, Calendar, CreditCard, Truck, Eye, Search, Filter } from 'lucide-react';
 import { Button } from '../components/ui/button';
@@ -13,13 +13,22 @@ const OrderHistoryPage: React.FC = () => {
   const [statusFilter, setStatusFilter] = useState<string>('all');
   const { user } = useAuthStore();
 
-  const { data: ordersResponse, isLoading, error } = useQuery({
+  const {
+    data: ordersPages,
+    isLoading,
+    error,
+    fetchNextPage,
+    hasNextPage,
+    isFetchingNextPage,
+  } = useInfiniteQuery({
     queryKey: ['orders', user?.email],
-    queryFn: () => orderApi.getByCustomerEmail(user?.email ?? ''),
+    queryFn: ({ pageParam }) => orderApi.getByCustomerEmail(user?.email ?? '', pageParam),
+    initialPageParam: undefined as string | undefined,
+    getNextPageParam: (lastPage) => lastPage.data.nextCursor ?? undefined,
     enabled: !!user?.email,
   });
 
-  const orders = ordersResponse?.data || [];
+  const orders = ordersPages?.pages.flatMap((page) => page.data.items) || [];
 
   const filteredOrders = orders.filter((order) => {
     const matchesSearch = 
@@ -104,7 +113,7 @@ const OrderHistoryPage: React.FC = () => {
           </div>
           <div className="text-right">
             <p className="text-sm text-muted-foreground">Total Orders</p>
-            <p className="text-2xl font-bold">{orders.length}</p>
+            <p className="text-2xl font-bold">{orders.length}{hasNextPage ? '+' : ''}</p>
           </div>
         </div>
 
@@ -269,6 +278,17 @@ const OrderHistoryPage: React.FC = () => {
                 </CardContent>
               </Card>
             ))}
+            {hasNextPage && (
+              <div className="text-center pt-2">
+                <Button
+                  variant="outline"
+                  onClick={() => fetchNextPage()}
+                  disabled={isFetchingNextPage}
+                >
+                  {isFetchingNextPage ? 'Loading...' : 'Load More Orders'}
+                </Button>
+              </div>
+            )}
           </div>
         )}
       </div>
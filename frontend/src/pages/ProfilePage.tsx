@@ -30,7 +30,8 @@ const ProfilePage: React.FC = () => {
     enabled: !!user?.email,
   });
 
-  const orders = ordersResponse?.data || [];
+  const orders = ordersResponse?.data.items || [];
+  const hasMoreOrders = ordersResponse?.data.hasMore ?? false;
 
   const onSubmit = async (data: UpdateUserProfileRequest) => {
     if (!user) return;
@@ -321,7 +322,7 @@ const ProfilePage: React.FC = () => {
               <CardContent className="space-y-4">
                 <div className="flex items-center justify-between">
                   <span className="text-sm text-muted-foreground">Total Orders</span>
-                  <span className="font-medium">{orders.length}</span>
+                  <span className="font-medium">{orders.length}{hasMoreOrders ? '+' : ''}</span>
                 </div>
                 <div className="flex items-center justify-between">
                   <span className="text-sm text-muted-foreground">Total Spent</span>
@@ -8,8 +8,10 @@ import {
   Order,
   Invoice,
   ApiResponse,
+  CursorPage,
   ProductSearchParams,
   CreateOrderRequest,
+  DeliveryInformationDTO,
   CreateUserRequest,
   UpdateUserProfileRequest,
   LoginRequest,
@@ -128,13 +130,19 @@ export const orderApi = {
   getByStatus: (status: string): Promise<ApiResponse<Order[]>> => 
     api.get(`/orders/status/${status}`),
 
-  // Get orders by customer email
-  getByCustomerEmail: (email: string): Promise<ApiResponse<Order[]>> => 
-    api.get(`/orders/customer/${email}`),
+  // Get a page of orders by customer email (newest first)
+  getByCustomerEmail: (email: string, cursor?: string): Promise<ApiResponse<CursorPage<Order>>> => 
+    api.get(`/orders/customer/${email}`, { params: { cursor } }),
 
-  // Create order
-  create: (orderData: CreateOrderRequest): Promise<ApiResponse<Order>> => 
-    api.post('/orders', orderData),
+  // Get the customer's saved delivery addresses (most recently used first)
+  getSavedAddresses: (email: string): Promise<ApiResponse<DeliveryInformationDTO[]>> => 
+    api.get(`/orders/customer/${email}/addresses`),
+
+  // Create order (retries with the same idempotency key return the first result)
+  create: (orderData: CreateOrderRequest, idempotencyKey?: string): Promise<ApiResponse<Order>> => 
+    api.post('/orders', orderData, {
+      headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : undefined,
+    }),
 
   // Confirm order
   confirm: (id: number): Promise<ApiResponse<Order>> => 
@@ -349,10 +357,13 @@ export const authApi = {
 
 export const paymentApi = {
   // Create VNPay payment and get payment URL
-  createVNPayPayment: (paymentRequest: Record<string, unknown>): Promise<{ paymentUrl: string }> =>
+  createVNPayPayment: (paymentRequest: Record<string, unknown>, idempotencyKey?: string): Promise<{ paymentUrl: string }> =>
     fetch('http://localhost:8080/api/payment/create', {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: {
+        'Content-Type': 'application/json',
+        ...(idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {}),
+      },
       body: JSON.stringify(paymentRequest),
     }).then(res => res.json()),
 
@@ -6,6 +6,14 @@ export interface ApiResponse<T> {
   error?: string;
 }
 
+// One page of a cursor-paginated listing
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor?: string | null;
+  hasMore: boolean;
+  size: number;
+}
+
 // Product types
 export interface Product {
   productId: number;
@@ -2,11 +2,13 @@ package com.itss.ecommerce.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Configuration
 @EnableJpaRepositories(basePackages = "com.itss.ecommerce.repository")
 @EnableTransactionManagement
+@EnableScheduling
 public class EcommerceConfig {
     
     // Configuration for the new refactored ecommerce package
@@ -0,0 +1,83 @@
+package com.itss.ecommerce.config;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * HMAC-SHA512 signer with the secret key bound once. Initialised Mac
+ * instances are pooled rather than kept per thread, so short-lived and
+ * virtual threads reuse them as well.
+ */
+public class HmacSha512Signer {
+
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final int DEFAULT_POOL_SIZE = 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String secretKey;
+    private final SecretKeySpec keySpec;
+    private final BlockingQueue<Mac> idleMacs;
+
+    public HmacSha512Signer(String secretKey) {
+        this(secretKey, DEFAULT_POOL_SIZE);
+    }
+
+    public HmacSha512Signer(String secretKey, int poolSize) {
+        this.secretKey = Objects.requireNonNull(secretKey, "secretKey");
+        this.keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.idleMacs = new ArrayBlockingQueue<>(poolSize);
+        // Fail fast on an unusable key instead of on the first payment
+        idleMacs.offer(newMac());
+    }
+
+    /**
+     * Sign UTF-8 data and return the lowercase hex digest
+     */
+    public String sign(String data) {
+        Mac mac = idleMacs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        try {
+            return toHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            // doFinal resets the Mac; drop it if the pool is already full
+            idleMacs.offer(mac);
+        }
+    }
+
+    /**
+     * Check if this signer was created for the given key
+     */
+    public boolean usesKey(String key) {
+        return secretKey.equals(key);
+    }
+
+    /**
+     * Encode bytes as lowercase hex using a lookup table
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int value = bytes[i] & 0xff;
+            chars[i * 2] = HEX_DIGITS[value >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[value & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.itss.ecommerce.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itss.ecommerce.dto.ApiResponse;
+import com.itss.ecommerce.entity.IdempotencyRecord;
+import com.itss.ecommerce.service.IdempotencyService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Honours the Idempotency-Key header on order and payment creation.
+ * The first response for a key is stored and replayed for retries; a duplicate
+ * that arrives while the first request is still running waits for it.
+ */
+@Component
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/api/orders", "/api/payment/create");
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final long waitTimeoutMillis;
+
+    /** Requests currently executing on this instance, completed when their response is stored */
+    private final Map<String, CompletableFuture<Void>> inFlightRequests = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(IdempotencyService idempotencyService,
+                             ObjectMapper objectMapper,
+                             @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod())
+            || !IDEMPOTENT_PATHS.contains(request.getRequestURI())
+            || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                ApiResponse.badRequest("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters"));
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String key = request.getRequestURI() + ":" + clientKey;
+        String requestHash = sha256(cachedRequest.getBody());
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+
+        while (true) {
+            CompletableFuture<Void> inFlight = inFlightRequests.get(key);
+            if (inFlight != null) {
+                awaitInFlight(inFlight, deadline);
+            } else {
+                CompletableFuture<Void> ours = new CompletableFuture<>();
+                if (inFlightRequests.putIfAbsent(key, ours) == null) {
+                    try {
+                        Optional<String> claimToken = idempotencyService.tryClaim(key, requestHash);
+                        if (claimToken.isPresent()) {
+                            execute(key, claimToken.get(), cachedRequest, response, filterChain);
+                            return;
+                        }
+                    } finally {
+                        inFlightRequests.remove(key, ours);
+                        ours.complete(null);
+                    }
+                }
+            }
+
+            Optional<IdempotencyRecord> existing = idempotencyService.findActive(key);
+            if (existing.isPresent() && existing.get().isCompleted()) {
+                replay(existing.get(), requestHash, response);
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                writeError(response, HttpStatus.CONFLICT,
+                    ApiResponse.conflict("A request with this Idempotency-Key is still being processed"));
+                return;
+            }
+            if (existing.isPresent()) {
+                // Claimed by another instance, or by this one between our checks
+                sleep(POLL_INTERVAL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Run the request and store its response. Server errors release the key
+     * so that a retry executes again.
+     */
+    private void execute(String key, String claimToken, CachedBodyRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, cachingResponse);
+            if (cachingResponse.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                idempotencyService.complete(key, claimToken, cachingResponse.getStatus(),
+                    cachingResponse.getContentType(), new String(cachingResponse.getContentAsByteArray(), StandardCharsets.UTF_8));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.release(key, claimToken);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyRecord record, String requestHash, HttpServletResponse response) throws IOException {
+        if (!record.getRequestHash().equals(requestHash)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                ApiResponse.error("Idempotency-Key was already used with a different request body", "IDEMPOTENCY_KEY_REUSED"));
+            return;
+        }
+
+        log.info("Replaying stored response for idempotency key: {}", record.getIdempotencyKey());
+        response.setStatus(record.getResponseStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getResponseBody() != null) {
+            response.getOutputStream().write(record.getResponseBody().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void awaitInFlight(CompletableFuture<Void> inFlight, long deadline) {
+        try {
+            inFlight.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Fall through to the stored record or the timeout response
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, ApiResponse<?> body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Request wrapper that reads the body once so it can be hashed and still
+     * be bound by the controller
+     */
+    static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The whole body is already in memory, so it is available and
+                 * fully read as soon as the listener is registered
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.itss.ecommerce.config;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Builds VNPay's canonical parameter string: fields sorted by name, empty
+ * values skipped, values URL-encoded as {@code URLEncoder.encode(value, US_ASCII)}
+ * would. The hash data and the query string are produced in one pass over
+ * the parameters, encoding each value once into a per-thread buffer.
+ */
+public final class VNPayCanonicalizer {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private VNPayCanonicalizer() {
+    }
+
+    /**
+     * Signed hash data and URL query string of a set of parameters
+     *
+     * @param hashData field=encodedValue pairs joined with '&', to be signed
+     * @param query    encodedField=encodedValue pairs joined with '&', without the signature
+     */
+    public record Canonical(String hashData, String query) {
+    }
+
+    /**
+     * Build both the hash data and the query string
+     */
+    public static Canonical canonicalize(Map<String, String> params) {
+        Buffers buffers = BUFFERS.get();
+        StringBuilder hashData = buffers.hashData();
+        StringBuilder query = buffers.query();
+        try {
+            for (Map.Entry<String, String> field : sorted(params).entrySet()) {
+                String value = field.getValue();
+                if (value == null || value.isEmpty()) {
+                    continue;
+                }
+                if (!hashData.isEmpty()) {
+                    hashData.append('&');
+                    query.append('&');
+                }
+                hashData.append(field.getKey()).append('=');
+                encode(field.getKey(), query);
+                query.append('=');
+
+                int valueStart = hashData.length();
+                encode(value, hashData);
+                query.append(hashData, valueStart, hashData.length());
+            }
+            return new Canonical(hashData.toString(), query.toString());
+        } finally {
+            buffers.release();
+        }
+    }
+
+    /**
+     * Build only the hash data, as used to verify returned and IPN parameters
+     */
+    public static String hashData(Map<String, String> params) {
+        Buffers buffers = BUFFERS.get();
+        StringBuilder hashData = buffers.hashData();
+        try {
+            for (Map.Entry<String, String> field : sorted(params).entrySet()) {
+                String value = field.getValue();
+                if (value == null || value.isEmpty()) {
+                    continue;
+                }
+                if (!hashData.isEmpty()) {
+                    hashData.append('&');
+                }
+                hashData.append(field.getKey()).append('=');
+                encode(value, hashData);
+            }
+            return hashData.toString();
+        } finally {
+            buffers.release();
+        }
+    }
+
+    private static SortedMap<String, String> sorted(Map<String, String> params) {
+        if (params instanceof SortedMap<String, String> sortedParams && sortedParams.comparator() == null) {
+            return sortedParams;
+        }
+        return new TreeMap<>(params);
+    }
+
+    /**
+     * Append the form encoding of a value, matching URLEncoder with US-ASCII:
+     * unreserved characters as is, space as '+', other ASCII as %XX and every
+     * non-ASCII code point as the encoded replacement character '?'.
+     */
+    private static void encode(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); ) {
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isUnreserved(codePoint)) {
+                out.append((char) codePoint);
+            } else if (codePoint == ' ') {
+                out.append('+');
+            } else {
+                int encoded = codePoint < 0x80 ? codePoint : '?';
+                out.append('%').append(HEX_DIGITS[encoded >>> 4]).append(HEX_DIGITS[encoded & 0x0f]);
+            }
+        }
+    }
+
+    private static boolean isUnreserved(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '-' || c == '_' || c == '.' || c == '*';
+    }
+
+    private static final class Buffers {
+        private StringBuilder hashData = new StringBuilder(INITIAL_CAPACITY);
+        private StringBuilder query = new StringBuilder(INITIAL_CAPACITY);
+
+        StringBuilder hashData() {
+            return hashData;
+        }
+
+        StringBuilder query() {
+            return query;
+        }
+
+        /**
+         * Clear the buffers for the next call, dropping any that grew unusually large
+         */
+        void release() {
+            hashData = reset(hashData);
+            query = reset(query);
+        }
+
+        private static StringBuilder reset(StringBuilder buffer) {
+            if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+                return new StringBuilder(INITIAL_CAPACITY);
+            }
+            buffer.setLength(0);
+            return buffer;
+        }
+    }
+}
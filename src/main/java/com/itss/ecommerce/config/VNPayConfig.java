@@ -1,12 +1,14 @@
 package com.itss.ecommerce.config;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import jakarta.servlet.http.HttpServletRequest;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 
 @Configuration
@@ -32,6 +34,13 @@ public class VNPayConfig {
     @Value("${vnpay.api-url}")
     private String apiUrl;
 
+    /**
+     * Signer for the last key used, recreated when the key changes
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile HmacSha512Signer signer;
+
     public void setTmnCode(String tmnCode) {
         this.tmnCode = tmnCode;
     }
@@ -71,26 +80,35 @@ public class VNPayConfig {
     /**
      * Generates a hash of all fields in the map for VNPAY request signing
      * @param fields Map containing the parameters to be hashed
-     * @return The HMAC-SHA512 hash of all fields concatenated in sorted order
+     * @return The HMAC-SHA512 hash of the canonical (sorted, URL-encoded) field string
      */
     public String hashAllFields(Map<String, String> fields) {
-        List<String> fieldNames = new ArrayList<String>(fields.keySet());
-        Collections.sort(fieldNames);
-        StringBuilder sb = new StringBuilder();
-        Iterator<String> itr = fieldNames.iterator();
-        while (itr.hasNext()) {
-            String fieldName = itr.next();
-            String fieldValue = fields.get(fieldName);
-            if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                sb.append(fieldName);
-                sb.append("=");
-                sb.append(fieldValue);
-            }
-            if (itr.hasNext()) {
-                sb.append("&");
-            }
+        return hmacSHA512(getSecretKey(), VNPayCanonicalizer.hashData(fields));
+    }
+
+    /**
+     * Checks a callback signature against all its other fields
+     * @param fields Map of the callback's parameters without the hash fields
+     * @param secureHash The vnp_SecureHash received with the callback
+     * @return true if the signature matches
+     */
+    public boolean verifySignature(Map<String, String> fields, String secureHash) {
+        return signatureMatches(hashAllFields(fields), secureHash);
+    }
+
+    /**
+     * Compares two signatures in constant time, so response timing does not
+     * reveal how much of a forged signature is correct
+     * @param expected The locally computed signature
+     * @param provided The signature received from the caller
+     * @return true if both are present and equal
+     */
+    public static boolean signatureMatches(String expected, String provided) {
+        if (expected == null || expected.isEmpty() || provided == null) {
+            return false;
         }
-        return hmacSHA512(getSecretKey(), sb.toString());
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                provided.getBytes(StandardCharsets.US_ASCII));
     }
 
     /**
@@ -104,22 +122,21 @@ public class VNPayConfig {
             if (key == null || data == null) {
                 throw new NullPointerException();
             }
-            final Mac hmac512 = Mac.getInstance("HmacSHA512");
-            byte[] hmacKeyBytes = key.getBytes();
-            final SecretKeySpec secretKey = new SecretKeySpec(hmacKeyBytes, "HmacSHA512");
-            hmac512.init(secretKey);
-            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
-            byte[] result = hmac512.doFinal(dataBytes);
-            StringBuilder sb = new StringBuilder(2 * result.length);
-            for (byte b : result) {
-                sb.append(String.format("%02x", b & 0xff));
-            }
-            return sb.toString();
+            return signerFor(key).sign(data);
         } catch (Exception ex) {
             return "";
         }
     }
 
+    private HmacSha512Signer signerFor(String key) {
+        HmacSha512Signer current = signer;
+        if (current == null || !current.usesKey(key)) {
+            current = new HmacSha512Signer(key);
+            signer = current;
+        }
+        return current;
+    }
+
     /**
      * Extracts the client IP address from the HTTP request
      * Handles various proxy scenarios and headers
@@ -3,8 +3,11 @@ package com.itss.ecommerce.controller;
 import com.itss.ecommerce.dto.*;
 import com.itss.ecommerce.dto.mapper.OrderMapper;
 import com.itss.ecommerce.entity.*;
+import com.itss.ecommerce.service.OrderQuoteService;
+import com.itss.ecommerce.service.admin.GroupCommitOrderWriter;
 import com.itss.ecommerce.service.admin.OrderService;
-import com.itss.ecommerce.service.admin.ProductService;
+import com.itss.ecommerce.service.admin.OrderStatusTransitionService;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,11 +18,11 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -30,7 +33,10 @@ import java.util.stream.Collectors;
 public class OrderController {
 
     private final OrderService orderService;
-    private final ProductService productService;
+    private final OrderSummaryService orderSummaryService;
+    private final OrderQuoteService orderQuoteService;
+    private final GroupCommitOrderWriter groupCommitOrderWriter;
+    private final OrderStatusTransitionService orderStatusTransitionService;
     
     /**
      * Create new order
@@ -41,22 +47,30 @@ public class OrderController {
         log.info("POST /api/orders - Creating new order with {} items",
                 request.getCartItems().size());
 
-        // Convert cart items
-        List<OrderService.CartItem> cartItems = request.getCartItems().stream()
-                .map(this::convertToCartItem)
-                .collect(Collectors.toList());
-
         // Convert delivery info
         DeliveryInformation deliveryInfo = OrderMapper.toEntity(request.getDeliveryInfo());
 
-        Order savedOrder = orderService.createOrder(cartItems, deliveryInfo);
-        System.out.println("Saved Order: " + savedOrder.getOrderId());
+        Order savedOrder = groupCommitOrderWriter.placeOrder(request.getCartItems(), deliveryInfo);
+        log.info("Saved order: {}", savedOrder.getOrderId());
         OrderDTO orderDTO = OrderMapper.toDTO(savedOrder);
         
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success(orderDTO, "Order created successfully"));
     }
 
+    /**
+     * Price a cart (subtotal, VAT, delivery fee) without creating an order
+     */
+    @PostMapping("/quote")
+    public ResponseEntity<ApiResponse<OrderQuoteDTO>> quoteOrder(
+            @Valid @RequestBody OrderQuoteRequest request) {
+        log.info("POST /api/orders/quote - Quoting {} cart items", request.getCartItems().size());
+
+        OrderQuoteDTO quote = orderQuoteService.quote(request.getCartItems());
+
+        return ResponseEntity.ok(ApiResponse.success(quote, "Order quoted successfully"));
+    }
+
     /**
      * Get all orders
      */
@@ -71,6 +85,37 @@ public class OrderController {
                 String.format("Retrieved %d orders", orderDTOs.size())));
     }
 
+    /**
+     * Query orders with combinable filters and cursor pagination
+     */
+    @GetMapping("/query")
+    public ResponseEntity<ApiResponse<CursorPage<OrderDTO>>> queryOrders(
+            @Valid OrderQueryFilter filter) {
+        log.info("GET /api/orders/query - Querying orders with filter: {}", filter);
+
+        CursorPage<OrderDTO> page = orderService.queryOrders(filter).map(OrderMapper::toDTOList);
+
+        return ResponseEntity.ok(ApiResponse.success(page,
+                String.format("Retrieved %d orders", page.getSize())));
+    }
+
+    /**
+     * Get order summaries for admin list views (served from the order_summary read model)
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryDTO>>> getOrderSummaries(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Positive @Max(100) int size) {
+        log.info("GET /api/orders/summaries - Fetching order summaries with status {}", status);
+
+        CursorPage<OrderSummaryDTO> page = orderSummaryService.getSummaries(status, cursor, size)
+                .map(OrderMapper::toSummaryDTOList);
+
+        return ResponseEntity.ok(ApiResponse.success(page,
+                String.format("Retrieved %d order summaries", page.getSize())));
+    }
+
     /**
      * Get order by ID
      */
@@ -111,18 +156,33 @@ public class OrderController {
     }
 
     /**
-     * Get orders by customer email
+     * Get a customer's order history, newest first, with cursor pagination
      */
     @GetMapping("/customer/{email}")
-    public ResponseEntity<ApiResponse<List<OrderDTO>>> getOrdersByCustomerEmail(
-            @PathVariable String email) {
+    public ResponseEntity<ApiResponse<CursorPage<OrderDTO>>> getOrdersByCustomerEmail(
+            @PathVariable String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Positive @Max(100) int size) {
         log.info("GET /api/orders/customer/{} - Fetching orders", email);
 
-        List<Order> orders = orderService.getOrdersByCustomerEmail(email);
-        List<OrderDTO> orderDTOs = OrderMapper.toDTOList(orders);
+        CursorPage<OrderDTO> page = orderService.getCustomerOrders(email, cursor, size);
 
-        return ResponseEntity.ok(ApiResponse.success(orderDTOs,
-                String.format("Retrieved %d orders for customer %s", orderDTOs.size(), email)));
+        return ResponseEntity.ok(ApiResponse.success(page,
+                String.format("Retrieved %d orders for customer %s", page.getSize(), email)));
+    }
+
+    /**
+     * Get the customer's saved delivery addresses, most recently used first
+     */
+    @GetMapping("/customer/{email}/addresses")
+    public ResponseEntity<ApiResponse<List<DeliveryInformationDTO>>> getSavedAddresses(@PathVariable String email) {
+        log.info("GET /api/orders/customer/{}/addresses - Fetching saved addresses", email);
+
+        List<DeliveryInformationDTO> addresses = orderService.getSavedAddresses(email).stream()
+                .map(OrderMapper::toDTO)
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success(addresses,
+                String.format("Found %d saved addresses", addresses.size())));
     }
 
     /**
@@ -176,6 +236,31 @@ public class OrderController {
         }
     }
 
+    /**
+     * Move many orders to a new status at once, with a per-order outcome
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<ApiResponse<BulkStatusUpdateResultDTO>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkStatusUpdateRequest request) {
+        log.info("PATCH /api/orders/status - Moving {} orders to {}",
+                request.getOrderIds().size(), request.getStatus());
+
+        Order.OrderStatus orderStatus;
+        try {
+            orderStatus = Order.OrderStatus.valueOf(request.getStatus().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.badRequest("Invalid order status: " + request.getStatus()));
+        }
+
+        BulkStatusUpdateResultDTO result = orderStatusTransitionService.transition(
+                request.getOrderIds(), orderStatus, request.getNote());
+
+        return ResponseEntity.ok(ApiResponse.success(result,
+                String.format("Updated %d of %d orders to %s", result.getUpdatedCount(),
+                        result.getResults().size(), orderStatus)));
+    }
+
     /**
      * Get pending orders
      */
@@ -275,16 +360,4 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orderLineDTO,
                 "Rush delivery added successfully"));
     }
-
-    /**
-     * Convert CreateOrderRequest.CartItemDTO to OrderService.CartItem
-     */
-    private OrderService.CartItem convertToCartItem(CreateOrderRequest.CartItemDTO cartItemDTO) {
-        Optional<Product> product = productService.getProductById(cartItemDTO.getProductId());
-        if (product.isEmpty()) {
-            throw new IllegalArgumentException("Product not found with ID: " + cartItemDTO.getProductId());
-        }
-
-        return new OrderService.CartItem(product.get(), cartItemDTO.getQuantity());
-    }
 }
\ No newline at end of file
@@ -16,18 +16,14 @@ import org.springframework.web.servlet.view.RedirectView;
 
 import com.itss.ecommerce.dto.payment.PaymentReturnResponse;
 import com.itss.ecommerce.dto.payment.request.PaymentRequest;
+import com.itss.ecommerce.dto.payment.response.IPNResponse;
 import com.itss.ecommerce.dto.payment.response.PaymentResponse;
-import com.itss.ecommerce.entity.Invoice;
-import com.itss.ecommerce.entity.PaymentTransaction;
-import com.itss.ecommerce.service.InvoiceService;
-import com.itss.ecommerce.service.PaymentTransactionService;
-import com.itss.ecommerce.service.admin.OrderService;
-import com.itss.ecommerce.service.notification.INotificationService;
-import com.itss.ecommerce.service.notification.type.NotificationServiceProvider;
 import com.itss.ecommerce.service.payment.PaymentServiceFactory;
 import com.itss.ecommerce.service.payment.gateway.IPaymentService;
 import com.itss.ecommerce.service.payment.type.PaymentMethod;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,10 +36,7 @@ import lombok.extern.slf4j.Slf4j;
 public class PaymentController {
 
     private final PaymentServiceFactory paymentServiceFactory;
-    private final OrderService orderService;
-    private final PaymentTransactionService paymentTransactionService;
-    private final InvoiceService invoiceService;
-    private final INotificationService notificationService;
+    private final MeterRegistry meterRegistry;
 
     /**
      * REST API Controllers for Payment Gateway integration
@@ -69,11 +62,17 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Customer's return redirect from the gateway
+     * Verifies and records the result, then redirects right away; the order
+     * is updated by the outbox relay
+     */
     @GetMapping("/return")
     public RedirectView returnPage(
             @RequestParam Map<String, String> requestParams,
             @RequestParam(required = false, defaultValue = "VNPAY") String paymentMethod,
             HttpServletRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
 
         // Get the appropriate payment service based on the payment method
         IPaymentService paymentService = paymentServiceFactory.getPaymentService(
@@ -83,44 +82,11 @@ public class PaymentController {
         Map<String, String> cleanParams = new HashMap<>(requestParams);
         cleanParams.remove("paymentMethod");
 
-        // Process payment return using the specific payment service
+        // Verify the return and record it durably using the specific payment service
         PaymentReturnResponse paymentReturn = paymentService.processPaymentReturn(cleanParams);
 
         String status = paymentReturn.isSuccess() ? "success" : "fail";
-
-        if (paymentReturn.isSuccess() && paymentReturn.getTransactionId() != null) {
-
-            Long orderId = Long.parseLong(paymentReturn.getTransactionId());
-            orderService.getOrderById(orderId).ifPresent(order -> {
-                notificationService.sendPaymentConfirmation(order, NotificationServiceProvider.EMAIL);
-            });
-
-            // Log successful payment
-            log.info("Payment successful for order ID: {}", paymentReturn.getTransactionId());
-
-            // Update invoice status to paid
-            Invoice invoice = invoiceService.updateInvoiceStatus(orderId, Invoice.PaymentStatus.PAID);
-
-            if (invoice != null) {
-                // Update payment transaction status to success
-                PaymentTransaction paymentTransaction = paymentTransactionService
-                        .findPendingPaymentTransactionsByInvoiceId(invoice.getInvoiceId());
-                if (paymentTransaction != null) {
-                    paymentTransactionService.updatePaymentTransactionStatus(paymentTransaction,
-                            PaymentTransaction.TransactionStatus.SUCCESS);
-                }
-            }
-
-        } else {
-            try {
-                if (paymentReturn.getTransactionId() != null) {
-                    Long orderId = Long.parseLong(paymentReturn.getTransactionId());
-                    orderService.cancelOrder(orderId, "Payment failed or cancelled");
-                }
-            } catch (Exception e) {
-                log.error("Error processing failed payment for order ID: {}", paymentReturn.getTransactionId(), e);
-            }
-        }
+        log.info("Payment return for order ID: {} ({})", paymentReturn.getTransactionId(), status);
 
         // Build redirect URL with query params for frontend
         String redirectUrl = String.format(
@@ -131,7 +97,28 @@ public class PaymentController {
                 paymentReturn.getOrderInfo() != null ? paymentReturn.getOrderInfo() : "",
                 paymentReturn.getPaymentDate() != null ? paymentReturn.getPaymentDate().toString() : "");
 
+        sample.stop(meterRegistry.timer("payment.return.redirect", "status", status));
         return new RedirectView(redirectUrl);
     }
 
+    /**
+     * Instant Payment Notification sent server-to-server by the gateway
+     * Verifies the signature and answers with the gateway's RspCode/Message format
+     */
+    @GetMapping("/ipn")
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> ipn(
+            @RequestParam Map<String, String> requestParams,
+            @RequestParam(required = false, defaultValue = "VNPAY") String paymentMethod) {
+
+        IPaymentService paymentService = paymentServiceFactory.getPaymentService(
+                PaymentMethod.valueOf(paymentMethod.toUpperCase()));
+
+        Map<String, String> cleanParams = new HashMap<>(requestParams);
+        cleanParams.remove("paymentMethod");
+
+        IPNResponse response = paymentService.handleIpnRequest(cleanParams);
+        return ResponseEntity.ok(Map.of("RspCode", response.getRspCode(), "Message", response.getMessage()));
+    }
+
 }
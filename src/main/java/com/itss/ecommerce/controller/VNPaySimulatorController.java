@@ -0,0 +1,61 @@
+package com.itss.ecommerce.controller;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.view.RedirectView;
+
+import com.itss.ecommerce.service.payment.simulator.VNPaySimulator;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Embedded VNPay endpoints for the {@code vnpay-sim} profile: the payment
+ * page (redirects straight back to the return URL and sends the IPN) and
+ * the merchant API (querydr and refund)
+ */
+@RequestMapping("/sim/vnpay")
+@Profile("vnpay-sim")
+@RequiredArgsConstructor
+@Controller
+public class VNPaySimulatorController {
+
+    private final VNPaySimulator vnPaySimulator;
+
+    @GetMapping("/pay")
+    public RedirectView pay(@RequestParam Map<String, String> params) {
+        Map<String, String> callback = vnPaySimulator.authorize(params)
+            .orElseThrow(() -> new IllegalArgumentException("Invalid payment signature"));
+
+        vnPaySimulator.sendIpn(callback);
+        return new RedirectView(VNPaySimulator.callbackUrl(params.get("vnp_ReturnUrl"), callback));
+    }
+
+    @PostMapping("/api")
+    @ResponseBody
+    public ResponseEntity<?> api(@RequestBody Map<String, String> params) {
+        if (vnPaySimulator.shouldFailApiCall()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Simulated gateway error");
+        }
+        if (!vnPaySimulator.verifyApiRequest(params)) {
+            return ResponseEntity.ok(Map.of("vnp_ResponseCode", VNPaySimulator.RESPONSE_INVALID_SIGNATURE,
+                "vnp_Message", "Invalid Checksum"));
+        }
+
+        String txnRef = params.get("vnp_TxnRef");
+        if ("refund".equals(params.get("vnp_Command"))) {
+            return ResponseEntity.ok(vnPaySimulator.refund(txnRef, params.get("vnp_Amount"),
+                params.get("vnp_TransactionType")));
+        }
+        return ResponseEntity.ok(vnPaySimulator.query(txnRef));
+    }
+}
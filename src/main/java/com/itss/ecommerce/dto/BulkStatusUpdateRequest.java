@@ -0,0 +1,25 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequest {
+
+    @NotNull(message = "Order IDs are required")
+    @NotEmpty(message = "At least one order ID is required")
+    @Size(max = 1000, message = "At most 1000 orders can be updated at once")
+    private List<@NotNull @Positive Long> orderIds;
+
+    @NotBlank(message = "Target status is required")
+    private String status;
+
+    @Size(max = 500, message = "Note must not exceed 500 characters")
+    private String note;
+}
@@ -0,0 +1,40 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk order status transition, one entry per requested order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResultDTO {
+
+    private String targetStatus;
+    private int updatedCount;
+    private int rejectedCount;
+    private List<OrderOutcome> results = new ArrayList<>();
+
+    public enum Outcome {
+        UPDATED, NOT_FOUND, INVALID_TRANSITION
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderOutcome {
+        private Long orderId;
+        private Outcome outcome;
+
+        /**
+         * Status before the transition, null if the order does not exist
+         */
+        private String previousStatus;
+        private String message;
+    }
+}
@@ -0,0 +1,40 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    private List<T> items;
+    
+    /**
+     * Cursor to pass back for the next page, null on the last page
+     */
+    private String nextCursor;
+    
+    private boolean hasMore;
+    
+    /**
+     * Convert page items while keeping the cursor
+     */
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> mapper) {
+        return new CursorPage<>(mapper.apply(items), nextCursor, hasMore);
+    }
+    
+    /**
+     * Get number of items in this page
+     */
+    public int getSize() {
+        return items != null ? items.size() : 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
+
+/**
+ * Combinable filters for the admin order listing.
+ * Every field is optional; null means "no constraint".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQueryFilter {
+    
+    private String status;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime fromDate;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime toDate;
+    
+    private String province;
+    
+    private Boolean rush;
+    
+    @PositiveOrZero(message = "Minimum amount cannot be negative")
+    private Integer minAmount;
+    
+    @PositiveOrZero(message = "Maximum amount cannot be negative")
+    private Integer maxAmount;
+    
+    private String email;
+    
+    /**
+     * Opaque keyset cursor returned as nextCursor by the previous page
+     */
+    private String cursor;
+    
+    @Min(value = 1, message = "Page size must be at least 1")
+    @Max(value = 100, message = "Page size cannot exceed 100")
+    private Integer size = 20;
+}
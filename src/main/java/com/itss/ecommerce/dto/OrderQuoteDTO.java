@@ -0,0 +1,55 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Priced cart as it would be ordered right now. Nothing is reserved or persisted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQuoteDTO {
+    
+    private List<LineQuote> lines = new ArrayList<>();
+    private Integer subtotal;
+    private Integer vatPercentage;
+    private Integer vatAmount;
+    private Integer deliveryFee;
+    private Integer rushSurcharge;
+    private Integer total;
+    
+    /**
+     * True if every line can be fulfilled from current stock
+     */
+    private boolean available;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineQuote {
+        private Long productId;
+        private String title;
+        private Integer quantity;
+        private Integer unitPrice;
+        private Integer lineTotal;
+        
+        /**
+         * Rush delivery was requested and the product supports it
+         */
+        private boolean rushOrder;
+        private boolean inStock;
+        private Integer availableQuantity;
+    }
+    
+    /**
+     * Get formatted total
+     */
+    public String getFormattedTotal() {
+        return String.format("%,d VND", total != null ? total : 0);
+    }
+}
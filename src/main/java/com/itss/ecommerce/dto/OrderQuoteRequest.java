@@ -0,0 +1,20 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQuoteRequest {
+    
+    @NotNull(message = "Cart items are required")
+    @NotEmpty(message = "Cart cannot be empty")
+    @Valid
+    private List<CreateOrderRequest.CartItemDTO> cartItems;
+}
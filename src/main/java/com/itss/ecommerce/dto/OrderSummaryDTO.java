@@ -0,0 +1,34 @@
+package com.itss.ecommerce.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    
+    private Long orderId;
+    private String customerName;
+    private String customerEmail;
+    private String province;
+    private String status;
+    private Integer totalBeforeVat;
+    private Integer totalAfterVat;
+    private Integer itemCount;
+    private Boolean hasRush;
+    private String paymentStatus;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    /**
+     * Get formatted total with currency
+     */
+    public String getFormattedTotal() {
+        if (totalAfterVat == null) return "N/A";
+        return String.format("%,d VND", totalAfterVat);
+    }
+}
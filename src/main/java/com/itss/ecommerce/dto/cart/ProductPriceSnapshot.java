@@ -0,0 +1,34 @@
+package com.itss.ecommerce.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Price and stock projection used to quote carts
+ * (avoids loading full product hierarchy rows)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPriceSnapshot {
+    private Long productId;
+    private String title;
+    private Integer price;
+    private Integer quantity;
+    private Boolean rushOrderSupported;
+
+    /**
+     * Get available quantity, treating missing stock as zero
+     */
+    public int getAvailable() {
+        return quantity != null ? quantity : 0;
+    }
+
+    /**
+     * Check if the product can be delivered with rush delivery
+     */
+    public boolean isRushSupported() {
+        return Boolean.TRUE.equals(rushOrderSupported);
+    }
+}
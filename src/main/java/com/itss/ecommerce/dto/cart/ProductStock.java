@@ -0,0 +1,25 @@
+package com.itss.ecommerce.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight stock projection used by cart checks
+ * (avoids loading full product hierarchy rows)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStock {
+    private Long productId;
+    private String title;
+    private Integer quantity;
+
+    /**
+     * Get available quantity, treating missing stock as zero
+     */
+    public int getAvailable() {
+        return quantity != null ? quantity : 0;
+    }
+}
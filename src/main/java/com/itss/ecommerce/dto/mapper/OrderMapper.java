@@ -112,6 +112,29 @@ public class OrderMapper {
         return dto;
     }
     
+    /**
+     * Convert OrderSummary read model to OrderSummaryDTO
+     */
+    public static OrderSummaryDTO toDTO(OrderSummary summary) {
+        if (summary == null) return null;
+        
+        OrderSummaryDTO dto = new OrderSummaryDTO();
+        dto.setOrderId(summary.getOrderId());
+        dto.setCustomerName(summary.getCustomerName());
+        dto.setCustomerEmail(summary.getCustomerEmail());
+        dto.setProvince(summary.getProvince());
+        dto.setStatus(summary.getStatus() != null ? summary.getStatus().name() : null);
+        dto.setTotalBeforeVat(summary.getTotalBeforeVat());
+        dto.setTotalAfterVat(summary.getTotalAfterVat());
+        dto.setItemCount(summary.getItemCount());
+        dto.setHasRush(summary.getHasRush());
+        dto.setPaymentStatus(summary.getPaymentStatus() != null ? summary.getPaymentStatus().name() : null);
+        dto.setCreatedAt(summary.getCreatedAt());
+        dto.setUpdatedAt(summary.getUpdatedAt());
+        
+        return dto;
+    }
+    
     /**
      * Convert OrderDTO to Order entity
      */
@@ -184,6 +207,16 @@ public class OrderMapper {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Convert list of OrderSummary rows to OrderSummaryDTOs
+     */
+    public static List<OrderSummaryDTO> toSummaryDTOList(List<OrderSummary> summaries) {
+        if (summaries == null) return null;
+        return summaries.stream()
+                .map(OrderMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+    
     /**
      * Convert list of OrderItem entities to OrderItemDTOs
      */
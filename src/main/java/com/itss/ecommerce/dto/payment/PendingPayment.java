@@ -0,0 +1,22 @@
+package com.itss.ecommerce.dto.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of a pending payment transaction used by reconciliation
+ * (avoids loading transaction, invoice and order entities)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingPayment {
+    private Long transactionId;
+    private Long orderId;
+    private Integer amount;
+    private LocalDateTime createdAt;
+    private String gatewayCreateDate;
+}
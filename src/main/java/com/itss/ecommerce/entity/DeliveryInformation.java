@@ -5,8 +5,16 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
 @Entity
-@Table(name = "delivery_information")
+@Table(name = "delivery_information", indexes = {
+    @Index(name = "idx_delivery_address_hash", columnList = "address_hash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,6 +57,13 @@ public class DeliveryInformation {
     
     @Column(name = "rush_delivery_instruction", columnDefinition = "TEXT")
     private String rushDeliveryInstruction;
+    
+    /**
+     * Hash of the normalized contact and address fields, so repeat orders to
+     * the same address reuse this row
+     */
+    @Column(name = "address_hash", length = 64)
+    private String addressHash;
 
     /**
      * Create delivery information
@@ -64,6 +79,41 @@ public class DeliveryInformation {
         this.deliveryMessage = deliveryMessage;
     }
     
+    /**
+     * Compute the address book key from the normalized name, phone, email and address
+     */
+    public String computeAddressHash() {
+        String key = String.join("\n",
+                normalize(name),
+                phone != null ? phone.replaceAll("[^0-9+]", "") : "",
+                normalize(email),
+                normalize(address),
+                normalize(ward),
+                normalize(district),
+                normalize(province));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Check if the per-order delivery details (message, fee, rush time and
+     * instruction) match another delivery
+     */
+    public boolean hasSameDeliveryDetails(DeliveryInformation other) {
+        return Objects.equals(deliveryMessage, other.deliveryMessage) &&
+               Objects.equals(deliveryFee, other.deliveryFee) &&
+               Objects.equals(deliveryTime, other.deliveryTime) &&
+               Objects.equals(rushDeliveryInstruction, other.rushDeliveryInstruction);
+    }
+    
+    private static String normalize(String value) {
+        return value != null ? value.trim().replaceAll("\\s+", " ").toLowerCase() : "";
+    }
+    
     /**
      * Get full address for display
      */
@@ -0,0 +1,81 @@
+package com.itss.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored outcome of a request sent with an Idempotency-Key header.
+ * A row is claimed as IN_PROGRESS before the request runs and completed
+ * with the response so that retries can be replayed.
+ */
+@Entity
+@Table(name = "idempotency_record", indexes = {
+    @Index(name = "idx_idempotency_record_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_idempotency_record_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    /**
+     * Request path and client supplied key, e.g. "/api/orders:3f0c..."
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 300)
+    private String idempotencyKey;
+    
+    /**
+     * SHA-256 of the request body, used to reject key reuse with a different payload
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+    
+    /**
+     * Random token of the request currently holding the claim; only that
+     * request may complete or release it
+     */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+    
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+    
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+    
+    /**
+     * Check if the original request has finished and can be replayed
+     */
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+    
+    /**
+     * Check if the record is past its retention window
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
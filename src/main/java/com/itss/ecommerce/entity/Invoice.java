@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -26,6 +27,7 @@ public class Invoice {
     private Order order;
     
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<PaymentTransaction> paymentTransactions = new ArrayList<>();
     
     @Column(name = "description", columnDefinition = "TEXT")
@@ -134,6 +136,15 @@ public class Invoice {
         return order != null ? order.getTotalAfterVat() : 0;
     }
     
+    /**
+     * Get the amount the customer pays: invoice total plus the delivery fee
+     */
+    public long getAmountDue() {
+        DeliveryInformation delivery = order != null ? order.getDeliveryInformation() : null;
+        int deliveryFee = delivery != null && delivery.getDeliveryFee() != null ? delivery.getDeliveryFee() : 0;
+        return (long) getTotalAmount() + deliveryFee;
+    }
+    
     /**
      * Generate invoice description
      */
@@ -4,18 +4,26 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+    @Index(name = "idx_order_created_at_id", columnList = "created_at, order_id"),
+    @Index(name = "idx_order_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_order_customer_key_created_at", columnList = "customer_key, created_at, order_id"),
+    @Index(name = "idx_order_has_rush_created_at", columnList = "has_rush, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
+    public static final int DEFAULT_VAT_PERCENTAGE = 10;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "order_id")
@@ -31,13 +39,33 @@ public class Order {
     @Column(name = "status")
     private OrderStatus status = OrderStatus.PENDING;
     
-    @OneToOne(fetch = FetchType.LAZY)
+    /**
+     * Shared by the customer's orders to the same address
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "delivery_id")
     private DeliveryInformation deliveryInformation;
     
-    @Column(name = "vat_percentage")
-    private Integer vatPercentage = 10;
+    /**
+     * Normalized customer email, copied from the delivery information so
+     * customer order history is served from the order table's own index
+     */
+    @Column(name = "customer_key")
+    private String customerKey;
     
+    @Column(name = "vat_percentage")
+    private Integer vatPercentage = DEFAULT_VAT_PERCENTAGE;
+
+    @Column(name = "stock_restored")
+    private Boolean stockRestored = false;
+
+    /**
+     * True if any order line uses rush delivery; kept in step with the lines
+     * so rush orders can be found without joining order_item
+     */
+    @Column(name = "has_rush")
+    private Boolean hasRush = false;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -45,6 +73,7 @@ public class Order {
     private LocalDateTime updatedAt;
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private List<OrderItem> orderItems = new ArrayList<>();
     
     @OneToOne(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -61,6 +90,16 @@ public class Order {
         updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Normalize a customer email into the key stored on orders
+     */
+    public static String normalizeCustomerKey(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase();
+    }
+    
     public enum OrderStatus {
         PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
     }
@@ -71,6 +110,9 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        if (orderItem.isRushOrder()) {
+            hasRush = true;
+        }
         recalculateTotals();
     }
     
@@ -80,9 +122,25 @@ public class Order {
     public void removeOrderItem(OrderItem orderItem) {
         orderItems.remove(orderItem);
         orderItem.setOrder(null);
+        refreshRushFlag();
         recalculateTotals();
     }
     
+    /**
+     * Replace the order lines and refresh the rush flag
+     */
+    public void setOrderItems(List<OrderItem> orderItems) {
+        this.orderItems = orderItems;
+        refreshRushFlag();
+    }
+    
+    /**
+     * Recompute the rush flag from the order lines
+     */
+    public void refreshRushFlag() {
+        hasRush = orderItems != null && orderItems.stream().anyMatch(OrderItem::isRushOrder);
+    }
+    
     /**
      * Recalculate order totals based on order lines
      */
@@ -134,7 +192,6 @@ public class Order {
      * Check if order has rush delivery items
      */
     public boolean hasRushItems() {
-        return orderItems.stream()
-                .anyMatch(OrderItem::isRushOrder);
+        return Boolean.TRUE.equals(hasRush);
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.itss.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized read model for order list views.
+ * Maintained in the same transaction as order, invoice and payment changes.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+    @Index(name = "idx_order_summary_created_at_id", columnList = "created_at, order_id"),
+    @Index(name = "idx_order_summary_status_created_at", columnList = "status, created_at, order_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "customer_name", length = 255)
+    private String customerName;
+    
+    @Column(name = "customer_email", length = 255)
+    private String customerEmail;
+    
+    @Column(name = "province", length = 100)
+    private String province;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Order.OrderStatus status;
+    
+    @Column(name = "total_before_vat")
+    private Integer totalBeforeVat;
+    
+    @Column(name = "total_after_vat")
+    private Integer totalAfterVat;
+    
+    @Column(name = "item_count")
+    private Integer itemCount;
+    
+    @Column(name = "has_rush")
+    private Boolean hasRush = false;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status")
+    private Invoice.PaymentStatus paymentStatus;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    /**
+     * Build summary from an order and its invoice
+     */
+    public static OrderSummary from(Order order, Invoice invoice) {
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(order.getOrderId());
+        DeliveryInformation delivery = order.getDeliveryInformation();
+        if (delivery != null) {
+            summary.setCustomerName(delivery.getName());
+            summary.setCustomerEmail(delivery.getEmail() != null ? delivery.getEmail().trim().toLowerCase() : null);
+            summary.setProvince(delivery.getProvince());
+        }
+        summary.setStatus(order.getStatus());
+        summary.setTotalBeforeVat(order.getTotalBeforeVat());
+        summary.setTotalAfterVat(order.getTotalAfterVat());
+        summary.setItemCount(order.getTotalItemCount());
+        summary.setHasRush(order.hasRushItems());
+        summary.setPaymentStatus(invoice != null ? invoice.getPaymentStatus() : null);
+        summary.setCreatedAt(order.getCreatedAt());
+        summary.setUpdatedAt(order.getUpdatedAt());
+        return summary;
+    }
+}
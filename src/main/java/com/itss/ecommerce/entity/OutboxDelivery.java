@@ -0,0 +1,42 @@
+package com.itss.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of an outbox event handled by one handler, so a redelivered event
+ * is not handled twice by handlers that already succeeded
+ */
+@Entity
+@Table(name = "outbox_delivery", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_outbox_delivery_event_handler", columnNames = {"event_id", "handler_name"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxDelivery {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "delivery_id")
+    private Long deliveryId;
+    
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+    
+    @Column(name = "handler_name", nullable = false, length = 100)
+    private String handlerName;
+    
+    @Column(name = "delivered_at", nullable = false)
+    private LocalDateTime deliveredAt;
+    
+    public OutboxDelivery(Long eventId, String handlerName) {
+        this.eventId = eventId;
+        this.handlerName = handlerName;
+        this.deliveredAt = LocalDateTime.now();
+    }
+}
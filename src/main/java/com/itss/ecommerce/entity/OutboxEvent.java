@@ -0,0 +1,90 @@
+package com.itss.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order lifecycle event written in the same transaction as the state change
+ * and delivered to handlers afterwards by the outbox relay
+ */
+@Entity
+@Table(name = "outbox_event", indexes = {
+    @Index(name = "idx_outbox_event_status_id", columnList = "status, event_id"),
+    @Index(name = "idx_outbox_event_aggregate_id", columnList = "aggregate_id, event_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long eventId;
+    
+    /**
+     * Order the event belongs to; events of one order are delivered in ID order
+     */
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private EventType eventType;
+    
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.PENDING;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    /**
+     * Earliest time of the next delivery attempt
+     */
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+    
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+    }
+    
+    public enum EventType {
+        ORDER_CREATED, ORDER_CONFIRMED, ORDER_CANCELLED, ORDER_STATUS_UPDATED, ORDER_PAID, PAYMENT_RECEIVED
+    }
+    
+    public enum Status {
+        PENDING, DELIVERED, FAILED
+    }
+    
+    /**
+     * Create a pending event for an order
+     */
+    public static OutboxEvent of(Long orderId, EventType eventType, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(orderId);
+        event.setEventType(eventType);
+        event.setPayload(payload);
+        return event;
+    }
+}
@@ -0,0 +1,87 @@
+package com.itss.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Verified payment notification (IPN) received from the gateway. The unique
+ * gateway transaction number makes retried notifications no-ops; the row is
+ * written with an outbox event and applied to the invoice afterwards.
+ */
+@Entity
+@Table(name = "payment_notification", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_payment_notification_transaction_no", columnNames = "transaction_no")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    /**
+     * Gateway transaction number (vnp_TransactionNo)
+     */
+    @Column(name = "transaction_no", nullable = false, length = 50)
+    private String transactionNo;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "response_code", length = 10)
+    private String responseCode;
+
+    @Column(name = "transaction_status", length = 10)
+    private String transactionStatus;
+
+    /**
+     * Amount as reported by the gateway (VND x 100)
+     */
+    @Column(name = "amount")
+    private Long amount;
+
+    @Column(name = "bank_code", length = 20)
+    private String bankCode;
+
+    @Column(name = "pay_date", length = 14)
+    private String payDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.RECEIVED;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    /**
+     * Why a successful payment was not recorded, e.g. an amount mismatch
+     */
+    @Column(name = "skip_reason")
+    private String skipReason;
+
+    public enum Status {
+        /** Stored and queued, not applied yet */
+        RECEIVED,
+        /** Recorded the payment on the order's invoice */
+        APPLIED,
+        /** Failed payment, or the invoice was no longer pending */
+        SKIPPED
+    }
+
+    /**
+     * Check if the gateway reported a successful payment
+     */
+    public boolean isSuccessfulPayment() {
+        return "00".equals(responseCode) && (transactionStatus == null || "00".equals(transactionStatus));
+    }
+}
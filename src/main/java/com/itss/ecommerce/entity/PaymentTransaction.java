@@ -42,6 +42,10 @@ public class PaymentTransaction {
     @Column(name = "failure_reason")
     private String failureReason;
     
+    /** vnp_CreateDate of the last payment URL signed for this transaction; querydr needs it as vnp_TransactionDate */
+    @Column(name = "gateway_create_date", length = 14)
+    private String gatewayCreateDate;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
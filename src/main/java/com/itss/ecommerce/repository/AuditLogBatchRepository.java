@@ -0,0 +1,48 @@
+package com.itss.ecommerce.repository;
+
+import com.itss.ecommerce.entity.AuditLog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Audit log inserts issued as one JDBC batch. The JPA entity uses IDENTITY
+ * keys, which disables Hibernate insert batching.
+ * Runs inside the caller's JPA transaction (same DataSource).
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditLogBatchRepository {
+
+    private static final String INSERT_ENTITY_LOG_SQL =
+            "INSERT INTO audit_log (action_name, recorded_at, note, user_id, entity_type, entity_id, action_type) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert the same entity action for several entities
+     *
+     * @return number of rows inserted
+     */
+    public int insertEntityLogs(String actionName, String note, String entityType, Collection<Long> entityIds,
+                                AuditLog.ActionType actionType, Long userId, LocalDateTime recordedAt) {
+        if (entityIds.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp timestamp = Timestamp.valueOf(recordedAt);
+        List<Object[]> batchArgs = entityIds.stream()
+                .map(entityId -> new Object[]{actionName, timestamp, note, userId, entityType, entityId, actionType.name()})
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_ENTITY_LOG_SQL, batchArgs);
+        return batchArgs.size();
+    }
+}
@@ -18,6 +18,11 @@ public interface DeliveryInformationRepository extends JpaRepository<DeliveryInf
      */
     List<DeliveryInformation> findByEmail(String email);
     
+    /**
+     * Find address book rows by address hash
+     */
+    List<DeliveryInformation> findByAddressHash(String addressHash);
+    
     /**
      * Find delivery information by phone
      */
@@ -0,0 +1,104 @@
+package com.itss.ecommerce.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.itss.ecommerce.entity.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Claim a key as IN_PROGRESS; returns 0 if the key is already taken
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_record " +
+                   "(idempotency_key, request_hash, status, claim_token, created_at, expires_at) " +
+                   "SELECT :key, :requestHash, 'IN_PROGRESS', :claimToken, :createdAt, :expiresAt " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM idempotency_record WHERE idempotency_key = :key)",
+           nativeQuery = true)
+    int insertInProgress(@Param("key") String key,
+                         @Param("requestHash") String requestHash,
+                         @Param("claimToken") String claimToken,
+                         @Param("createdAt") LocalDateTime createdAt,
+                         @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Take over an IN_PROGRESS claim whose lease has expired; returns 0 if
+     * there is no such claim
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.requestHash = :requestHash, r.claimToken = :claimToken, " +
+           "r.createdAt = :createdAt, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.status = 'IN_PROGRESS' AND r.expiresAt <= :createdAt")
+    int takeOverExpired(@Param("key") String key,
+                        @Param("requestHash") String requestHash,
+                        @Param("claimToken") String claimToken,
+                        @Param("createdAt") LocalDateTime createdAt,
+                        @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Store the response of a key still claimed with the given token and keep
+     * it until the given time
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseStatus = :responseStatus, " +
+           "r.contentType = :contentType, r.responseBody = :responseBody, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.status = 'IN_PROGRESS' AND r.claimToken = :claimToken")
+    int complete(@Param("key") String key,
+                 @Param("claimToken") String claimToken,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Release a key still claimed with the given token so the request can be retried
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.status = 'IN_PROGRESS' " +
+           "AND r.claimToken = :claimToken")
+    int deleteInProgress(@Param("key") String key, @Param("claimToken") String claimToken);
+    
+    /**
+     * Delete a key whose retention window has passed
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+    
+    /**
+     * Delete all expired keys
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    /**
+     * Delete completed keys created before the given time
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.status = 'COMPLETED' AND r.createdAt <= :cutoff")
+    int deleteCompletedCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    /**
+     * Creation times newest first, used to find the cut-off for the size bound
+     */
+    @Query("SELECT r.createdAt FROM IdempotencyRecord r ORDER BY r.createdAt DESC")
+    List<LocalDateTime> findCreatedAtNewestFirst(Pageable pageable);
+}
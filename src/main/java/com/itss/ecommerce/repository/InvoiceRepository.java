@@ -1,6 +1,8 @@
 package com.itss.ecommerce.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import com.itss.ecommerce.entity.Invoice;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -84,6 +87,50 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT i FROM Invoice i WHERE i.paymentStatus = 'PENDING' AND i.createdAt < :cutoffDate")
     List<Invoice> findOverdueInvoices(@Param("cutoffDate") LocalDateTime cutoffDate);
     
+    /**
+     * Find order IDs of unpaid pending orders created before the cutoff,
+     * keyset-paginated by order ID
+     */
+    @Query("SELECT i.order.orderId FROM Invoice i " +
+           "WHERE i.paymentStatus = 'PENDING' AND i.order.status = 'PENDING' " +
+           "AND i.createdAt < :cutoffDate AND i.order.orderId > :afterOrderId " +
+           "ORDER BY i.order.orderId")
+    List<Long> findExpiredPendingOrderIds(@Param("cutoffDate") LocalDateTime cutoffDate,
+                                          @Param("afterOrderId") Long afterOrderId,
+                                          Pageable pageable);
+    
+    /**
+     * Mark pending invoices of the given orders as cancelled
+     */
+    @Modifying
+    @Query("UPDATE Invoice i SET i.paymentStatus = 'CANCELLED' " +
+           "WHERE i.order.orderId IN :orderIds AND i.paymentStatus = 'PENDING'")
+    int cancelPendingByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * Mark an order's invoice as paid if it is still pending; returns 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Invoice i SET i.paymentStatus = 'PAID', i.paidAt = :paidAt " +
+           "WHERE i.order.orderId = :orderId AND i.paymentStatus = 'PENDING'")
+    int markPaidIfPending(@Param("orderId") Long orderId, @Param("paidAt") LocalDateTime paidAt);
+    
+    /**
+     * Mark pending invoices of the given orders as paid
+     */
+    @Modifying
+    @Query("UPDATE Invoice i SET i.paymentStatus = 'PAID', i.paidAt = :paidAt " +
+           "WHERE i.order.orderId IN :orderIds AND i.paymentStatus = 'PENDING'")
+    int markPaidByOrderIds(@Param("orderIds") Collection<Long> orderIds, @Param("paidAt") LocalDateTime paidAt);
+    
+    /**
+     * Find which of the given orders have an invoice in the given payment status
+     */
+    @Query("SELECT i.order.orderId FROM Invoice i " +
+           "WHERE i.order.orderId IN :orderIds AND i.paymentStatus = :paymentStatus")
+    List<Long> findOrderIdsByPaymentStatus(@Param("orderIds") Collection<Long> orderIds,
+                                           @Param("paymentStatus") Invoice.PaymentStatus paymentStatus);
+    
     /**
      * Get payment method statistics
      */
@@ -0,0 +1,232 @@
+package com.itss.ecommerce.repository;
+
+import com.itss.ecommerce.entity.DeliveryInformation;
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OrderItem;
+import com.itss.ecommerce.entity.PaymentTransaction;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold copies of completed orders with their lines, invoice and payment
+ * transactions. Rows are moved with INSERT ... SELECT and DELETE over plain JDBC
+ * so archiving never loads the entities.
+ * Runs inside the caller's JPA transaction (same DataSource).
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderArchiveRepository {
+
+    private static final String ORDER_COLUMNS =
+            "order_id, total_before_vat, total_after_vat, status, delivery_id, customer_key, " +
+            "vat_percentage, stock_restored, has_rush, created_at, updated_at";
+
+    private static final String ORDER_ITEM_COLUMNS =
+            "order_item_id, order_id, product_id, status, rush_order_using, quantity, total_fee, " +
+            "delivery_time, instructions";
+
+    private static final String INVOICE_COLUMNS =
+            "invoice_id, order_id, description, created_at, payment_status, payment_method, paid_at";
+
+    private static final String TRANSACTION_COLUMNS =
+            "transaction_id, invoice_id, amount, status, payment_method, created_at, processed_at, failure_reason";
+
+    private static final List<String> CREATE_TABLES_SQL = List.of(
+            "CREATE TABLE IF NOT EXISTS order_items_archive (" +
+            "order_id BIGINT PRIMARY KEY, total_before_vat INTEGER, total_after_vat INTEGER, status VARCHAR(20), " +
+            "delivery_id BIGINT, customer_key VARCHAR(255), vat_percentage INTEGER, stock_restored BOOLEAN, " +
+            "has_rush BOOLEAN, created_at TIMESTAMP, updated_at TIMESTAMP, archived_at TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS order_item_archive (" +
+            "order_item_id BIGINT PRIMARY KEY, order_id BIGINT NOT NULL, product_id BIGINT, status VARCHAR(20), " +
+            "rush_order_using BOOLEAN, quantity INTEGER, total_fee INTEGER, delivery_time VARCHAR(255), " +
+            "instructions TEXT)",
+            "CREATE INDEX IF NOT EXISTS idx_order_item_archive_order_id ON order_item_archive (order_id)",
+            "CREATE TABLE IF NOT EXISTS invoice_archive (" +
+            "invoice_id BIGINT PRIMARY KEY, order_id BIGINT NOT NULL, description TEXT, created_at TIMESTAMP, " +
+            "payment_status VARCHAR(20), payment_method VARCHAR(50), paid_at TIMESTAMP)",
+            "CREATE INDEX IF NOT EXISTS idx_invoice_archive_order_id ON invoice_archive (order_id)",
+            "CREATE TABLE IF NOT EXISTS payment_transaction_archive (" +
+            "transaction_id BIGINT PRIMARY KEY, invoice_id BIGINT NOT NULL, amount INTEGER, status VARCHAR(20), " +
+            "payment_method VARCHAR(50), created_at TIMESTAMP, processed_at TIMESTAMP, failure_reason VARCHAR(255))",
+            "CREATE INDEX IF NOT EXISTS idx_payment_transaction_archive_invoice_id " +
+            "ON payment_transaction_archive (invoice_id)"
+    );
+
+    private static final String INVOICE_IDS_OF_ORDERS = "SELECT invoice_id FROM invoice WHERE order_id IN (:orderIds)";
+
+    private static final String ARCHIVE_ORDERS_SQL =
+            "INSERT INTO order_items_archive (" + ORDER_COLUMNS + ", archived_at) " +
+            "SELECT " + ORDER_COLUMNS + ", :archivedAt FROM order_items WHERE order_id IN (:orderIds)";
+
+    private static final String ARCHIVE_ORDER_ITEMS_SQL =
+            "INSERT INTO order_item_archive (" + ORDER_ITEM_COLUMNS + ") " +
+            "SELECT " + ORDER_ITEM_COLUMNS + " FROM order_item WHERE order_id IN (:orderIds)";
+
+    private static final String ARCHIVE_INVOICES_SQL =
+            "INSERT INTO invoice_archive (" + INVOICE_COLUMNS + ") " +
+            "SELECT " + INVOICE_COLUMNS + " FROM invoice WHERE order_id IN (:orderIds)";
+
+    private static final String ARCHIVE_TRANSACTIONS_SQL =
+            "INSERT INTO payment_transaction_archive (" + TRANSACTION_COLUMNS + ") " +
+            "SELECT " + TRANSACTION_COLUMNS + " FROM payment_transaction WHERE invoice_id IN (" + INVOICE_IDS_OF_ORDERS + ")";
+
+    private static final List<String> DELETE_HOT_ROWS_SQL = List.of(
+            "DELETE FROM payment_transaction WHERE invoice_id IN (" + INVOICE_IDS_OF_ORDERS + ")",
+            "DELETE FROM invoice WHERE order_id IN (:orderIds)",
+            "DELETE FROM order_item WHERE order_id IN (:orderIds)",
+            "DELETE FROM order_items WHERE order_id IN (:orderIds)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the archive tables if they do not exist yet
+     */
+    public void createTablesIfMissing() {
+        CREATE_TABLES_SQL.forEach(jdbcTemplate::execute);
+    }
+
+    /**
+     * Copy the given orders and their lines, invoices and transactions into the
+     * archive tables, then delete them from the hot tables
+     *
+     * @return number of orders archived
+     */
+    public int moveToArchive(Collection<Long> orderIds, LocalDateTime archivedAt) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("orderIds", orderIds)
+                .addValue("archivedAt", Timestamp.valueOf(archivedAt));
+
+        int archived = namedJdbcTemplate.update(ARCHIVE_ORDERS_SQL, params);
+        namedJdbcTemplate.update(ARCHIVE_ORDER_ITEMS_SQL, params);
+        namedJdbcTemplate.update(ARCHIVE_INVOICES_SQL, params);
+        namedJdbcTemplate.update(ARCHIVE_TRANSACTIONS_SQL, params);
+
+        // Children first, so the statements also run with foreign keys enforced
+        DELETE_HOT_ROWS_SQL.forEach(sql -> namedJdbcTemplate.update(sql, params));
+        return archived;
+    }
+
+    /**
+     * Find an archived order without relations. The delivery information is a
+     * reference holding only its ID.
+     */
+    public Optional<Order> findOrder(Long orderId) {
+        return jdbcTemplate.query("SELECT " + ORDER_COLUMNS + " FROM order_items_archive WHERE order_id = ?",
+                (rs, rowNum) -> mapOrder(rs), orderId).stream().findFirst();
+    }
+
+    /**
+     * Find the lines of an archived order, each with the ID of its product
+     */
+    public List<ArchivedOrderItem> findOrderItems(Long orderId) {
+        return jdbcTemplate.query("SELECT " + ORDER_ITEM_COLUMNS + " FROM order_item_archive " +
+                        "WHERE order_id = ? ORDER BY order_item_id",
+                (rs, rowNum) -> new ArchivedOrderItem(mapOrderItem(rs), rs.getLong("product_id")), orderId);
+    }
+
+    /**
+     * Find the archived invoice of an order without relations
+     */
+    public Optional<Invoice> findInvoice(Long orderId) {
+        return jdbcTemplate.query("SELECT " + INVOICE_COLUMNS + " FROM invoice_archive WHERE order_id = ?",
+                (rs, rowNum) -> mapInvoice(rs), orderId).stream().findFirst();
+    }
+
+    /**
+     * Find the archived payment transactions of an invoice
+     */
+    public List<PaymentTransaction> findTransactions(Long invoiceId) {
+        return jdbcTemplate.query("SELECT " + TRANSACTION_COLUMNS + " FROM payment_transaction_archive " +
+                        "WHERE invoice_id = ? ORDER BY transaction_id",
+                (rs, rowNum) -> mapTransaction(rs), invoiceId);
+    }
+
+    /**
+     * Archived order line with the ID of its product
+     */
+    public record ArchivedOrderItem(OrderItem orderItem, Long productId) {
+    }
+
+    private Order mapOrder(ResultSet rs) throws SQLException {
+        Order order = new Order();
+        order.setOrderId(rs.getLong("order_id"));
+        order.setTotalBeforeVat(rs.getInt("total_before_vat"));
+        order.setTotalAfterVat(rs.getInt("total_after_vat"));
+        order.setStatus(Order.OrderStatus.valueOf(rs.getString("status")));
+        order.setCustomerKey(rs.getString("customer_key"));
+        order.setVatPercentage(rs.getInt("vat_percentage"));
+        order.setStockRestored(rs.getBoolean("stock_restored"));
+        order.setHasRush(rs.getBoolean("has_rush"));
+        order.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        order.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+
+        long deliveryId = rs.getLong("delivery_id");
+        if (!rs.wasNull()) {
+            DeliveryInformation deliveryInformation = new DeliveryInformation();
+            deliveryInformation.setDeliveryId(deliveryId);
+            order.setDeliveryInformation(deliveryInformation);
+        }
+        return order;
+    }
+
+    private OrderItem mapOrderItem(ResultSet rs) throws SQLException {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrderItemId(rs.getLong("order_item_id"));
+        String status = rs.getString("status");
+        orderItem.setStatus(status != null ? OrderItem.OrderItemStatus.valueOf(status) : null);
+        orderItem.setRushOrder(rs.getBoolean("rush_order_using"));
+        orderItem.setQuantity(rs.getInt("quantity"));
+        orderItem.setTotalFee(rs.getInt("total_fee"));
+        orderItem.setDeliveryTime(rs.getString("delivery_time"));
+        orderItem.setInstructions(rs.getString("instructions"));
+        return orderItem;
+    }
+
+    private Invoice mapInvoice(ResultSet rs) throws SQLException {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceId(rs.getLong("invoice_id"));
+        invoice.setDescription(rs.getString("description"));
+        invoice.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        String paymentStatus = rs.getString("payment_status");
+        invoice.setPaymentStatus(paymentStatus != null ? Invoice.PaymentStatus.valueOf(paymentStatus) : null);
+        invoice.setPaymentMethod(rs.getString("payment_method"));
+        invoice.setPaidAt(toLocalDateTime(rs.getTimestamp("paid_at")));
+        return invoice;
+    }
+
+    private PaymentTransaction mapTransaction(ResultSet rs) throws SQLException {
+        PaymentTransaction transaction = new PaymentTransaction();
+        transaction.setTransactionId(rs.getLong("transaction_id"));
+        transaction.setAmount(rs.getInt("amount"));
+        String status = rs.getString("status");
+        transaction.setStatus(status != null ? PaymentTransaction.TransactionStatus.valueOf(status) : null);
+        transaction.setPaymentMethod(rs.getString("payment_method"));
+        transaction.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        transaction.setProcessedAt(toLocalDateTime(rs.getTimestamp("processed_at")));
+        transaction.setFailureReason(rs.getString("failure_reason"));
+        return transaction;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,6 +1,9 @@
 package com.itss.ecommerce.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,19 +11,30 @@ import org.springframework.stereotype.Repository;
 import com.itss.ecommerce.entity.Order;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    /**
+     * Find order with everything needed for the detail view
+     */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice", "orderItems", "orderItems.product"})
+    @Query("SELECT o FROM Order o WHERE o.orderId = :orderId")
+    Optional<Order> findWithDetailsById(@Param("orderId") Long orderId);
+    
     /**
      * Find orders by status
      */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
     List<Order> findByStatus(Order.OrderStatus status);
     
     /**
      * Find pending orders
      */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
     @Query("SELECT o FROM Order o WHERE o.status = 'PENDING'")
     List<Order> findPendingOrders();
     
@@ -40,12 +54,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     /**
      * Find orders with rush delivery
      */
-    @Query("SELECT DISTINCT o FROM Order o JOIN o.orderItems ol WHERE ol.rushOrder = true")
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
+    @Query("SELECT o FROM Order o WHERE o.hasRush = true")
     List<Order> findOrdersWithRushDelivery();
     
     /**
      * Find recent orders (last 30 days)
      */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
     @Query("SELECT o FROM Order o WHERE o.createdAt >= :cutoffDate")
     List<Order> findRecentOrders(@Param("cutoffDate") LocalDateTime cutoffDate);
     
@@ -75,12 +91,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     /**
      * Find orders that can be cancelled
      */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
     @Query("SELECT o FROM Order o WHERE o.status IN ('PENDING', 'CONFIRMED')")
     List<Order> findCancellableOrders();
     
     /**
      * Find orders ordered by creation date (newest first)
      */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
     List<Order> findAllByOrderByCreatedAtDesc();
     
     /**
@@ -90,8 +108,133 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Object[]> getOrderStatistics();
     
     /**
-     * Find orders by customer email (through delivery info)
+     * Find orders by normalized customer key, newest first
+     */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
+    @Query("SELECT o FROM Order o WHERE o.customerKey = :customerKey ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Order> findOrdersByCustomerKey(@Param("customerKey") String customerKey);
+    
+    /**
+     * Customer order history with keyset pagination on (createdAt, orderId),
+     * newest first; served by idx_order_customer_key_created_at
+     */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
+    @Query("SELECT o FROM Order o WHERE o.customerKey = :customerKey AND " +
+           "(:cursorCreatedAt IS NULL OR o.createdAt < :cursorCreatedAt " +
+           " OR (o.createdAt = :cursorCreatedAt AND o.orderId < :cursorOrderId)) " +
+           "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Order> findCustomerOrders(@Param("customerKey") String customerKey,
+                                   @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                   @Param("cursorOrderId") Long cursorOrderId,
+                                   Pageable pageable);
+    
+    /**
+     * Fill the customer key of orders created before it existed (set-based backfill)
+     */
+    @Modifying
+    @Query(value = "UPDATE order_items SET customer_key = " +
+           "(SELECT LOWER(TRIM(d.email)) FROM delivery_information d WHERE d.delivery_id = order_items.delivery_id) " +
+           "WHERE customer_key IS NULL AND delivery_id IS NOT NULL",
+           nativeQuery = true)
+    int backfillCustomerKeys();
+    
+    /**
+     * Fill the rush flag of orders created before it existed (set-based backfill)
+     */
+    @Modifying
+    @Query(value = "UPDATE order_items SET has_rush = " +
+           "CASE WHEN EXISTS (SELECT 1 FROM order_item oi WHERE oi.order_id = order_items.order_id " +
+           "AND oi.rush_order_using = TRUE) THEN TRUE ELSE FALSE END " +
+           "WHERE has_rush IS NULL",
+           nativeQuery = true)
+    int backfillRushFlags();
+
+    /**
+     * Filtered order listing with keyset pagination on (createdAt, orderId),
+     * newest first. Null parameters are ignored.
+     */
+    @EntityGraph(attributePaths = {"deliveryInformation", "invoice"})
+    @Query("SELECT o FROM Order o LEFT JOIN o.deliveryInformation d WHERE " +
+           "(:status IS NULL OR o.status = :status) AND " +
+           "(:fromDate IS NULL OR o.createdAt >= :fromDate) AND " +
+           "(:toDate IS NULL OR o.createdAt <= :toDate) AND " +
+           "(:province IS NULL OR d.province = :province) AND " +
+           "(:email IS NULL OR o.customerKey = :email) AND " +
+           "(:minAmount IS NULL OR o.totalAfterVat >= :minAmount) AND " +
+           "(:maxAmount IS NULL OR o.totalAfterVat <= :maxAmount) AND " +
+           "(:rush IS NULL OR o.hasRush = :rush) AND " +
+           "(:cursorCreatedAt IS NULL OR o.createdAt < :cursorCreatedAt " +
+           " OR (o.createdAt = :cursorCreatedAt AND o.orderId < :cursorOrderId)) " +
+           "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Order> queryOrders(@Param("status") Order.OrderStatus status,
+                            @Param("fromDate") LocalDateTime fromDate,
+                            @Param("toDate") LocalDateTime toDate,
+                            @Param("province") String province,
+                            @Param("email") String email,
+                            @Param("minAmount") Integer minAmount,
+                            @Param("maxAmount") Integer maxAmount,
+                            @Param("rush") Boolean rush,
+                            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                            @Param("cursorOrderId") Long cursorOrderId,
+                            Pageable pageable);
+    
+    /**
+     * Mark order stock as restored; returns 0 if it was already restored
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.stockRestored = true " +
+           "WHERE o.orderId = :orderId AND (o.stockRestored IS NULL OR o.stockRestored = false)")
+    int markStockRestored(@Param("orderId") Long orderId);
+    
+    /**
+     * Filter the given orders down to pending, unpaid ones whose stock is still held
+     */
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId IN :orderIds AND o.status = 'PENDING' " +
+           "AND (o.stockRestored IS NULL OR o.stockRestored = false) " +
+           "AND NOT EXISTS (SELECT i.invoiceId FROM Invoice i WHERE i.order = o AND i.paymentStatus <> 'PENDING')")
+    List<Long> findPendingWithHeldStock(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * Cancel pending orders and mark their stock as restored
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'CANCELLED', o.stockRestored = true, o.updatedAt = :updatedAt " +
+           "WHERE o.orderId IN :orderIds AND o.status = 'PENDING'")
+    int cancelPendingOrders(@Param("orderIds") Collection<Long> orderIds,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Get ID, status and customer key of the given orders without loading them
+     */
+    @Query("SELECT o.orderId, o.status, o.customerKey FROM Order o WHERE o.orderId IN :orderIds")
+    List<Object[]> findStatusRows(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * Move the given orders to a new status, only those currently in the expected status
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :toStatus, o.updatedAt = :updatedAt " +
+           "WHERE o.orderId IN :orderIds AND o.status = :fromStatus")
+    int transitionStatus(@Param("orderIds") Collection<Long> orderIds,
+                         @Param("fromStatus") Order.OrderStatus fromStatus,
+                         @Param("toStatus") Order.OrderStatus toStatus,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Find completed orders last updated before the cutoff, in ID order after the given ID
+     */
+    @Query("SELECT o.orderId FROM Order o WHERE o.status IN :statuses " +
+           "AND COALESCE(o.updatedAt, o.createdAt) < :cutoff AND o.orderId > :afterOrderId ORDER BY o.orderId")
+    List<Long> findArchivableOrderIds(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      @Param("afterOrderId") Long afterOrderId,
+                                      Pageable pageable);
+    
+    /**
+     * Find the delivery rows used by a customer, most recently used first
      */
-    @Query("SELECT o FROM Order o WHERE o.deliveryInformation.email = :email")
-    List<Order> findOrdersByCustomerEmail(@Param("email") String email);
-}
\ No newline at end of file
+    @Query("SELECT o.deliveryInformation.deliveryId FROM Order o " +
+           "WHERE o.customerKey = :customerKey AND o.deliveryInformation IS NOT NULL " +
+           "GROUP BY o.deliveryInformation.deliveryId ORDER BY MAX(o.createdAt) DESC")
+    List<Long> findRecentDeliveryIds(@Param("customerKey") String customerKey, Pageable pageable);
+}
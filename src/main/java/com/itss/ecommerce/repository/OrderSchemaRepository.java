@@ -0,0 +1,177 @@
+package com.itss.ecommerce.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Schema fixes for order_items that ddl-auto=update cannot apply. Older
+ * SQLite databases declare order_items.delivery_id as UNIQUE (it used to be a
+ * one-to-one), which blocks orders from sharing a saved delivery row. SQLite
+ * cannot drop a column constraint in place, so the table is rebuilt without it.
+ * Other databases get their schema from the entities and need no fix.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderSchemaRepository {
+
+    private static final String TABLE = "order_items";
+    private static final String DELIVERY_COLUMN = "delivery_id";
+
+    private static final String TABLE_SQL = "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = '" + TABLE + "'";
+    private static final String DEPENDENT_SQL =
+            "SELECT sql FROM sqlite_master WHERE type IN ('index', 'trigger') AND tbl_name = '" + TABLE + "' " +
+            "AND sql IS NOT NULL";
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("(?i)^\\s*CREATE\\s+TABLE\\s+\"?" + TABLE + "\"?");
+    private static final Pattern UNIQUE_DELIVERY_COLUMN =
+            Pattern.compile("(?i)(\\b" + DELIVERY_COLUMN + "\"?\\s+\\w+(?:\\s*\\([^)]*\\))?)\\s+unique\\b");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Check if order_items still has a unique index on delivery_id alone
+     */
+    public boolean hasUniqueDeliveryIndex() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+            isSqlite(connection) && !uniqueDeliveryIndexes(connection).isEmpty()));
+    }
+
+    /**
+     * Remove the unique constraint on order_items.delivery_id. Separate unique
+     * indexes are dropped; a constraint declared on the column is removed by
+     * copying the table into a new one without it, keeping rows, indexes and
+     * triggers. Runs on one connection in its own transaction.
+     *
+     * @return true if the schema was changed
+     */
+    public boolean dropUniqueDeliveryConstraint() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!isSqlite(connection)) {
+                return false;
+            }
+            List<UniqueIndex> indexes = uniqueDeliveryIndexes(connection);
+            if (indexes.isEmpty()) {
+                return false;
+            }
+            // Foreign key enforcement can only be switched outside a transaction
+            boolean foreignKeys = queryForInt(connection, "PRAGMA foreign_keys") == 1;
+            boolean autoCommit = connection.getAutoCommit();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA foreign_keys = OFF");
+                connection.setAutoCommit(false);
+                try {
+                    boolean rebuild = false;
+                    for (UniqueIndex index : indexes) {
+                        if (index.declaredOnTable()) {
+                            rebuild = true;
+                        } else {
+                            statement.execute("DROP INDEX \"" + index.name() + "\"");
+                        }
+                    }
+                    if (rebuild) {
+                        rebuildWithoutUniqueDelivery(connection, statement);
+                    }
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } finally {
+                if (foreignKeys) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("PRAGMA foreign_keys = ON");
+                    }
+                }
+            }
+            return true;
+        }));
+    }
+
+    private void rebuildWithoutUniqueDelivery(Connection connection, Statement statement) throws SQLException {
+        String createSql = queryForStrings(connection, TABLE_SQL).get(0);
+        Matcher unique = UNIQUE_DELIVERY_COLUMN.matcher(createSql);
+        if (!unique.find()) {
+            throw new IllegalStateException("Cannot find the unique " + DELIVERY_COLUMN + " column in: " + createSql);
+        }
+        String newTableSql = CREATE_TABLE.matcher(unique.replaceFirst("$1"))
+            .replaceFirst("CREATE TABLE " + TABLE + "_new");
+        List<String> dependentSql = queryForStrings(connection, DEPENDENT_SQL);
+
+        statement.execute(newTableSql);
+        statement.execute("INSERT INTO " + TABLE + "_new SELECT * FROM " + TABLE);
+        statement.execute("DROP TABLE " + TABLE);
+        statement.execute("ALTER TABLE " + TABLE + "_new RENAME TO " + TABLE);
+        for (String sql : dependentSql) {
+            statement.execute(sql);
+        }
+        try (ResultSet violations = statement.executeQuery("PRAGMA foreign_key_check")) {
+            if (violations.next()) {
+                throw new IllegalStateException("Foreign key violation in " + violations.getString(1)
+                    + " after rebuilding " + TABLE);
+            }
+        }
+    }
+
+    private List<UniqueIndex> uniqueDeliveryIndexes(Connection connection) throws SQLException {
+        List<UniqueIndex> uniqueIndexes = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet indexes = statement.executeQuery("PRAGMA index_list('" + TABLE + "')")) {
+            while (indexes.next()) {
+                if (indexes.getInt("unique") == 1) {
+                    uniqueIndexes.add(new UniqueIndex(indexes.getString("name"), "u".equals(indexes.getString("origin"))));
+                }
+            }
+        }
+        List<UniqueIndex> onDelivery = new ArrayList<>();
+        for (UniqueIndex index : uniqueIndexes) {
+            List<String> columns = queryForStrings(connection,
+                "PRAGMA index_info('" + index.name().replace("'", "''") + "')", "name");
+            if (columns.equals(List.of(DELIVERY_COLUMN))) {
+                onDelivery.add(index);
+            }
+        }
+        return onDelivery;
+    }
+
+    private static boolean isSqlite(Connection connection) throws SQLException {
+        return "SQLite".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static int queryForInt(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static List<String> queryForStrings(Connection connection, String sql) throws SQLException {
+        return queryForStrings(connection, sql, null);
+    }
+
+    private static List<String> queryForStrings(Connection connection, String sql, String column) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(column == null ? rs.getString(1) : rs.getString(column));
+            }
+        }
+        return values;
+    }
+
+    private record UniqueIndex(String name, boolean declaredOnTable) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.itss.ecommerce.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+    
+    /**
+     * Page through summaries newest first, keyset on (createdAt, orderId)
+     */
+    @Query("SELECT s FROM OrderSummary s WHERE " +
+           "(:status IS NULL OR s.status = :status) AND " +
+           "(:cursorCreatedAt IS NULL OR s.createdAt < :cursorCreatedAt " +
+           " OR (s.createdAt = :cursorCreatedAt AND s.orderId < :cursorOrderId)) " +
+           "ORDER BY s.createdAt DESC, s.orderId DESC")
+    List<OrderSummary> findPage(@Param("status") Order.OrderStatus status,
+                                @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                @Param("cursorOrderId") Long cursorOrderId,
+                                Pageable pageable);
+    
+    /**
+     * Update order status
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.updatedAt = :updatedAt WHERE s.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId,
+                     @Param("status") Order.OrderStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Update order status of several summaries at once
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.updatedAt = :updatedAt WHERE s.orderId IN :orderIds")
+    int updateStatusByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                               @Param("status") Order.OrderStatus status,
+                               @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Update payment status
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.paymentStatus = :paymentStatus, s.updatedAt = :updatedAt WHERE s.orderId = :orderId")
+    int updatePaymentStatus(@Param("orderId") Long orderId,
+                            @Param("paymentStatus") Invoice.PaymentStatus paymentStatus,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Update payment status of several summaries at once
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.paymentStatus = :paymentStatus, s.updatedAt = :updatedAt " +
+           "WHERE s.orderId IN :orderIds")
+    int updatePaymentStatusByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                                      @Param("paymentStatus") Invoice.PaymentStatus paymentStatus,
+                                      @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Flag order as containing rush items
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.hasRush = true, s.updatedAt = :updatedAt WHERE s.orderId = :orderId")
+    int markRush(@Param("orderId") Long orderId, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Update order and payment status of several summaries at once
+     */
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.paymentStatus = :paymentStatus, " +
+           "s.updatedAt = :updatedAt WHERE s.orderId IN :orderIds")
+    int updateStatuses(@Param("orderIds") Collection<Long> orderIds,
+                       @Param("status") Order.OrderStatus status,
+                       @Param("paymentStatus") Invoice.PaymentStatus paymentStatus,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Create summaries for orders that do not have one yet (set-based backfill)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_summary (order_id, customer_name, customer_email, province, status, " +
+           "total_before_vat, total_after_vat, item_count, has_rush, payment_status, created_at, updated_at) " +
+           "SELECT o.order_id, d.name, LOWER(d.email), d.province, o.status, o.total_before_vat, o.total_after_vat, " +
+           "COALESCE((SELECT SUM(oi.quantity) FROM order_item oi WHERE oi.order_id = o.order_id), 0), " +
+           "CASE WHEN EXISTS (SELECT 1 FROM order_item oi WHERE oi.order_id = o.order_id " +
+           "AND oi.rush_order_using = TRUE) THEN TRUE ELSE FALSE END, " +
+           "i.payment_status, o.created_at, o.updated_at " +
+           "FROM order_items o " +
+           "LEFT JOIN delivery_information d ON d.delivery_id = o.delivery_id " +
+           "LEFT JOIN invoice i ON i.order_id = o.order_id " +
+           "WHERE NOT EXISTS (SELECT 1 FROM order_summary s WHERE s.order_id = o.order_id)",
+           nativeQuery = true)
+    int backfillMissing();
+}
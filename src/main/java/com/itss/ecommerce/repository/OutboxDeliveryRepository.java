@@ -0,0 +1,29 @@
+package com.itss.ecommerce.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.itss.ecommerce.entity.OutboxDelivery;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxDeliveryRepository extends JpaRepository<OutboxDelivery, Long> {
+    
+    /**
+     * Check if a handler already handled an event
+     */
+    boolean existsByEventIdAndHandlerName(Long eventId, String handlerName);
+    
+    /**
+     * Delete delivery records older than the cutoff
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxDelivery d WHERE d.deliveredAt < :cutoff")
+    int deleteDeliveredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,47 @@
+package com.itss.ecommerce.repository;
+
+import com.itss.ecommerce.entity.OutboxEvent;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox inserts issued as one JDBC batch for set-based state changes.
+ * Runs inside the caller's JPA transaction (same DataSource).
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxEventBatchRepository {
+
+    private static final String INSERT_PENDING_SQL =
+            "INSERT INTO outbox_event (aggregate_id, event_type, payload, status, attempts, created_at, available_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert the same pending event for several orders, in the given order
+     *
+     * @return number of rows inserted
+     */
+    public int insertPending(Collection<Long> orderIds, OutboxEvent.EventType eventType, String payload,
+                             LocalDateTime createdAt) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp timestamp = Timestamp.valueOf(createdAt);
+        List<Object[]> batchArgs = orderIds.stream()
+                .map(orderId -> new Object[]{orderId, eventType.name(), payload, timestamp, timestamp})
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_PENDING_SQL, batchArgs);
+        return batchArgs.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.itss.ecommerce.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.itss.ecommerce.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    /**
+     * Find pending events due for delivery, oldest first. An event is held back
+     * while an earlier event of the same order is still waiting for a retry.
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.availableAt <= :now " +
+           "AND NOT EXISTS (SELECT p FROM OutboxEvent p WHERE p.aggregateId = e.aggregateId " +
+           "AND p.status = 'PENDING' AND p.eventId < e.eventId AND p.availableAt > :now) " +
+           "ORDER BY e.eventId")
+    List<OutboxEvent> findDeliverable(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Find events of an order in delivery order
+     */
+    List<OutboxEvent> findByAggregateIdOrderByEventId(Long aggregateId);
+    
+    /**
+     * Count events by status
+     */
+    long countByStatus(OutboxEvent.Status status);
+    
+    /**
+     * Delete delivered events older than the cutoff
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DELIVERED' AND e.deliveredAt < :cutoff")
+    int deleteDeliveredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,63 @@
+package com.itss.ecommerce.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.itss.ecommerce.entity.PaymentNotification;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PaymentNotificationRepository extends JpaRepository<PaymentNotification, Long> {
+
+    /**
+     * Store a received notification; returns 0 if its transaction number is already known
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO payment_notification " +
+                   "(transaction_no, order_id, response_code, transaction_status, amount, bank_code, pay_date, " +
+                   "status, received_at) " +
+                   "SELECT :transactionNo, :orderId, :responseCode, :transactionStatus, :amount, :bankCode, :payDate, " +
+                   "'RECEIVED', :receivedAt " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM payment_notification WHERE transaction_no = :transactionNo)",
+           nativeQuery = true)
+    int insertReceived(@Param("transactionNo") String transactionNo,
+                       @Param("orderId") Long orderId,
+                       @Param("responseCode") String responseCode,
+                       @Param("transactionStatus") String transactionStatus,
+                       @Param("amount") Long amount,
+                       @Param("bankCode") String bankCode,
+                       @Param("payDate") String payDate,
+                       @Param("receivedAt") LocalDateTime receivedAt);
+
+    /**
+     * Find a notification by gateway transaction number
+     */
+    Optional<PaymentNotification> findByTransactionNo(String transactionNo);
+
+    /**
+     * Mark a received notification as processed; returns 0 if it was already processed
+     */
+    @Modifying
+    @Query("UPDATE PaymentNotification n SET n.status = :status, n.processedAt = :processedAt " +
+           "WHERE n.transactionNo = :transactionNo AND n.status = 'RECEIVED'")
+    int markProcessed(@Param("transactionNo") String transactionNo,
+                      @Param("status") PaymentNotification.Status status,
+                      @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Mark a received notification as skipped with the reason; returns 0 if it was already processed
+     */
+    @Modifying
+    @Query("UPDATE PaymentNotification n SET n.status = 'SKIPPED', n.skipReason = :skipReason, " +
+           "n.processedAt = :processedAt WHERE n.transactionNo = :transactionNo AND n.status = 'RECEIVED'")
+    int markSkipped(@Param("transactionNo") String transactionNo,
+                    @Param("skipReason") String skipReason,
+                    @Param("processedAt") LocalDateTime processedAt);
+}
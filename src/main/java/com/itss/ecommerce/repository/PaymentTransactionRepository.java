@@ -1,10 +1,17 @@
 package com.itss.ecommerce.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.itss.ecommerce.dto.payment.PendingPayment;
 import com.itss.ecommerce.entity.Invoice;
 import com.itss.ecommerce.entity.PaymentTransaction;
 
@@ -42,4 +49,72 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
     Invoice findInvoiceByTransactionId(Long transactionId);
 
     PaymentTransaction findSuccessByInvoice(Invoice invoice);
+
+    /**
+     * Cancel pending transactions of the given orders
+     */
+    @Modifying
+    @Query("UPDATE PaymentTransaction t SET t.status = 'CANCELLED', t.processedAt = :processedAt, " +
+           "t.failureReason = :reason " +
+           "WHERE t.status = 'PENDING' AND t.invoice.invoiceId IN " +
+           "(SELECT i.invoiceId FROM Invoice i WHERE i.order.orderId IN :orderIds)")
+    int cancelPendingByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                                @Param("processedAt") LocalDateTime processedAt,
+                                @Param("reason") String reason);
+
+    /**
+     * Mark pending transactions of the given orders as successful
+     */
+    @Modifying
+    @Query("UPDATE PaymentTransaction t SET t.status = 'SUCCESS', t.processedAt = :processedAt " +
+           "WHERE t.status = 'PENDING' AND t.invoice.invoiceId IN " +
+           "(SELECT i.invoiceId FROM Invoice i WHERE i.order.orderId IN :orderIds)")
+    int markPendingSucceededByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                                       @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Mark pending transactions of the given orders successful with a note,
+     * for payments captured at the gateway after the order was closed
+     */
+    @Modifying
+    @Query("UPDATE PaymentTransaction t SET t.status = 'SUCCESS', t.processedAt = :processedAt, " +
+           "t.failureReason = :note " +
+           "WHERE t.status = 'PENDING' AND t.invoice.invoiceId IN " +
+           "(SELECT i.invoiceId FROM Invoice i WHERE i.order.orderId IN :orderIds)")
+    int markPendingSucceededWithNote(@Param("orderIds") Collection<Long> orderIds,
+                                     @Param("processedAt") LocalDateTime processedAt,
+                                     @Param("note") String note);
+
+    /**
+     * Store the vnp_CreateDate of a newly signed payment URL on the order's pending transactions
+     */
+    @Modifying
+    @Query("UPDATE PaymentTransaction t SET t.gatewayCreateDate = :createDate " +
+           "WHERE t.status = 'PENDING' AND t.invoice.invoiceId IN " +
+           "(SELECT i.invoiceId FROM Invoice i WHERE i.order.orderId = :orderId)")
+    int updateGatewayCreateDate(@Param("orderId") Long orderId, @Param("createDate") String createDate);
+
+    /**
+     * Mark the given transactions as failed if they are still pending
+     */
+    @Modifying
+    @Query("UPDATE PaymentTransaction t SET t.status = 'FAILED', t.processedAt = :processedAt, " +
+           "t.failureReason = :reason " +
+           "WHERE t.status = 'PENDING' AND t.transactionId IN :transactionIds")
+    int markPendingFailed(@Param("transactionIds") Collection<Long> transactionIds,
+                          @Param("processedAt") LocalDateTime processedAt,
+                          @Param("reason") String reason);
+
+    /**
+     * Find pending transactions created before the cutoff,
+     * keyset-paginated by transaction ID
+     */
+    @Query("SELECT new com.itss.ecommerce.dto.payment.PendingPayment(" +
+           "t.transactionId, t.invoice.order.orderId, t.amount, t.createdAt, t.gatewayCreateDate) " +
+           "FROM PaymentTransaction t " +
+           "WHERE t.status = 'PENDING' AND t.createdAt < :cutoff AND t.transactionId > :afterTransactionId " +
+           "ORDER BY t.transactionId")
+    List<PendingPayment> findStalePending(@Param("cutoff") LocalDateTime cutoff,
+                                          @Param("afterTransactionId") Long afterTransactionId,
+                                          Pageable pageable);
 }
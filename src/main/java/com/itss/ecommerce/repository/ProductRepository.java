@@ -5,8 +5,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.itss.ecommerce.dto.cart.ProductPriceSnapshot;
+import com.itss.ecommerce.dto.cart.ProductStock;
 import com.itss.ecommerce.entity.Product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +36,21 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT p FROM Product p WHERE p.quantity >= :minQuantity")
     List<Product> findProductsWithStock(@Param("minQuantity") int minQuantity);
+
+    /**
+     * Find stock levels for a set of products in a single query
+     */
+    @Query("SELECT new com.itss.ecommerce.dto.cart.ProductStock(p.productId, p.title, p.quantity) " +
+           "FROM Product p WHERE p.productId IN :productIds")
+    List<ProductStock> findStockByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Find price and stock snapshots for a set of products in a single query
+     */
+    @Query("SELECT new com.itss.ecommerce.dto.cart.ProductPriceSnapshot(" +
+           "p.productId, p.title, p.price, p.quantity, p.rushOrderSupported) " +
+           "FROM Product p WHERE p.productId IN :productIds")
+    List<ProductPriceSnapshot> findPriceSnapshotsByProductIds(@Param("productIds") Collection<Long> productIds);
     
     /**
      * Find products by price range
@@ -0,0 +1,69 @@
+package com.itss.ecommerce.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based stock updates issued over plain JDBC.
+ * Runs inside the caller's JPA transaction (same DataSource).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductStockRepository {
+
+    private static final String ORDER_QUANTITIES_SQL =
+            "SELECT product_id, SUM(quantity) FROM order_item WHERE order_id = ? GROUP BY product_id";
+
+    private static final String ORDERS_QUANTITIES_SQL =
+            "SELECT product_id, SUM(quantity) FROM order_item WHERE order_id IN (:orderIds) GROUP BY product_id";
+
+    private static final String RESTOCK_SQL =
+            "UPDATE product SET quantity = COALESCE(quantity, 0) + ? WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Return the quantities of an order to stock as one JDBC batch
+     * (one UPDATE per distinct product)
+     *
+     * @return IDs of the restocked products
+     */
+    public List<Long> restockOrder(Long orderId) {
+        List<Object[]> batchArgs = jdbcTemplate.query(ORDER_QUANTITIES_SQL,
+                (rs, rowNum) -> new Object[]{rs.getInt(2), rs.getLong(1)},
+                orderId);
+        return restock(batchArgs);
+    }
+
+    /**
+     * Return the quantities of several orders to stock as one JDBC batch,
+     * summed per product across the orders
+     *
+     * @return IDs of the restocked products
+     */
+    public List<Long> restockOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object[]> batchArgs = new NamedParameterJdbcTemplate(jdbcTemplate).query(ORDERS_QUANTITIES_SQL,
+                Map.of("orderIds", orderIds),
+                (rs, rowNum) -> new Object[]{rs.getInt(2), rs.getLong(1)});
+        return restock(batchArgs);
+    }
+
+    private List<Long> restock(List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return List.of();
+        }
+
+        jdbcTemplate.batchUpdate(RESTOCK_SQL, batchArgs);
+        return batchArgs.stream().map(args -> (Long) args[1]).toList();
+    }
+}
@@ -3,7 +3,7 @@ package com.itss.ecommerce.service;
 import com.itss.ecommerce.dto.cart.CartCheckRequest;
 import com.itss.ecommerce.dto.cart.CartCheckResponse;
 import com.itss.ecommerce.dto.cart.CartCheckResponse.InsufficientProduct;
-import com.itss.ecommerce.entity.Product;
+import com.itss.ecommerce.dto.cart.ProductStock;
 import com.itss.ecommerce.repository.ProductRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,24 +21,39 @@ public class CartService {
         this.productRepository = productRepository;
     }
 
+    /**
+     * Check requested quantities against stock using a single query.
+     * Lines for the same product are summed before comparing.
+     */
     public CartCheckResponse checkQuantities(CartCheckRequest request) {
         List<InsufficientProduct> insufficient = new ArrayList<>();
-        boolean ok = true;
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            return new CartCheckResponse(true, insufficient);
+        }
 
+        // Merge duplicate lines, keeping request order
+        Map<Long, Integer> requested = new LinkedHashMap<>();
         for (CartCheckRequest.CartItem item : request.getItems()) {
-            Optional<Product> productOpt = productRepository.findById(item.getProductId());
-            if (productOpt.isEmpty() || productOpt.get().getQuantity() < item.getQuantity()) {
-                ok = false;
-                Product product = productOpt.orElse(null);
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, ProductStock> stockById = new HashMap<>();
+        for (ProductStock stock : productRepository.findStockByProductIds(requested.keySet())) {
+            stockById.put(stock.getProductId(), stock);
+        }
+
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            ProductStock stock = stockById.get(entry.getKey());
+            if (stock == null || stock.getAvailable() < entry.getValue()) {
                 insufficient.add(new InsufficientProduct(
-                        item.getProductId(),
-                        product != null ? product.getTitle() : "Unknown",
-                        item.getQuantity(),
-                        product != null ? product.getQuantity() : 0
+                        entry.getKey(),
+                        stock != null ? stock.getTitle() : "Unknown",
+                        entry.getValue(),
+                        stock != null ? stock.getAvailable() : 0
                 ));
             }
         }
 
-        return new CartCheckResponse(ok, insufficient);
+        return new CartCheckResponse(insufficient.isEmpty(), insufficient);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.entity.IdempotencyRecord;
+import com.itss.ecommerce.repository.IdempotencyRecordRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Database-backed store for Idempotency-Key records.
+ * Called outside any request transaction, so each write commits on its own
+ * and claims are visible to concurrent requests before the guarded request runs.
+ * An IN_PROGRESS claim only holds a short lease, so a key whose request never
+ * finished (crash, lost release) can be claimed again; completed responses
+ * are kept for the full TTL. Each claim carries a random token, so a request
+ * whose claim was taken over cannot complete or release the new holder's claim.
+ */
+@Service
+@Slf4j
+@Transactional
+public class IdempotencyService {
+
+    private static final long PURGE_INTERVAL_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Duration ttl;
+    private final Duration lease;
+    private final int maxEntries;
+    private final AtomicLong lastPurgeMillis = new AtomicLong();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.lease-seconds:300}") long leaseSeconds,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Try to claim a key for a new request
+     *
+     * @return the claim token if the caller owns the key and must execute the
+     *         request, empty otherwise
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<String> tryClaim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        purgeIfDue(now);
+        String claimToken = UUID.randomUUID().toString();
+        if (idempotencyRecordRepository.takeOverExpired(key, requestHash, claimToken, now, now.plus(lease)) == 1) {
+            log.warn("Took over idempotency key whose lease expired before completion: {}", key);
+            return Optional.of(claimToken);
+        }
+        idempotencyRecordRepository.deleteIfExpired(key, now);
+
+        try {
+            return idempotencyRecordRepository.insertInProgress(key, requestHash, claimToken, now, now.plus(lease)) == 1
+                ? Optional.of(claimToken) : Optional.empty();
+        } catch (DataIntegrityViolationException e) {
+            // Lost an insert race; the insert ran in its own transaction
+            log.debug("Idempotency key already claimed: {}", key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Find an unexpired record for a key
+     */
+    @Transactional(readOnly = true)
+    public Optional<IdempotencyRecord> findActive(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        return idempotencyRecordRepository.findById(key)
+            .filter(record -> !record.isExpired(now));
+    }
+
+    /**
+     * Store the response for a claimed key and keep it for the TTL
+     */
+    public void complete(String key, String claimToken, int responseStatus, String contentType, String responseBody) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        if (idempotencyRecordRepository.complete(key, claimToken, responseStatus, contentType, responseBody,
+                expiresAt) == 0) {
+            log.warn("Idempotency key was no longer claimed when completing: {}", key);
+        }
+    }
+
+    /**
+     * Release a claimed key after a failed request so it can be retried
+     */
+    public void release(String key, String claimToken) {
+        if (idempotencyRecordRepository.deleteInProgress(key, claimToken) == 0) {
+            log.warn("Idempotency key was no longer claimed when releasing: {}", key);
+        }
+    }
+
+    /**
+     * Delete expired records and keep at most maxEntries completed records.
+     * Runs at most once per interval.
+     */
+    private void purgeIfDue(LocalDateTime now) {
+        long nowMillis = System.currentTimeMillis();
+        long last = lastPurgeMillis.get();
+        if (nowMillis - last < PURGE_INTERVAL_MILLIS || !lastPurgeMillis.compareAndSet(last, nowMillis)) {
+            return;
+        }
+
+        int expired = idempotencyRecordRepository.deleteExpired(now);
+        int evicted = 0;
+        List<LocalDateTime> cutoff = idempotencyRecordRepository.findCreatedAtNewestFirst(PageRequest.of(maxEntries, 1));
+        if (!cutoff.isEmpty()) {
+            evicted = idempotencyRecordRepository.deleteCompletedCreatedBefore(cutoff.get(0));
+        }
+        if (expired > 0 || evicted > 0) {
+            log.info("Purged {} expired and {} excess idempotency records", expired, evicted);
+        }
+    }
+}
@@ -3,11 +3,13 @@ package com.itss.ecommerce.service;
 import com.itss.ecommerce.entity.AuditLog;
 import com.itss.ecommerce.entity.Invoice;
 import com.itss.ecommerce.entity.Order;
-import com.itss.ecommerce.entity.PaymentTransaction;
+import com.itss.ecommerce.entity.OutboxEvent;
 import com.itss.ecommerce.repository.InvoiceRepository;
 import com.itss.ecommerce.repository.OrderRepository;
 import com.itss.ecommerce.repository.PaymentTransactionRepository;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
 import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -25,11 +28,12 @@ import java.util.Optional;
 public class InvoiceService {
 
     private final PaymentTransactionRepository paymentTransactionRepository;
-    private final PaymentTransactionService paymentTransactionService;
     
     private final InvoiceRepository invoiceRepository;
     private final OrderRepository orderRepository;
     private final AuditLogService auditLogService;
+    private final OrderSummaryService orderSummaryService;
+    private final OutboxService outboxService;
     
     /**
      * Get all invoices
@@ -107,6 +111,7 @@ public class InvoiceService {
         
         invoice.markAsPaid(paymentTransactionRepository.findByTransactionId(Long.parseLong(transactionId)));
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        orderSummaryService.updatePaymentStatus(invoice.getOrder().getOrderId(), savedInvoice.getPaymentStatus());
         
         // Log the payment
         auditLogService.logPayment(
@@ -131,6 +136,7 @@ public class InvoiceService {
         
         invoice.markAsFailed();
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        orderSummaryService.updatePaymentStatus(invoice.getOrder().getOrderId(), savedInvoice.getPaymentStatus());
         
         // Log the payment failure
         auditLogService.logPayment(
@@ -279,6 +285,7 @@ public class InvoiceService {
             
             invoice.markAsFailed();
             invoiceRepository.save(invoice);
+            orderSummaryService.updatePaymentStatus(invoice.getOrder().getOrderId(), Invoice.PaymentStatus.FAILED);
             
             // Log payment failure
             auditLogService.logPayment(
@@ -314,6 +321,7 @@ public class InvoiceService {
         
         invoice.setPaymentStatus(Invoice.PaymentStatus.REFUNDED);
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        orderSummaryService.updatePaymentStatus(invoice.getOrder().getOrderId(), Invoice.PaymentStatus.REFUNDED);
         
         // Log the refund
         auditLogService.logPayment(
@@ -343,6 +351,7 @@ public class InvoiceService {
             inv.setPaymentStatus(Invoice.PaymentStatus.PAID);
             inv.setPaidAt(LocalDateTime.now());
             invoiceRepository.save(inv);
+            orderSummaryService.updatePaymentStatus(orderId, Invoice.PaymentStatus.PAID);
             
             auditLogService.logPayment(
                 orderId,
@@ -356,6 +365,47 @@ public class InvoiceService {
             log.warn("Invoice not found for order ID: {}", orderId);
         }
     }
+    /**
+     * Record a successful gateway payment for an order: move the invoice from
+     * PENDING to PAID, mark its pending transaction as successful and queue the
+     * ORDER_PAID event, all in one transaction. The invoice update is
+     * conditional, so a payment reported by both the return redirect and the
+     * IPN is recorded once.
+     *
+     * @return true if this call recorded the payment
+     */
+    public boolean recordPaymentSuccess(Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (invoiceRepository.markPaidIfPending(orderId, now) == 0) {
+            Invoice.PaymentStatus status = invoiceRepository.findByOrderOrderId(orderId)
+                .map(Invoice::getPaymentStatus)
+                .orElse(null);
+            if (status == Invoice.PaymentStatus.PAID) {
+                log.debug("Payment for order {} already recorded", orderId);
+            } else {
+                log.warn("Payment received for order {} whose invoice is {}", orderId, status);
+            }
+            return false;
+        }
+        
+        paymentTransactionRepository.markPendingSucceededByOrderIds(List.of(orderId), now);
+        orderSummaryService.updatePaymentStatus(orderId, Invoice.PaymentStatus.PAID);
+        
+        Invoice invoice = invoiceRepository.findByOrderOrderId(orderId).orElseThrow();
+        auditLogService.logAction(
+            "Invoice Status Updated",
+            "Invoice",
+            invoice.getInvoiceId(),
+            AuditLog.ActionType.UPDATE,
+            null
+        );
+        
+        outboxService.publish(orderId, OutboxEvent.EventType.ORDER_PAID,
+            Map.of("invoiceId", invoice.getInvoiceId(), "amount", invoice.getTotalAmount()));
+        log.info("Payment recorded for order {}", orderId);
+        return true;
+    }
+    
     public Invoice updateInvoiceStatus(Long orderId, Invoice.PaymentStatus status) {
         log.info("Updating invoice status for order ID: {} to {}", orderId, status);
         
@@ -369,6 +419,7 @@ public class InvoiceService {
             
             invoice.setPaidAt(LocalDateTime.now());
             Invoice updatedInvoice = invoiceRepository.save(invoice);
+            orderSummaryService.updatePaymentStatus(orderId, status);
             
             auditLogService.logAction(
                 "Invoice Status Updated",
@@ -0,0 +1,96 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.CreateOrderRequest;
+import com.itss.ecommerce.dto.OrderQuoteDTO;
+import com.itss.ecommerce.dto.cart.ProductPriceSnapshot;
+import com.itss.ecommerce.entity.Order;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Prices a cart for the checkout page without touching the database
+ * beyond (cached) product snapshot reads. Not transactional on purpose.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderQuoteService {
+
+    /** Flat fee when the cart has regular delivery lines */
+    public static final int REGULAR_DELIVERY_FEE = 30000;
+
+    /** Flat fee when the cart has rush delivery lines */
+    public static final int RUSH_DELIVERY_FEE = 50000;
+
+    private final ProductSnapshotCache productSnapshotCache;
+
+    /**
+     * Quote cart lines: line totals, VAT, delivery fee and rush surcharge
+     */
+    public OrderQuoteDTO quote(List<CreateOrderRequest.CartItemDTO> cartItems) {
+        if (cartItems == null || cartItems.isEmpty()) {
+            throw new IllegalArgumentException("Cart cannot be empty");
+        }
+
+        Map<Long, Integer> requestedByProduct = new LinkedHashMap<>();
+        for (CreateOrderRequest.CartItemDTO item : cartItems) {
+            requestedByProduct.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, ProductPriceSnapshot> snapshots = productSnapshotCache.getSnapshots(requestedByProduct.keySet());
+        List<Long> missingIds = requestedByProduct.keySet().stream()
+            .filter(id -> !snapshots.containsKey(id))
+            .toList();
+        if (!missingIds.isEmpty()) {
+            throw new IllegalArgumentException("Products not found with IDs: " + missingIds);
+        }
+
+        OrderQuoteDTO quote = new OrderQuoteDTO();
+        int subtotal = 0;
+        boolean hasRegular = false;
+        boolean hasRush = false;
+        boolean available = true;
+
+        for (CreateOrderRequest.CartItemDTO item : cartItems) {
+            ProductPriceSnapshot snapshot = snapshots.get(item.getProductId());
+            int lineTotal = snapshot.getPrice() * item.getQuantity();
+            boolean rush = item.getIsRushOrder() && snapshot.isRushSupported();
+            boolean inStock = snapshot.getAvailable() >= requestedByProduct.get(item.getProductId());
+
+            quote.getLines().add(new OrderQuoteDTO.LineQuote(
+                snapshot.getProductId(),
+                snapshot.getTitle(),
+                item.getQuantity(),
+                snapshot.getPrice(),
+                lineTotal,
+                rush,
+                inStock,
+                snapshot.getAvailable()
+            ));
+
+            subtotal += lineTotal;
+            hasRush |= rush;
+            hasRegular |= !rush;
+            available &= inStock;
+        }
+
+        int vatAmount = subtotal * Order.DEFAULT_VAT_PERCENTAGE / 100;
+        int deliveryFee = hasRegular ? REGULAR_DELIVERY_FEE : 0;
+        int rushSurcharge = hasRush ? RUSH_DELIVERY_FEE : 0;
+
+        quote.setSubtotal(subtotal);
+        quote.setVatPercentage(Order.DEFAULT_VAT_PERCENTAGE);
+        quote.setVatAmount(vatAmount);
+        quote.setDeliveryFee(deliveryFee);
+        quote.setRushSurcharge(rushSurcharge);
+        quote.setTotal(subtotal + vatAmount + deliveryFee + rushSurcharge);
+        quote.setAvailable(available);
+
+        log.debug("Quoted {} cart lines: total {}", cartItems.size(), quote.getTotal());
+        return quote;
+    }
+}
@@ -28,6 +28,17 @@ public class PaymentTransactionService {
         paymentTransactionRepository.save(paymentTransaction);
     }
 
+    /**
+     * Store the vnp_CreateDate a payment URL for the order was signed with
+     *
+     * @param orderId    order the payment URL pays for
+     * @param createDate vnp_CreateDate sent in the signed URL
+     */
+    public void recordGatewayCreateDate(Long orderId, String createDate) {
+        log.debug("Recording gateway create date {} for order ID: {}", createDate, orderId);
+        paymentTransactionRepository.updateGatewayCreateDate(orderId, createDate);
+    }
+
     public PaymentTransaction findPendingPaymentTransactionsByInvoiceId(Long invoiceId) {
         log.debug("Finding pending payment transactions for invoice ID: {}", invoiceId);
         List<PaymentTransaction> pendingPaymentTransactions = paymentTransactionRepository.findByInvoiceInvoiceIdAndStatus(invoiceId, PaymentTransaction.TransactionStatus.PENDING);
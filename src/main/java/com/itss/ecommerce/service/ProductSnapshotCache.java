@@ -0,0 +1,92 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.cart.ProductPriceSnapshot;
+import com.itss.ecommerce.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived in-memory cache of product price and stock snapshots.
+ * Used for quoting only; order placement always re-reads the product rows.
+ * Every stock change (admin edits, order placement, restocking) evicts the
+ * products it touched.
+ */
+@Component
+@Slf4j
+public class ProductSnapshotCache {
+
+    private final ProductRepository productRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public ProductSnapshotCache(ProductRepository productRepository,
+                                @Value("${order.quote.snapshot-ttl-seconds:30}") long ttlSeconds,
+                                @Value("${order.quote.snapshot-max-entries:10000}") int maxEntries) {
+        this.productRepository = productRepository;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get snapshots for the given products, loading all misses in one query.
+     * Products that do not exist are absent from the result.
+     */
+    public Map<Long, ProductPriceSnapshot> getSnapshots(Collection<Long> productIds) {
+        long now = System.nanoTime();
+        Map<Long, ProductPriceSnapshot> result = new HashMap<>();
+        Set<Long> misses = new HashSet<>();
+
+        for (Long productId : productIds) {
+            Entry entry = entries.get(productId);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                result.put(productId, entry.snapshot);
+            } else {
+                misses.add(productId);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            if (entries.size() + misses.size() > maxEntries) {
+                log.debug("Product snapshot cache full ({} entries), clearing", entries.size());
+                entries.clear();
+            }
+            for (ProductPriceSnapshot snapshot : productRepository.findPriceSnapshotsByProductIds(misses)) {
+                entries.put(snapshot.getProductId(), new Entry(snapshot, now));
+                result.put(snapshot.getProductId(), snapshot);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Drop a product from the cache after its price or stock changed
+     */
+    public void evict(Long productId) {
+        entries.remove(productId);
+    }
+
+    /**
+     * Drop products from the cache after their stock changed
+     */
+    public void evictAll(Collection<Long> productIds) {
+        productIds.forEach(entries::remove);
+    }
+
+    /**
+     * Drop all cached snapshots
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private record Entry(ProductPriceSnapshot snapshot, long loadedAt) {
+    }
+}
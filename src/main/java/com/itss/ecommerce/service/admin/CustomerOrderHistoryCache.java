@@ -0,0 +1,85 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.dto.CursorPage;
+import com.itss.ecommerce.dto.OrderDTO;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Small in-memory cache of the first page of each customer's order history.
+ * Entries are dropped when one of the customer's orders changes and expire
+ * after a short TTL as a safety net for bulk updates.
+ */
+@Component
+@Slf4j
+public class CustomerOrderHistoryCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CustomerOrderHistoryCache(@Value("${order.history.cache-ttl-seconds:60}") long ttlSeconds,
+                                     @Value("${order.history.cache-max-entries:1000}") int maxEntries) {
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the cached first page for a customer, or null if absent or stale
+     */
+    public CursorPage<OrderDTO> get(String customerKey, int size) {
+        Entry entry = entries.get(customerKey);
+        if (entry == null || entry.size != size || System.nanoTime() - entry.loadedAt >= ttlNanos) {
+            return null;
+        }
+        return entry.page;
+    }
+
+    /**
+     * Cache the first page for a customer
+     */
+    public void put(String customerKey, int size, CursorPage<OrderDTO> page) {
+        if (entries.size() >= maxEntries && !entries.containsKey(customerKey)) {
+            log.debug("Customer order history cache full ({} entries), clearing", entries.size());
+            entries.clear();
+        }
+        entries.put(customerKey, new Entry(page, size, System.nanoTime()));
+    }
+
+    /**
+     * Drop a customer's cached page now and again once the current
+     * transaction commits, so a read racing the commit cannot re-cache stale data
+     */
+    public void evict(String customerKey) {
+        if (customerKey == null) {
+            return;
+        }
+        entries.remove(customerKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entries.remove(customerKey);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop all cached pages
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private record Entry(CursorPage<OrderDTO> page, int size, long loadedAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.repository.OrderSchemaRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the legacy unique constraint on order_items.delivery_id on startup
+ * so orders can share a saved delivery row. Until that has succeeded, every
+ * order keeps getting its own delivery row.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeliverySharingMigration {
+
+    private final OrderSchemaRepository orderSchemaRepository;
+
+    private volatile boolean sharingEnabled;
+
+    /**
+     * Drop the constraint on startup and enable delivery row sharing if it is gone
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            if (orderSchemaRepository.dropUniqueDeliveryConstraint()) {
+                log.info("Removed unique constraint on order_items.delivery_id");
+            }
+            sharingEnabled = !orderSchemaRepository.hasUniqueDeliveryIndex();
+        } catch (DataAccessException | IllegalStateException e) {
+            log.error("Could not remove unique constraint on order_items.delivery_id, delivery rows stay per order", e);
+            sharingEnabled = false;
+        }
+    }
+
+    /**
+     * Check if orders may reference an existing delivery row
+     */
+    public boolean isSharingEnabled() {
+        return sharingEnabled;
+    }
+}
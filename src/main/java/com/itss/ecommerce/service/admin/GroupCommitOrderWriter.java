@@ -0,0 +1,226 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.dto.CreateOrderRequest;
+import com.itss.ecommerce.entity.DeliveryInformation;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.service.admin.OrderService.OrderPlacement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional group-commit mode for checkout (order.group-commit.enabled).
+ * SQLite allows a single writer, so instead of every request competing for
+ * the database lock, requests are queued to one writer thread that commits
+ * several orders per transaction. Each caller is released once the shared
+ * commit has completed. A caller whose order is still queued when the timeout
+ * expires withdraws it; once the writer has taken an order the caller waits
+ * for its outcome, so a timeout never hides an order that was committed.
+ * When disabled, orders are placed on the caller's thread.
+ */
+@Component
+@Slf4j
+public class GroupCommitOrderWriter {
+
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long timeoutMillis;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private final Counter committedOrders;
+    private final Counter fallbackBatches;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public GroupCommitOrderWriter(OrderService orderService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${order.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${order.group-commit.max-batch-size:32}") int maxBatchSize,
+                                  @Value("${order.group-commit.max-wait-ms:2}") long maxWaitMillis,
+                                  @Value("${order.group-commit.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${order.group-commit.timeout-ms:10000}") long timeoutMillis) {
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.committedOrders = Counter.builder("orders.group-commit.orders")
+            .description("Orders written by the group-commit writer")
+            .register(meterRegistry);
+        this.fallbackBatches = Counter.builder("orders.group-commit.fallbacks")
+            .description("Batches rolled back and retried one order at a time")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("orders.group-commit.batch-size")
+            .description("Orders per group-commit transaction")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "order-group-commit");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Group-commit order writer started (max batch {})", maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+        }
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Order writer is shutting down"));
+        }
+    }
+
+    /**
+     * Place an order, through the group-commit writer when enabled.
+     * Blocks until the order has been committed or rejected.
+     */
+    public Order placeOrder(List<CreateOrderRequest.CartItemDTO> requestedItems, DeliveryInformation deliveryInfo) {
+        if (!enabled) {
+            return orderService.placeOrder(requestedItems, deliveryInfo);
+        }
+
+        PendingOrder pending = new PendingOrder(new OrderPlacement(requestedItems, deliveryInfo));
+        try {
+            if (!queue.offer(pending, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Too many orders are being placed, please retry");
+            }
+            try {
+                return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.cancel()) {
+                    queue.remove(pending);
+                    throw new IllegalStateException("Timed out waiting for the order writer, the order was not placed");
+                }
+                // The writer already took the order and may commit it, so report its real outcome
+                log.warn("Order writer is slow, waiting for an order it has already started");
+                return pending.result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order could not be placed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while placing order");
+        }
+    }
+
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect whatever arrives within the wait window, up to the batch limit
+                long deadline = System.nanoTime() + maxWaitNanos;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    PendingOrder next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // Skip orders whose callers gave up before the writer took them
+                batch.removeIf(pending -> !pending.take());
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in group-commit writer", e);
+            } finally {
+                for (PendingOrder pending : batch) {
+                    pending.result.completeExceptionally(new IllegalStateException("Order was not written"));
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Commit a batch in one transaction; if it rolls back, retry each order
+     * in its own transaction so one bad request cannot fail the others
+     */
+    void writeBatch(List<PendingOrder> batch) {
+        List<OrderPlacement> placements = batch.stream().map(pending -> pending.placement).toList();
+        try {
+            orderService.placeOrders(placements);
+            batchSizes.record(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} orders rolled back, retrying individually", batch.size(), e);
+            fallbackBatches.increment();
+            for (OrderPlacement placement : placements) {
+                placement.reset();
+                try {
+                    placement.setOrder(orderService.placeOrder(placement.getRequestedItems(), placement.getDeliveryInfo()));
+                } catch (RuntimeException orderError) {
+                    placement.setError(orderError);
+                }
+            }
+        }
+
+        for (PendingOrder pending : batch) {
+            OrderPlacement placement = pending.placement;
+            if (placement.getError() != null) {
+                pending.result.completeExceptionally(placement.getError());
+            } else {
+                committedOrders.increment();
+                pending.result.complete(placement.getOrder());
+            }
+        }
+    }
+
+    static class PendingOrder {
+        private final OrderPlacement placement;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+        /** Set once, by either the writer taking the order or the caller withdrawing it */
+        private final AtomicBoolean decided = new AtomicBoolean();
+
+        PendingOrder(OrderPlacement placement) {
+            this.placement = placement;
+        }
+
+        boolean take() {
+            return decided.compareAndSet(false, true);
+        }
+
+        boolean cancel() {
+            return decided.compareAndSet(false, true);
+        }
+    }
+}
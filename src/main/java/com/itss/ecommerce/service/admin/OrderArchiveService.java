@@ -0,0 +1,105 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OrderItem;
+import com.itss.ecommerce.entity.Product;
+import com.itss.ecommerce.repository.DeliveryInformationRepository;
+import com.itss.ecommerce.repository.OrderArchiveRepository;
+import com.itss.ecommerce.repository.OrderArchiveRepository.ArchivedOrderItem;
+import com.itss.ecommerce.repository.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves completed orders out of the hot tables and reads them back by ID.
+ * Archived orders are returned as detached entities and must not be saved.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderArchiveService {
+
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final DeliveryInformationRepository deliveryRepository;
+    private final ProductRepository productRepository;
+    private final CustomerOrderHistoryCache customerOrderHistoryCache;
+
+    /**
+     * Create the archive tables on startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createArchiveTables() {
+        orderArchiveRepository.createTablesIfMissing();
+    }
+
+    /**
+     * Archive a chunk of completed orders in one transaction
+     *
+     * @return number of orders archived
+     */
+    public int archiveOrders(List<Long> orderIds) {
+        int archived = orderArchiveRepository.moveToArchive(orderIds, LocalDateTime.now());
+        if (archived > 0) {
+            // Archived orders drop out of customer history, which reads the hot table
+            customerOrderHistoryCache.clear();
+        }
+        return archived;
+    }
+
+    /**
+     * Find an archived order with its lines, products, delivery information,
+     * invoice and payment transactions
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> findArchivedOrder(Long orderId) {
+        Optional<Order> archived = orderArchiveRepository.findOrder(orderId);
+        archived.ifPresent(this::loadDetails);
+        return archived;
+    }
+
+    private void loadDetails(Order order) {
+        if (order.getDeliveryInformation() != null) {
+            deliveryRepository.findById(order.getDeliveryInformation().getDeliveryId())
+                .ifPresent(order::setDeliveryInformation);
+        }
+
+        List<ArchivedOrderItem> archivedItems = orderArchiveRepository.findOrderItems(order.getOrderId());
+        Map<Long, Product> products = productRepository.findAllById(
+                archivedItems.stream().map(ArchivedOrderItem::productId).distinct().toList())
+            .stream()
+            .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (ArchivedOrderItem archivedItem : archivedItems) {
+            OrderItem orderItem = archivedItem.orderItem();
+            orderItem.setOrder(order);
+            orderItem.setProduct(products.get(archivedItem.productId()));
+            orderItems.add(orderItem);
+        }
+        order.setOrderItems(orderItems);
+
+        orderArchiveRepository.findInvoice(order.getOrderId()).ifPresent(invoice -> attachInvoice(order, invoice));
+    }
+
+    private void attachInvoice(Order order, Invoice invoice) {
+        invoice.setOrder(order);
+        orderArchiveRepository.findTransactions(invoice.getInvoiceId())
+            .forEach(invoice::addPaymentTransaction);
+        order.setInvoice(invoice);
+    }
+}
@@ -0,0 +1,112 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.repository.OrderRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Periodically moves delivered and cancelled orders past the retention period
+ * into the archive tables so the hot order tables stay small. Orders are
+ * archived in fixed-size chunks, each committed on its own.
+ */
+@Component
+@Slf4j
+public class OrderArchiver {
+
+    static final List<Order.OrderStatus> ARCHIVABLE_STATUSES =
+        List.of(Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int chunkSize;
+
+    private final Counter archivedOrders;
+    private final Counter failedChunks;
+    private final Timer runTimer;
+
+    public OrderArchiver(OrderRepository orderRepository,
+                         OrderArchiveService orderArchiveService,
+                         MeterRegistry meterRegistry,
+                         @Value("${order.archive.enabled:true}") boolean enabled,
+                         @Value("${order.archive.retention-days:180}") long retentionDays,
+                         @Value("${order.archive.chunk-size:200}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.enabled = enabled;
+        this.retention = Duration.ofDays(retentionDays);
+        this.chunkSize = chunkSize;
+
+        this.archivedOrders = Counter.builder("orders.archive.archived")
+            .description("Completed orders moved to the archive tables")
+            .register(meterRegistry);
+        this.failedChunks = Counter.builder("orders.archive.chunk.failures")
+            .description("Chunks rolled back by the order archiver")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("orders.archive.run")
+            .description("Duration of an archive run")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.archive.interval-ms:3600000}",
+               initialDelayString = "${order.archive.interval-ms:3600000}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Archive all completed orders last updated before the retention period
+     *
+     * @return number of orders archived
+     */
+    public int archive() {
+        return runTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+            long afterOrderId = 0L;
+            int archived = 0;
+
+            while (true) {
+                List<Long> orderIds = orderRepository.findArchivableOrderIds(
+                    ARCHIVABLE_STATUSES, cutoff, afterOrderId, PageRequest.of(0, chunkSize));
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+
+                try {
+                    int chunkArchived = orderArchiveService.archiveOrders(orderIds);
+                    archived += chunkArchived;
+                    archivedOrders.increment(chunkArchived);
+                } catch (RuntimeException e) {
+                    // Chunk rolled back; its orders stay hot and are retried on the next run
+                    failedChunks.increment();
+                    log.error("Failed to archive orders {}", orderIds, e);
+                }
+
+                afterOrderId = orderIds.get(orderIds.size() - 1);
+                if (orderIds.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            if (archived > 0) {
+                log.info("Archived {} completed orders last updated before {}", archived, cutoff);
+            }
+            return archived;
+        });
+    }
+}
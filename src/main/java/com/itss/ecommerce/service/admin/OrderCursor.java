@@ -0,0 +1,67 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset position (createdAt, orderId) for newest-first order listings,
+ * encoded as an opaque URL-safe string
+ */
+final class OrderCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long orderId;
+
+    OrderCursor(LocalDateTime createdAt, Long orderId) {
+        this.createdAt = createdAt;
+        this.orderId = orderId;
+    }
+
+    LocalDateTime getCreatedAt() { return createdAt; }
+    Long getOrderId() { return orderId; }
+
+    static String encode(LocalDateTime createdAt, Long orderId) {
+        String raw = createdAt + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor; null or blank means "first page"
+     */
+    static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new OrderCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Build a page from size + 1 fetched rows; the extra row only signals more data
+     */
+    static <T> CursorPage<T> toPage(List<T> rows, int size,
+                                    Function<T, LocalDateTime> createdAt, Function<T, Long> orderId) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = encode(createdAt.apply(last), orderId.apply(last));
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,81 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.InvoiceRepository;
+import com.itss.ecommerce.repository.OrderRepository;
+import com.itss.ecommerce.repository.PaymentTransactionRepository;
+import com.itss.ecommerce.repository.ProductStockRepository;
+import com.itss.ecommerce.service.ProductSnapshotCache;
+import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cancels unpaid orders whose payment window has passed or whose payment
+ * failed. Each call handles one chunk of orders in a single transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderExpiryService {
+
+    static final String EXPIRY_REASON = "Payment window expired";
+
+    private final OrderRepository orderRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final ProductStockRepository productStockRepository;
+    private final OrderSummaryService orderSummaryService;
+    private final AuditLogService auditLogService;
+    private final OutboxService outboxService;
+    private final ProductSnapshotCache productSnapshotCache;
+
+    /**
+     * Cancel a chunk of expired orders
+     *
+     * @return IDs of the orders that were cancelled
+     */
+    public List<Long> expireOrders(Collection<Long> orderIds) {
+        return cancelUnpaidOrders(orderIds, EXPIRY_REASON);
+    }
+
+    /**
+     * Cancel unpaid orders with set-based updates: restock their items,
+     * cancel the orders, their invoices and pending payment transactions
+     *
+     * @return IDs of the orders that were cancelled
+     */
+    public List<Long> cancelUnpaidOrders(Collection<Long> orderIds, String reason) {
+        // Re-check inside the transaction; orders paid or cancelled since paging are skipped
+        List<Long> cancellable = orderRepository.findPendingWithHeldStock(orderIds);
+        if (cancellable.isEmpty()) {
+            return cancellable;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> restockedProducts = productStockRepository.restockOrders(cancellable);
+        productSnapshotCache.evictAll(restockedProducts);
+        orderRepository.cancelPendingOrders(cancellable, now);
+        invoiceRepository.cancelPendingByOrderIds(cancellable);
+        paymentTransactionRepository.cancelPendingByOrderIds(cancellable, now, reason);
+        orderSummaryService.updateStatuses(cancellable, Order.OrderStatus.CANCELLED, Invoice.PaymentStatus.CANCELLED);
+        outboxService.publishAll(cancellable, OutboxEvent.EventType.ORDER_CANCELLED, Map.of("reason", reason));
+
+        auditLogService.logAction("Unpaid Orders Cancelled", reason + ": " + cancellable);
+
+        log.info("Cancelled {} unpaid orders ({}), restocked {} products", cancellable.size(), reason, restockedProducts.size());
+        return cancellable;
+    }
+}
@@ -0,0 +1,113 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.repository.InvoiceRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Periodically cancels unpaid pending orders so abandoned checkouts
+ * release their stock. Expired orders are processed in fixed-size chunks,
+ * each committed on its own.
+ */
+@Component
+@Slf4j
+public class OrderExpirySweeper {
+
+    private final InvoiceRepository invoiceRepository;
+    private final OrderExpiryService orderExpiryService;
+    private final boolean enabled;
+    private final Duration expiryWindow;
+    private final int chunkSize;
+
+    private final Counter cancelledOrders;
+    private final Counter processedChunks;
+    private final Counter failedChunks;
+    private final Timer sweepTimer;
+
+    public OrderExpirySweeper(InvoiceRepository invoiceRepository,
+                              OrderExpiryService orderExpiryService,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.expiry.enabled:true}") boolean enabled,
+                              @Value("${order.expiry.window-minutes:30}") long windowMinutes,
+                              @Value("${order.expiry.chunk-size:100}") int chunkSize) {
+        this.invoiceRepository = invoiceRepository;
+        this.orderExpiryService = orderExpiryService;
+        this.enabled = enabled;
+        this.expiryWindow = Duration.ofMinutes(windowMinutes);
+        this.chunkSize = chunkSize;
+
+        this.cancelledOrders = Counter.builder("orders.expiry.cancelled")
+            .description("Unpaid orders cancelled by the expiry sweeper")
+            .register(meterRegistry);
+        this.processedChunks = Counter.builder("orders.expiry.chunks")
+            .description("Chunks committed by the expiry sweeper")
+            .register(meterRegistry);
+        this.failedChunks = Counter.builder("orders.expiry.chunk.failures")
+            .description("Chunks rolled back by the expiry sweeper")
+            .register(meterRegistry);
+        this.sweepTimer = Timer.builder("orders.expiry.sweep")
+            .description("Duration of an expiry sweep")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.sweep-interval-ms:60000}",
+               initialDelayString = "${order.expiry.sweep-interval-ms:60000}")
+    public void sweepScheduled() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * Cancel all pending orders whose invoice is older than the expiry window
+     *
+     * @return number of orders cancelled
+     */
+    public int sweep() {
+        return sweepTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(expiryWindow);
+            long afterOrderId = 0L;
+            int cancelled = 0;
+
+            while (true) {
+                List<Long> orderIds = invoiceRepository.findExpiredPendingOrderIds(
+                    cutoff, afterOrderId, PageRequest.of(0, chunkSize));
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+
+                try {
+                    int chunkCancelled = orderExpiryService.expireOrders(orderIds).size();
+                    cancelled += chunkCancelled;
+                    cancelledOrders.increment(chunkCancelled);
+                    processedChunks.increment();
+                } catch (RuntimeException e) {
+                    // Chunk rolled back; its orders are retried on the next sweep
+                    failedChunks.increment();
+                    log.error("Failed to expire orders {}", orderIds, e);
+                }
+
+                afterOrderId = orderIds.get(orderIds.size() - 1);
+                if (orderIds.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            if (cancelled > 0) {
+                log.info("Expiry sweep cancelled {} unpaid orders created before {}", cancelled, cutoff);
+            }
+            return cancelled;
+        });
+    }
+}
@@ -1,19 +1,35 @@
 package com.itss.ecommerce.service.admin;
 
+import com.itss.ecommerce.dto.CreateOrderRequest;
+import com.itss.ecommerce.dto.CursorPage;
+import com.itss.ecommerce.dto.OrderDTO;
+import com.itss.ecommerce.dto.OrderQueryFilter;
+import com.itss.ecommerce.dto.mapper.OrderMapper;
 import com.itss.ecommerce.entity.*;
 import com.itss.ecommerce.exception.InsufficientStockException;
 import com.itss.ecommerce.exception.PaymentProcessingException;
 import com.itss.ecommerce.repository.*;
+import com.itss.ecommerce.service.ProductSnapshotCache;
 import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -21,15 +37,78 @@ import java.util.Optional;
 @Transactional
 public class OrderService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_SAVED_ADDRESSES = 10;
+
     private final PaymentTransactionRepository paymentTransactionRepository;
     
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
     private final DeliveryInformationRepository deliveryRepository;
     private final InvoiceRepository invoiceRepository;
     private final AuditLogService auditLogService;
+    private final ProductService productService;
+    private final OrderSummaryService orderSummaryService;
+    private final OutboxService outboxService;
+    private final CustomerOrderHistoryCache customerOrderHistoryCache;
+    private final OrderArchiveService orderArchiveService;
+    private final DeliverySharingMigration deliverySharingMigration;
+    private final ProductSnapshotCache productSnapshotCache;
 
+    /**
+     * Create order from requested cart lines, resolving all products in one
+     * query so the entities are managed by the checkout transaction
+     */
+    @Transactional(rollbackFor = {InsufficientStockException.class, PaymentProcessingException.class})
+    public Order placeOrder(List<CreateOrderRequest.CartItemDTO> requestedItems, DeliveryInformation deliveryInfo) {
+        if (requestedItems == null || requestedItems.isEmpty()) {
+            throw new IllegalArgumentException("Cart cannot be empty");
+        }
+        
+        Map<Long, Product> products = productService.getProductsByIds(
+            requestedItems.stream().map(CreateOrderRequest.CartItemDTO::getProductId).toList());
+        
+        List<CartItem> cartItems = new ArrayList<>(requestedItems.size());
+        for (CreateOrderRequest.CartItemDTO item : requestedItems) {
+            cartItems.add(new CartItem(products.get(item.getProductId()), item.getQuantity()));
+        }
+        
+        return createOrder(cartItems, deliveryInfo);
+    }
+    
+    /**
+     * Place several orders in one transaction (group commit). Requests that
+     * fail validation are rejected individually without affecting the batch;
+     * any other failure rolls back the whole batch.
+     */
+    @Transactional(rollbackFor = {InsufficientStockException.class, PaymentProcessingException.class})
+    public void placeOrders(List<OrderPlacement> placements) {
+        Set<Long> productIds = new HashSet<>();
+        for (OrderPlacement placement : placements) {
+            if (placement.getRequestedItems() != null) {
+                placement.getRequestedItems().forEach(item -> productIds.add(item.getProductId()));
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getProductId(), product));
+        
+        for (OrderPlacement placement : placements) {
+            RuntimeException rejection = checkPlacement(placement.getRequestedItems(), products);
+            if (rejection != null) {
+                placement.setError(rejection);
+                continue;
+            }
+            
+            List<CartItem> cartItems = new ArrayList<>(placement.getRequestedItems().size());
+            for (CreateOrderRequest.CartItemDTO item : placement.getRequestedItems()) {
+                cartItems.add(new CartItem(products.get(item.getProductId()), item.getQuantity()));
+            }
+            placement.setOrder(createOrder(cartItems, placement.getDeliveryInfo()));
+        }
+    }
+    
     /**
      * Create order from cart items
      */
@@ -40,12 +119,13 @@ public class OrderService {
         // Validate cart items
         validateCartItems(cartItems);
         
-        // Save delivery information
-        DeliveryInformation savedDeliveryInfo = deliveryRepository.save(deliveryInfo);
+        // Reuse the customer's saved address or save a new one
+        DeliveryInformation savedDeliveryInfo = resolveDeliveryInformation(deliveryInfo);
         
         // Create order
         Order order = new Order();
         order.setDeliveryInformation(savedDeliveryInfo);
+        order.setCustomerKey(Order.normalizeCustomerKey(savedDeliveryInfo.getEmail()));
         order.setStatus(Order.OrderStatus.PENDING);
         
         // Create order lines
@@ -59,6 +139,7 @@ public class OrderService {
             Product product = cartItem.getProduct();
             product.reduceStock(cartItem.getQuantity());
             productRepository.save(product);
+            productSnapshotCache.evict(product.getProductId());
         }
         
         // Calculate totals
@@ -78,6 +159,11 @@ public class OrderService {
         paymentTransaction.setAmount(savedOrder.getTotalAfterVat());
         paymentTransaction.setPaymentMethod("VNPay");
         paymentTransactionRepository.save(paymentTransaction);
+        
+        orderSummaryService.recordOrder(savedOrder, invoice);
+        customerOrderHistoryCache.evict(savedOrder.getCustomerKey());
+        outboxService.publish(savedOrder.getOrderId(), OutboxEvent.EventType.ORDER_CREATED,
+            Map.of("totalAmount", savedOrder.getTotalAfterVat(), "itemCount", cartItems.size()));
 
         // Log the action
         auditLogService.logOrderAction(
@@ -92,12 +178,60 @@ public class OrderService {
     }
     
     /**
-     * Get order by ID
+     * Reuse the stored delivery row for the same address and delivery details,
+     * or save a new one. Client-supplied delivery IDs are ignored.
+     */
+    private DeliveryInformation resolveDeliveryInformation(DeliveryInformation deliveryInfo) {
+        String addressHash = deliveryInfo.computeAddressHash();
+        // Rows are only shared once the legacy unique constraint on order_items.delivery_id is gone
+        if (deliverySharingMigration.isSharingEnabled()) {
+            for (DeliveryInformation existing : deliveryRepository.findByAddressHash(addressHash)) {
+                if (existing.hasSameDeliveryDetails(deliveryInfo)) {
+                    log.debug("Reusing delivery information {}", existing.getDeliveryId());
+                    return existing;
+                }
+            }
+        }
+        
+        deliveryInfo.setDeliveryId(null);
+        deliveryInfo.setAddressHash(addressHash);
+        return deliveryRepository.save(deliveryInfo);
+    }
+    
+    /**
+     * Get the distinct addresses a customer has ordered to, most recently used first
+     */
+    @Transactional(readOnly = true)
+    public List<DeliveryInformation> getSavedAddresses(String email) {
+        String customerKey = Order.normalizeCustomerKey(email);
+        if (customerKey == null) {
+            return List.of();
+        }
+        
+        // Rows for one address can differ in per-order details; scan a few extra
+        List<Long> deliveryIds = orderRepository.findRecentDeliveryIds(
+            customerKey, PageRequest.of(0, MAX_SAVED_ADDRESSES * 5));
+        Map<Long, DeliveryInformation> rows = new HashMap<>();
+        deliveryRepository.findAllById(deliveryIds).forEach(row -> rows.put(row.getDeliveryId(), row));
+        
+        Map<String, DeliveryInformation> addresses = new LinkedHashMap<>();
+        for (Long deliveryId : deliveryIds) {
+            DeliveryInformation row = rows.get(deliveryId);
+            if (row != null && addresses.size() < MAX_SAVED_ADDRESSES) {
+                addresses.putIfAbsent(row.getAddressHash() != null ? row.getAddressHash() : row.computeAddressHash(), row);
+            }
+        }
+        return new ArrayList<>(addresses.values());
+    }
+    
+    /**
+     * Get order by ID, falling back to the archive for old completed orders
      */
     @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long orderId) {
         log.debug("Fetching order by ID: {}", orderId);
-        return orderRepository.findById(orderId);
+        return orderRepository.findWithDetailsById(orderId)
+            .or(() -> orderArchiveService.findArchivedOrder(orderId));
     }
 
     @Transactional
@@ -106,16 +240,14 @@ public class OrderService {
         
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
-        System.out.println("Order ID to delete: " + order.getOrderId());
+        log.debug("Order ID to delete: {}", order.getOrderId());
         // Restore product stock
-        for (OrderItem orderItem : order.getOrderItems()) {
-            Product product = orderItem.getProduct();
-            product.addStock(orderItem.getQuantity());
-            productRepository.save(product);
-        }
+        restoreStock(order);
         
         // Delete the order
         orderRepository.deleteById(orderId);
+        orderSummaryService.delete(orderId);
+        customerOrderHistoryCache.evict(order.getCustomerKey());
         
         auditLogService.logOrderAction(
             orderId,
@@ -152,7 +284,80 @@ public class OrderService {
     @Transactional(readOnly = true)
     public List<Order> getOrdersByCustomerEmail(String email) {
         log.debug("Fetching orders for customer: {}", email);
-        return orderRepository.findOrdersByCustomerEmail(email);
+        return orderRepository.findOrdersByCustomerKey(Order.normalizeCustomerKey(email));
+    }
+    
+    /**
+     * Get a page of a customer's order history, newest first, using keyset
+     * pagination on (createdAt, orderId). The first page is cached per customer.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDTO> getCustomerOrders(String email, String cursor, Integer size) {
+        String customerKey = Order.normalizeCustomerKey(email);
+        if (customerKey == null) {
+            throw new IllegalArgumentException("Customer email is required");
+        }
+        OrderCursor position = OrderCursor.decode(cursor);
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        
+        if (position == null) {
+            CursorPage<OrderDTO> cached = customerOrderHistoryCache.get(customerKey, pageSize);
+            if (cached != null) {
+                log.debug("Serving first order history page for customer {} from cache", customerKey);
+                return cached;
+            }
+        }
+        
+        log.debug("Fetching order history for customer: {}", customerKey);
+        List<Order> rows = orderRepository.findCustomerOrders(
+            customerKey,
+            position != null ? position.getCreatedAt() : null,
+            position != null ? position.getOrderId() : null,
+            PageRequest.of(0, pageSize + 1));
+        CursorPage<OrderDTO> page = OrderCursor.toPage(rows, pageSize, Order::getCreatedAt, Order::getOrderId)
+            .map(OrderMapper::toDTOList);
+        
+        if (position == null) {
+            customerOrderHistoryCache.put(customerKey, pageSize, page);
+        }
+        return page;
+    }
+    
+    /**
+     * Fill the customer key and rush flag of orders placed before they existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOrderColumns() {
+        int customerKeys = orderRepository.backfillCustomerKeys();
+        int rushFlags = orderRepository.backfillRushFlags();
+        if (customerKeys > 0 || rushFlags > 0) {
+            log.info("Backfilled customer key of {} orders and rush flag of {} orders", customerKeys, rushFlags);
+        }
+    }
+    
+    /**
+     * Query orders with combinable filters, newest first, using keyset
+     * pagination on (createdAt, orderId)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Order> queryOrders(OrderQueryFilter filter) {
+        log.debug("Querying orders with filter: {}", filter);
+        
+        Order.OrderStatus status = parseStatus(filter.getStatus());
+        OrderCursor cursor = OrderCursor.decode(filter.getCursor());
+        int size = filter.getSize() != null ? filter.getSize() : DEFAULT_PAGE_SIZE;
+        String email = Order.normalizeCustomerKey(filter.getEmail());
+        String province = filter.getProvince() != null && !filter.getProvince().isBlank()
+            ? filter.getProvince().trim() : null;
+        
+        List<Order> rows = orderRepository.queryOrders(
+            status, filter.getFromDate(), filter.getToDate(), province, email,
+            filter.getMinAmount(), filter.getMaxAmount(), filter.getRush(),
+            cursor != null ? cursor.getCreatedAt() : null,
+            cursor != null ? cursor.getOrderId() : null,
+            PageRequest.of(0, size + 1));
+        
+        return OrderCursor.toPage(rows, size, Order::getCreatedAt, Order::getOrderId);
     }
     
     /**
@@ -166,6 +371,9 @@ public class OrderService {
         
         order.confirm();
         Order savedOrder = orderRepository.save(order);
+        orderSummaryService.updateStatus(orderId, Order.OrderStatus.CONFIRMED);
+        customerOrderHistoryCache.evict(order.getCustomerKey());
+        outboxService.publish(orderId, OutboxEvent.EventType.ORDER_CONFIRMED, Map.of());
         
         auditLogService.logOrderAction(
             orderId,
@@ -187,15 +395,16 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
         
+        order.cancel();
+        
         // Restore product stock
-        for (OrderItem orderItem : order.getOrderItems()) {
-            Product product = orderItem.getProduct();
-            product.addStock(orderItem.getQuantity());
-            productRepository.save(product);
-        }
+        restoreStock(order);
         
-        order.cancel();
         Order savedOrder = orderRepository.save(order);
+        orderSummaryService.updateStatus(orderId, Order.OrderStatus.CANCELLED);
+        customerOrderHistoryCache.evict(order.getCustomerKey());
+        outboxService.publish(orderId, OutboxEvent.EventType.ORDER_CANCELLED,
+            Map.of("reason", reason != null ? reason : ""));
         
         auditLogService.logOrderAction(
             orderId,
@@ -221,6 +430,10 @@ public class OrderService {
         order.setStatus(newStatus);
         
         Order savedOrder = orderRepository.save(order);
+        orderSummaryService.updateStatus(orderId, newStatus);
+        customerOrderHistoryCache.evict(order.getCustomerKey());
+        outboxService.publish(orderId, OutboxEvent.EventType.ORDER_STATUS_UPDATED,
+            Map.of("from", oldStatus.name(), "to", newStatus.name()));
         
         auditLogService.logOrderAction(
             orderId,
@@ -303,8 +516,10 @@ public class OrderService {
         
         orderItem.setRushOrder(true);
         orderItem.setInstructions(instructions);
+        orderItem.getOrder().setHasRush(true);
         
         OrderItem savedorderItem = orderItemRepository.save(orderItem);
+        orderSummaryService.markRush(orderItem.getOrder().getOrderId());
         
         auditLogService.logAction(
             "Rush Delivery Added",
@@ -357,14 +572,9 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
         
-        // Restore product stock for each order item
-        for (OrderItem orderItem : order.getOrderItems()) {
-            Product product = orderItem.getProduct();
-            product.addStock(orderItem.getQuantity());
-            productRepository.save(product);
-            
-            log.debug("Recovered {} units for product: {}", 
-                orderItem.getQuantity(), product.getTitle());
+        // Restore product stock for all order items
+        if (!restoreStock(order)) {
+            return;
         }
         
         auditLogService.logOrderAction(
@@ -377,6 +587,72 @@ public class OrderService {
         log.info("Product quantities recovered successfully for order: {}", orderId);
     }
     
+    /**
+     * Return the order's quantities to stock with one batched update.
+     * The order row is flagged first so stock is never restored twice.
+     */
+    private boolean restoreStock(Order order) {
+        if (orderRepository.markStockRestored(order.getOrderId()) == 0) {
+            log.warn("Stock already restored for order: {}", order.getOrderId());
+            return false;
+        }
+        order.setStockRestored(true);
+        
+        List<Long> products = productStockRepository.restockOrder(order.getOrderId());
+        productSnapshotCache.evictAll(products);
+        log.debug("Restored stock of {} products for order: {}", products.size(), order.getOrderId());
+        return true;
+    }
+    
+    /**
+     * Validate a batched order request against the batch's managed products,
+     * whose stock already reflects earlier orders in the batch
+     *
+     * @return the rejection, or null if the order can be created
+     */
+    private RuntimeException checkPlacement(List<CreateOrderRequest.CartItemDTO> requestedItems,
+                                            Map<Long, Product> products) {
+        if (requestedItems == null || requestedItems.isEmpty()) {
+            return new IllegalArgumentException("Cart cannot be empty");
+        }
+        
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (CreateOrderRequest.CartItemDTO item : requestedItems) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                return new IllegalArgumentException("Cart item quantity must be greater than 0");
+            }
+            requested.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        
+        List<Long> missingIds = requested.keySet().stream()
+            .filter(id -> !products.containsKey(id))
+            .toList();
+        if (!missingIds.isEmpty()) {
+            return new IllegalArgumentException("Products not found with IDs: " + missingIds);
+        }
+        
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (!product.hasStock(entry.getValue())) {
+                return new IllegalStateException(
+                    String.format("Insufficient stock for product '%s'. Requested: %d, Available: %d",
+                                product.getTitle(), entry.getValue(), product.getQuantity()));
+            }
+        }
+        return null;
+    }
+    
+    private Order.OrderStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        try {
+            return Order.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid order status: " + status);
+        }
+    }
+    
     /**
      * Simple CartItem class for order creation
      */
@@ -392,4 +668,35 @@ public class OrderService {
         public Product getProduct() { return product; }
         public int getQuantity() { return quantity; }
     }
+    
+    /**
+     * One order request in a group-committed batch, with its outcome
+     */
+    public static class OrderPlacement {
+        private final List<CreateOrderRequest.CartItemDTO> requestedItems;
+        private final DeliveryInformation deliveryInfo;
+        private Order order;
+        private RuntimeException error;
+        
+        public OrderPlacement(List<CreateOrderRequest.CartItemDTO> requestedItems, DeliveryInformation deliveryInfo) {
+            this.requestedItems = requestedItems;
+            this.deliveryInfo = deliveryInfo;
+        }
+        
+        public List<CreateOrderRequest.CartItemDTO> getRequestedItems() { return requestedItems; }
+        public DeliveryInformation getDeliveryInfo() { return deliveryInfo; }
+        public Order getOrder() { return order; }
+        public void setOrder(Order order) { this.order = order; }
+        public RuntimeException getError() { return error; }
+        public void setError(RuntimeException error) { this.error = error; }
+        
+        /**
+         * Clear the outcome of a rolled back batch before retrying
+         */
+        public void reset() {
+            order = null;
+            error = null;
+            deliveryInfo.setDeliveryId(null);
+        }
+    }
 }
\ No newline at end of file
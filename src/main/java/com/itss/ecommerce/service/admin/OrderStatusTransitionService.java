@@ -0,0 +1,137 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.dto.BulkStatusUpdateResultDTO;
+import com.itss.ecommerce.dto.BulkStatusUpdateResultDTO.OrderOutcome;
+import com.itss.ecommerce.dto.BulkStatusUpdateResultDTO.Outcome;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.OrderRepository;
+import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Moves many orders to a new status at once (warehouse shipping and delivery
+ * updates). Each chunk of IDs costs a handful of statements: one status read,
+ * one conditional UPDATE, one summary UPDATE and batched audit and outbox inserts.
+ */
+@Service
+@Slf4j
+@Transactional
+public class OrderStatusTransitionService {
+
+    /**
+     * Status an order must be in to be moved to each bulk target status
+     */
+    static final Map<Order.OrderStatus, Order.OrderStatus> BULK_TRANSITIONS = Map.of(
+        Order.OrderStatus.CONFIRMED, Order.OrderStatus.PENDING,
+        Order.OrderStatus.SHIPPED, Order.OrderStatus.CONFIRMED,
+        Order.OrderStatus.DELIVERED, Order.OrderStatus.SHIPPED
+    );
+
+    private final OrderRepository orderRepository;
+    private final OrderSummaryService orderSummaryService;
+    private final AuditLogService auditLogService;
+    private final OutboxService outboxService;
+    private final CustomerOrderHistoryCache customerOrderHistoryCache;
+    private final int chunkSize;
+
+    public OrderStatusTransitionService(OrderRepository orderRepository,
+                                        OrderSummaryService orderSummaryService,
+                                        AuditLogService auditLogService,
+                                        OutboxService outboxService,
+                                        CustomerOrderHistoryCache customerOrderHistoryCache,
+                                        @Value("${order.bulk-status.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderSummaryService = orderSummaryService;
+        this.auditLogService = auditLogService;
+        this.outboxService = outboxService;
+        this.customerOrderHistoryCache = customerOrderHistoryCache;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Move the given orders to the target status. Orders that do not exist or
+     * are not in the required source status are reported and left unchanged.
+     */
+    public BulkStatusUpdateResultDTO transition(List<Long> orderIds, Order.OrderStatus targetStatus, String note) {
+        Order.OrderStatus fromStatus = BULK_TRANSITIONS.get(targetStatus);
+        if (fromStatus == null) {
+            throw new IllegalArgumentException("Bulk transition to " + targetStatus + " is not supported");
+        }
+        log.info("Bulk transition of {} orders from {} to {}", orderIds.size(), fromStatus, targetStatus);
+
+        List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        Map<Long, OrderOutcome> outcomes = new HashMap<>();
+        for (int start = 0; start < uniqueIds.size(); start += chunkSize) {
+            List<Long> chunk = uniqueIds.subList(start, Math.min(start + chunkSize, uniqueIds.size()));
+            transitionChunk(chunk, fromStatus, targetStatus, note, outcomes);
+        }
+
+        BulkStatusUpdateResultDTO result = new BulkStatusUpdateResultDTO();
+        result.setTargetStatus(targetStatus.name());
+        for (Long orderId : uniqueIds) {
+            OrderOutcome outcome = outcomes.get(orderId);
+            result.getResults().add(outcome);
+            if (outcome.getOutcome() == Outcome.UPDATED) {
+                result.setUpdatedCount(result.getUpdatedCount() + 1);
+            } else {
+                result.setRejectedCount(result.getRejectedCount() + 1);
+            }
+        }
+
+        log.info("Bulk transition to {}: {} updated, {} rejected",
+            targetStatus, result.getUpdatedCount(), result.getRejectedCount());
+        return result;
+    }
+
+    private void transitionChunk(List<Long> chunk, Order.OrderStatus fromStatus, Order.OrderStatus targetStatus,
+                                 String note, Map<Long, OrderOutcome> outcomes) {
+        List<Long> eligible = new ArrayList<>();
+        Set<String> customerKeys = new HashSet<>();
+        for (Object[] row : orderRepository.findStatusRows(chunk)) {
+            Long orderId = (Long) row[0];
+            Order.OrderStatus status = (Order.OrderStatus) row[1];
+            if (status == fromStatus) {
+                eligible.add(orderId);
+                if (row[2] != null) {
+                    customerKeys.add((String) row[2]);
+                }
+                outcomes.put(orderId, new OrderOutcome(orderId, Outcome.UPDATED, status.name(), null));
+            } else {
+                outcomes.put(orderId, new OrderOutcome(orderId, Outcome.INVALID_TRANSITION, String.valueOf(status),
+                    String.format("Order in status %s cannot move to %s", status, targetStatus)));
+            }
+        }
+        for (Long orderId : chunk) {
+            outcomes.putIfAbsent(orderId, new OrderOutcome(orderId, Outcome.NOT_FOUND, null,
+                "Order not found with ID: " + orderId));
+        }
+        if (eligible.isEmpty()) {
+            return;
+        }
+
+        // The UPDATE re-checks the source status; a mismatch means another writer got in between
+        int updated = orderRepository.transitionStatus(eligible, fromStatus, targetStatus, LocalDateTime.now());
+        if (updated != eligible.size()) {
+            throw new IllegalStateException("Orders changed while updating their status, please retry");
+        }
+
+        orderSummaryService.updateStatuses(eligible, targetStatus);
+
+        String details = String.format("Status changed from %s to %s", fromStatus, targetStatus)
+            + (note != null && !note.isBlank() ? ": " + note : "");
+        auditLogService.logOrderActions(eligible, null, "Status Updated", details);
+        outboxService.publishAll(eligible, OutboxEvent.EventType.ORDER_STATUS_UPDATED,
+            Map.of("from", fromStatus.name(), "to", targetStatus.name()));
+
+        customerKeys.forEach(customerOrderHistoryCache::evict);
+    }
+}
@@ -0,0 +1,132 @@
+package com.itss.ecommerce.service.admin;
+
+import com.itss.ecommerce.dto.CursorPage;
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OrderSummary;
+import com.itss.ecommerce.repository.OrderSummaryRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintains the order_summary read model. Write methods join the caller's
+ * transaction so the summary commits atomically with the source change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderSummaryService {
+    
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    
+    private final OrderSummaryRepository orderSummaryRepository;
+    
+    /**
+     * Create summaries for orders placed before the read model existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingSummaries() {
+        int created = orderSummaryRepository.backfillMissing();
+        if (created > 0) {
+            log.info("Backfilled {} order summaries", created);
+        }
+    }
+    
+    /**
+     * Record summary for a newly created order
+     */
+    public void recordOrder(Order order, Invoice invoice) {
+        log.debug("Recording summary for order: {}", order.getOrderId());
+        orderSummaryRepository.save(OrderSummary.from(order, invoice));
+    }
+    
+    /**
+     * Update summary after an order status change
+     */
+    public void updateStatus(Long orderId, Order.OrderStatus status) {
+        if (orderSummaryRepository.updateStatus(orderId, status, LocalDateTime.now()) == 0) {
+            log.warn("No order summary found for order: {}", orderId);
+        }
+    }
+    
+    /**
+     * Update summary after an invoice payment status change
+     */
+    public void updatePaymentStatus(Long orderId, Invoice.PaymentStatus paymentStatus) {
+        if (orderSummaryRepository.updatePaymentStatus(orderId, paymentStatus, LocalDateTime.now()) == 0) {
+            log.warn("No order summary found for order: {}", orderId);
+        }
+    }
+    
+    /**
+     * Update summaries after a bulk invoice payment status change
+     */
+    public void updatePaymentStatuses(Collection<Long> orderIds, Invoice.PaymentStatus paymentStatus) {
+        orderSummaryRepository.updatePaymentStatusByOrderIds(orderIds, paymentStatus, LocalDateTime.now());
+    }
+    
+    /**
+     * Update summaries after a bulk order status change
+     */
+    public void updateStatuses(Collection<Long> orderIds, Order.OrderStatus status) {
+        orderSummaryRepository.updateStatusByOrderIds(orderIds, status, LocalDateTime.now());
+    }
+    
+    /**
+     * Update summaries after a bulk order and payment status change
+     */
+    public void updateStatuses(Collection<Long> orderIds, Order.OrderStatus status,
+                               Invoice.PaymentStatus paymentStatus) {
+        orderSummaryRepository.updateStatuses(orderIds, status, paymentStatus, LocalDateTime.now());
+    }
+    
+    /**
+     * Update summary after rush delivery was added to one of the order's items
+     */
+    public void markRush(Long orderId) {
+        orderSummaryRepository.markRush(orderId, LocalDateTime.now());
+    }
+    
+    /**
+     * Remove summary of a deleted order
+     */
+    public void delete(Long orderId) {
+        orderSummaryRepository.deleteById(orderId);
+    }
+    
+    /**
+     * Get one page of order summaries, newest first
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummary> getSummaries(String status, String cursor, Integer size) {
+        Order.OrderStatus orderStatus = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                orderStatus = Order.OrderStatus.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid order status: " + status);
+            }
+        }
+        OrderCursor position = OrderCursor.decode(cursor);
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        
+        List<OrderSummary> rows = orderSummaryRepository.findPage(
+            orderStatus,
+            position != null ? position.getCreatedAt() : null,
+            position != null ? position.getOrderId() : null,
+            PageRequest.of(0, pageSize + 1));
+        
+        return OrderCursor.toPage(rows, pageSize, OrderSummary::getCreatedAt, OrderSummary::getOrderId);
+    }
+}
@@ -11,6 +11,7 @@ import com.itss.ecommerce.repository.CDRepository;
 import com.itss.ecommerce.repository.DVDRepository;
 import com.itss.ecommerce.repository.LPRepository;
 import com.itss.ecommerce.repository.ProductRepository;
+import com.itss.ecommerce.service.ProductSnapshotCache;
 import com.itss.ecommerce.service.handler.ProductTypeHandler;
 import com.itss.ecommerce.service.log.AuditLogService;
 
@@ -19,7 +20,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -35,6 +39,7 @@ public class ProductService {
     private final LPRepository lpRepository;
     private final AuditLogService auditLogService;
     private final List<ProductTypeHandler> productTypeHandlers;
+    private final ProductSnapshotCache productSnapshotCache;
     
     /**
      * Get all products with type-specific data
@@ -82,6 +87,30 @@ public class ProductService {
         return productRepository.findById(id);
     }
     
+    /**
+     * Get products by IDs in a single query, keyed by product ID.
+     * All missing IDs are reported together.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+        log.debug("Fetching {} products by ID", ids.size());
+        
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getProductId(), product);
+        }
+        
+        List<Long> missingIds = ids.stream()
+            .filter(id -> !products.containsKey(id))
+            .distinct()
+            .toList();
+        if (!missingIds.isEmpty()) {
+            throw new IllegalArgumentException("Products not found with IDs: " + missingIds);
+        }
+        
+        return products;
+    }
+    
     /**
      * Get product by barcode
      */
@@ -161,6 +190,7 @@ public class ProductService {
         ProductTypeHandler handler = findHandlerForProduct(existingProduct);
         handler.updateTypeSpecificFields(existingProduct, updatedProduct);
         Product savedProduct = handler.save(existingProduct);
+        productSnapshotCache.evict(id);
         
         // Log the action
         auditLogService.logAction(
@@ -185,6 +215,7 @@ public class ProductService {
             .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
         
         productRepository.delete(product);
+        productSnapshotCache.evict(id);
         
         // Log the action
         auditLogService.logAction(
@@ -214,6 +245,7 @@ public class ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
+        productSnapshotCache.evict(productId);
         
         auditLogService.logAction(
             "Stock Updated",
@@ -1,6 +1,7 @@
 package com.itss.ecommerce.service.log;
 
 import com.itss.ecommerce.entity.AuditLog;
+import com.itss.ecommerce.repository.AuditLogBatchRepository;
 import com.itss.ecommerce.repository.AuditLogRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -18,6 +20,7 @@ import java.util.List;
 public class AuditLogService {
     
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogBatchRepository auditLogBatchRepository;
     
     /**
      * Log an action
@@ -227,4 +230,20 @@ public class AuditLogService {
             userId
         );
     }
+    
+    /**
+     * Log the same order action for several orders as one batch insert
+     */
+    public int logOrderActions(Collection<Long> orderIds, Long userId, String action, String details) {
+        log.debug("Logging order action {} for {} orders", action, orderIds.size());
+        return auditLogBatchRepository.insertEntityLogs(
+            "Order " + action,
+            details,
+            "Order",
+            orderIds,
+            AuditLog.ActionType.ORDER,
+            userId,
+            LocalDateTime.now()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.itss.ecommerce.service.outbox;
+
+import com.itss.ecommerce.entity.OutboxEvent;
+
+/**
+ * Side effect run by the outbox relay after an order event has committed.
+ * Delivery is at least once: a handler that throws is retried, and a handler
+ * that succeeded is not called again for the same event.
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * Stable name used to record deliveries; must not change between releases
+     */
+    String getName();
+
+    /**
+     * Check if this handler is interested in an event type
+     */
+    boolean supports(OutboxEvent.EventType eventType);
+
+    /**
+     * Handle an event; throw to have it retried
+     */
+    void handle(OutboxEvent event);
+}
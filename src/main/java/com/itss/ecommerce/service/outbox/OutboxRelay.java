@@ -0,0 +1,186 @@
+package com.itss.ecommerce.service.outbox;
+
+import com.itss.ecommerce.entity.OutboxDelivery;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.OutboxDeliveryRepository;
+import com.itss.ecommerce.repository.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Delivers committed outbox events to the registered handlers.
+ * Runs on a single scheduler thread; events of one order are delivered in
+ * order, and a failing event holds back later events of the same order
+ * until it succeeds or is given up on.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDeliveryRepository outboxDeliveryRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration retention;
+
+    private final Counter deliveredEvents;
+    private final Counter retriedEvents;
+    private final Counter failedEvents;
+
+    private LocalDateTime lastPurge = LocalDateTime.MIN;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxDeliveryRepository outboxDeliveryRepository,
+                       List<OutboxEventHandler> handlers,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.retry-delay-ms:1000}") long retryDelayMillis,
+                       @Value("${outbox.retention-days:7}") long retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxDeliveryRepository = outboxDeliveryRepository;
+        this.handlers = handlers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMillis(retryDelayMillis);
+        this.retention = Duration.ofDays(retentionDays);
+
+        this.deliveredEvents = Counter.builder("outbox.events.delivered")
+            .description("Outbox events delivered to all handlers")
+            .register(meterRegistry);
+        this.retriedEvents = Counter.builder("outbox.events.retried")
+            .description("Outbox event deliveries that failed and were scheduled for retry")
+            .register(meterRegistry);
+        this.failedEvents = Counter.builder("outbox.events.failed")
+            .description("Outbox events given up on after the maximum attempts")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relayScheduled() {
+        relay();
+        purgeIfDue();
+    }
+
+    /**
+     * Deliver one batch of due events
+     *
+     * @return number of events delivered
+     */
+    public int relay() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = outboxEventRepository.findDeliverable(now, PageRequest.of(0, batchSize));
+        Set<Long> blockedOrders = new HashSet<>();
+        int delivered = 0;
+
+        for (OutboxEvent event : events) {
+            if (blockedOrders.contains(event.getAggregateId())) {
+                continue;
+            }
+            if (deliver(event)) {
+                delivered++;
+            } else if (event.getStatus() == OutboxEvent.Status.PENDING) {
+                // Waiting for a retry; later events of the order must wait too
+                blockedOrders.add(event.getAggregateId());
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Run all handlers for an event that have not handled it yet
+     *
+     * @return true if every handler succeeded
+     */
+    private boolean deliver(OutboxEvent event) {
+        for (OutboxEventHandler handler : handlers) {
+            if (!handler.supports(event.getEventType())
+                    || outboxDeliveryRepository.existsByEventIdAndHandlerName(event.getEventId(), handler.getName())) {
+                continue;
+            }
+            try {
+                handler.handle(event);
+            } catch (RuntimeException e) {
+                scheduleRetry(event, handler, e);
+                return false;
+            }
+            recordDelivery(event, handler);
+        }
+
+        event.setStatus(OutboxEvent.Status.DELIVERED);
+        event.setDeliveredAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+        deliveredEvents.increment();
+        return true;
+    }
+
+    private void recordDelivery(OutboxEvent event, OutboxEventHandler handler) {
+        try {
+            outboxDeliveryRepository.save(new OutboxDelivery(event.getEventId(), handler.getName()));
+        } catch (DataIntegrityViolationException e) {
+            // Already recorded by an earlier attempt
+            log.debug("Delivery of event {} to {} already recorded", event.getEventId(), handler.getName());
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, OutboxEventHandler handler, RuntimeException error) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(handler.getName() + ": " + error.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            // Give up so later events of the order are no longer held back
+            event.setStatus(OutboxEvent.Status.FAILED);
+            failedEvents.increment();
+            log.error("Giving up on outbox event {} ({} for order {}) after {} attempts",
+                event.getEventId(), event.getEventType(), event.getAggregateId(), attempts, error);
+        } else {
+            // Linear backoff
+            event.setAvailableAt(LocalDateTime.now().plus(retryDelay.multipliedBy(attempts)));
+            retriedEvents.increment();
+            log.warn("Outbox event {} ({} for order {}) failed in {}, attempt {}: {}",
+                event.getEventId(), event.getEventType(), event.getAggregateId(),
+                handler.getName(), attempts, error.getMessage());
+        }
+        outboxEventRepository.save(event);
+    }
+
+    private void purgeIfDue() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastPurge.plus(PURGE_INTERVAL).isAfter(now)) {
+            return;
+        }
+        lastPurge = now;
+        LocalDateTime cutoff = now.minus(retention);
+        int events = outboxEventRepository.deleteDeliveredBefore(cutoff);
+        outboxDeliveryRepository.deleteDeliveredBefore(cutoff);
+        if (events > 0) {
+            log.info("Purged {} delivered outbox events", events);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
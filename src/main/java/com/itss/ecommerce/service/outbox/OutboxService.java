@@ -0,0 +1,58 @@
+package com.itss.ecommerce.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.OutboxEventBatchRepository;
+import com.itss.ecommerce.repository.OutboxEventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes order events to the outbox. Must be called inside the transaction
+ * that makes the state change, so the event commits (or rolls back) with it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventBatchRepository outboxEventBatchRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Record an event for an order
+     */
+    public OutboxEvent publish(Long orderId, OutboxEvent.EventType eventType, Map<String, ?> payload) {
+        log.debug("Publishing {} for order: {}", eventType, orderId);
+        return outboxEventRepository.save(OutboxEvent.of(orderId, eventType, toJson(payload)));
+    }
+
+    /**
+     * Record the same event for several orders as one batch insert
+     *
+     * @return number of events recorded
+     */
+    public int publishAll(Collection<Long> orderIds, OutboxEvent.EventType eventType, Map<String, ?> payload) {
+        log.debug("Publishing {} for {} orders", eventType, orderIds.size());
+        return outboxEventBatchRepository.insertPending(orderIds, eventType, toJson(payload), LocalDateTime.now());
+    }
+
+    private String toJson(Map<String, ?> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event payload is not serializable", e);
+        }
+    }
+}
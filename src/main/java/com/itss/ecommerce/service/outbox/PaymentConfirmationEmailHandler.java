@@ -0,0 +1,47 @@
+package com.itss.ecommerce.service.outbox;
+
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.OrderRepository;
+import com.itss.ecommerce.service.notification.INotificationService;
+import com.itss.ecommerce.service.notification.type.NotificationServiceProvider;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Sends the payment confirmation email once an order has been paid
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentConfirmationEmailHandler implements OutboxEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final INotificationService notificationService;
+
+    @Override
+    public String getName() {
+        return "payment-confirmation-email";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.ORDER_PAID;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void handle(OutboxEvent event) {
+        Order order = orderRepository.findWithDetailsById(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            log.warn("Order {} no longer exists, skipping payment confirmation", event.getAggregateId());
+            return;
+        }
+        if (!notificationService.sendPaymentConfirmation(order, NotificationServiceProvider.EMAIL)) {
+            throw new IllegalStateException("Payment confirmation email was not sent for order: " + order.getOrderId());
+        }
+    }
+}
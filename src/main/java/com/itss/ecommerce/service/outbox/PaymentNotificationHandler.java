@@ -0,0 +1,44 @@
+package com.itss.ecommerce.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.service.payment.PaymentNotificationService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies queued gateway payment notifications to the order's invoice
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentNotificationHandler implements OutboxEventHandler {
+
+    private final PaymentNotificationService paymentNotificationService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return "payment-notification";
+    }
+
+    @Override
+    public boolean supports(OutboxEvent.EventType eventType) {
+        return eventType == OutboxEvent.EventType.PAYMENT_RECEIVED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        String transactionNo;
+        try {
+            transactionNo = objectMapper.readTree(event.getPayload()).path("transactionNo").asText(null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payment notification event: " + event.getEventId(), e);
+        }
+        if (transactionNo == null) {
+            throw new IllegalStateException("Payment notification event without transaction number: " + event.getEventId());
+        }
+        paymentNotificationService.apply(transactionNo);
+    }
+}
@@ -0,0 +1,161 @@
+package com.itss.ecommerce.service.payment;
+
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.entity.PaymentNotification;
+import com.itss.ecommerce.repository.PaymentNotificationRepository;
+import com.itss.ecommerce.service.InvoiceService;
+import com.itss.ecommerce.service.admin.OrderExpiryService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable, deduplicated intake of gateway payment results, from both the
+ * IPN and the customer's return redirect. A result is stored together with
+ * a PAYMENT_RECEIVED outbox event so it can be acknowledged right away;
+ * the outbox relay then applies it to the order. Retries are recognised by
+ * transaction number, first in a small in-memory set of recent numbers and
+ * then by the unique constraint.
+ */
+@Service
+@Slf4j
+@Transactional
+public class PaymentNotificationService {
+
+    static final String PAYMENT_FAILED_REASON = "Payment failed or cancelled";
+    static final String AMOUNT_MISMATCH_REASON = "Paid amount %s does not match amount due %s (VND x 100)";
+
+    private final PaymentNotificationRepository paymentNotificationRepository;
+    private final InvoiceService invoiceService;
+    private final OrderExpiryService orderExpiryService;
+    private final OutboxService outboxService;
+    private final Set<String> recentTransactionNos;
+
+    public PaymentNotificationService(PaymentNotificationRepository paymentNotificationRepository,
+                                      InvoiceService invoiceService,
+                                      OrderExpiryService orderExpiryService,
+                                      OutboxService outboxService,
+                                      @Value("${payment.ipn.recent-cache-size:10000}") int recentCacheSize) {
+        this.paymentNotificationRepository = paymentNotificationRepository;
+        this.invoiceService = invoiceService;
+        this.orderExpiryService = orderExpiryService;
+        this.outboxService = outboxService;
+        this.recentTransactionNos = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > recentCacheSize;
+                }
+            }));
+    }
+
+    /**
+     * Check if a transaction number was received recently, without touching the database
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean isRecentlySeen(String transactionNo) {
+        return recentTransactionNos.contains(transactionNo);
+    }
+
+    /**
+     * Store a verified notification and queue it for processing.
+     * A concurrent insert of the same transaction number fails with
+     * DataIntegrityViolationException, which callers treat as a duplicate.
+     *
+     * @return true if the notification is new, false if it was already received
+     */
+    public boolean enqueue(PaymentNotification notification) {
+        String transactionNo = notification.getTransactionNo();
+        int inserted = paymentNotificationRepository.insertReceived(transactionNo, notification.getOrderId(),
+            notification.getResponseCode(), notification.getTransactionStatus(), notification.getAmount(),
+            notification.getBankCode(), notification.getPayDate(), LocalDateTime.now());
+        if (inserted == 0) {
+            log.debug("Payment notification {} already received", transactionNo);
+            recentTransactionNos.add(transactionNo);
+            return false;
+        }
+
+        outboxService.publish(notification.getOrderId(), OutboxEvent.EventType.PAYMENT_RECEIVED,
+            Map.of("transactionNo", transactionNo));
+        rememberAfterCommit(transactionNo);
+        return true;
+    }
+
+    /**
+     * Apply a received notification: a successful payment moves the order's
+     * invoice from PENDING to PAID, a failed one cancels the unpaid order and
+     * restocks it. A successful payment whose amount differs from what the
+     * invoice is due is skipped with the mismatch as reason, leaving the
+     * invoice pending. Safe to call again for the same notification.
+     */
+    public void apply(String transactionNo) {
+        PaymentNotification notification = paymentNotificationRepository.findByTransactionNo(transactionNo)
+            .orElse(null);
+        if (notification == null || notification.getStatus() != PaymentNotification.Status.RECEIVED) {
+            log.debug("Payment notification {} missing or already processed", transactionNo);
+            return;
+        }
+
+        String amountMismatch = notification.isSuccessfulPayment() ? checkAmount(notification) : null;
+        if (amountMismatch != null) {
+            paymentNotificationRepository.markSkipped(transactionNo, amountMismatch, LocalDateTime.now());
+            log.warn("Payment notification {} for order {} not recorded: {}", transactionNo,
+                notification.getOrderId(), amountMismatch);
+            return;
+        }
+
+        boolean recorded = notification.isSuccessfulPayment()
+            ? invoiceService.recordPaymentSuccess(notification.getOrderId())
+            : !orderExpiryService.cancelUnpaidOrders(
+                List.of(notification.getOrderId()), PAYMENT_FAILED_REASON).isEmpty();
+        PaymentNotification.Status status = recorded
+            ? PaymentNotification.Status.APPLIED
+            : PaymentNotification.Status.SKIPPED;
+        paymentNotificationRepository.markProcessed(transactionNo, status, LocalDateTime.now());
+        log.info("Payment notification {} for order {} {}", transactionNo, notification.getOrderId(), status);
+    }
+
+    /**
+     * Compare the paid amount (VND x 100) with the amount the order's invoice is due
+     *
+     * @return the mismatch description, or null if the amount matches or there is no invoice
+     */
+    private String checkAmount(PaymentNotification notification) {
+        Invoice invoice = invoiceService.getInvoiceByOrderId(notification.getOrderId()).orElse(null);
+        if (invoice == null) {
+            return null;
+        }
+        long expected = invoice.getAmountDue() * 100;
+        if (notification.getAmount() != null && notification.getAmount() == expected) {
+            return null;
+        }
+        return String.format(AMOUNT_MISMATCH_REASON, notification.getAmount(), expected);
+    }
+
+    private void rememberAfterCommit(String transactionNo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recentTransactionNos.add(transactionNo);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentTransactionNos.add(transactionNo);
+            }
+        });
+    }
+}
@@ -0,0 +1,239 @@
+package com.itss.ecommerce.service.payment;
+
+import com.itss.ecommerce.dto.payment.PendingPayment;
+import com.itss.ecommerce.dto.payment.request.QueryRequest;
+import com.itss.ecommerce.dto.payment.response.QueryResponse;
+import com.itss.ecommerce.repository.PaymentTransactionRepository;
+import com.itss.ecommerce.service.payment.gateway.IPaymentService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Periodically asks the gateway about payment transactions that stayed
+ * pending because neither the return redirect nor the IPN arrived.
+ * Transactions are paged by ID; each page is queried concurrently on
+ * virtual threads under a concurrency limit and a global rate limit,
+ * then applied in one transaction. No database connection is held while
+ * the gateway is queried.
+ */
+@Component
+@Slf4j
+public class PaymentReconciler {
+
+    private static final DateTimeFormatter VNPAY_DATE = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final ZoneId VNPAY_ZONE = ZoneId.of("Etc/GMT+7");
+    private static final String QUERY_SUCCESS = "00";
+    private static final String QUERY_NOT_FOUND = "91";
+    private static final String STATUS_PAID = "00";
+    private static final String STATUS_FAILED = "02";
+
+    enum Outcome { PAID, FAILED, PENDING, NOT_FOUND, ERROR }
+
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final PaymentReconciliationService paymentReconciliationService;
+    private final PaymentServiceFactory paymentServiceFactory;
+    private final boolean enabled;
+    private final Duration staleAfter;
+    private final int pageSize;
+    private final Semaphore concurrency;
+    private final RateLimiter rateLimiter;
+
+    private final Map<Outcome, Counter> queried = new EnumMap<>(Outcome.class);
+    private final Counter mismatches;
+    private final Counter failedPages;
+    private final Timer runTimer;
+
+    public PaymentReconciler(PaymentTransactionRepository paymentTransactionRepository,
+                             PaymentReconciliationService paymentReconciliationService,
+                             PaymentServiceFactory paymentServiceFactory,
+                             MeterRegistry meterRegistry,
+                             @Value("${payment.reconciliation.enabled:true}") boolean enabled,
+                             @Value("${payment.reconciliation.stale-minutes:15}") long staleMinutes,
+                             @Value("${payment.reconciliation.page-size:200}") int pageSize,
+                             @Value("${payment.reconciliation.max-concurrency:8}") int maxConcurrency,
+                             @Value("${payment.reconciliation.rate-per-second:20}") double ratePerSecond) {
+        this.paymentTransactionRepository = paymentTransactionRepository;
+        this.paymentReconciliationService = paymentReconciliationService;
+        this.paymentServiceFactory = paymentServiceFactory;
+        this.enabled = enabled;
+        this.staleAfter = Duration.ofMinutes(staleMinutes);
+        this.pageSize = pageSize;
+        this.concurrency = new Semaphore(maxConcurrency);
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+
+        for (Outcome outcome : Outcome.values()) {
+            queried.put(outcome, Counter.builder("payments.reconciliation.queries")
+                .description("Gateway queries made by payment reconciliation")
+                .tag("outcome", outcome.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        this.mismatches = Counter.builder("payments.reconciliation.mismatches")
+            .description("Payments confirmed by the gateway for orders no longer awaiting payment")
+            .register(meterRegistry);
+        this.failedPages = Counter.builder("payments.reconciliation.page.failures")
+            .description("Pages rolled back by payment reconciliation")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("payments.reconciliation.run")
+            .description("Duration of a payment reconciliation run")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconciliation.interval-ms:300000}",
+               initialDelayString = "${payment.reconciliation.interval-ms:300000}")
+    public void reconcileScheduled() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Query the gateway for all pending transactions older than the stale
+     * threshold and apply the answers
+     *
+     * @return number of transactions resolved as paid or failed
+     */
+    public int reconcile() {
+        return runTimer.record(() -> {
+            LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+            IPaymentService gateway = paymentServiceFactory.getDefaultPaymentService();
+            long afterTransactionId = 0L;
+            int resolved = 0;
+
+            while (true) {
+                List<PendingPayment> page = paymentTransactionRepository.findStalePending(
+                    cutoff, afterTransactionId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<Outcome> outcomes = queryAll(gateway, page);
+                List<Long> paidOrderIds = new ArrayList<>();
+                List<Long> failedTransactionIds = new ArrayList<>();
+                for (int i = 0; i < page.size(); i++) {
+                    Outcome outcome = outcomes.get(i);
+                    queried.get(outcome).increment();
+                    if (outcome == Outcome.PAID) {
+                        paidOrderIds.add(page.get(i).getOrderId());
+                    } else if (outcome == Outcome.FAILED) {
+                        failedTransactionIds.add(page.get(i).getTransactionId());
+                    }
+                }
+
+                if (!paidOrderIds.isEmpty() || !failedTransactionIds.isEmpty()) {
+                    try {
+                        PaymentReconciliationService.Result result =
+                            paymentReconciliationService.apply(paidOrderIds, failedTransactionIds);
+                        resolved += result.paid().size() + result.failed();
+                        mismatches.increment(result.mismatched().size());
+                    } catch (RuntimeException e) {
+                        // Page rolled back; its transactions are queried again on the next run
+                        failedPages.increment();
+                        log.error("Failed to apply reconciliation for orders {} and transactions {}",
+                            paidOrderIds, failedTransactionIds, e);
+                    }
+                }
+
+                afterTransactionId = page.get(page.size() - 1).getTransactionId();
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+
+            if (resolved > 0) {
+                log.info("Payment reconciliation resolved {} transactions created before {}", resolved, cutoff);
+            }
+            return resolved;
+        });
+    }
+
+    /**
+     * Query every payment of a page on its own virtual thread; outcomes are in page order
+     */
+    private List<Outcome> queryAll(IPaymentService gateway, List<PendingPayment> page) {
+        List<Future<Outcome>> futures = new ArrayList<>(page.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PendingPayment payment : page) {
+                futures.add(executor.submit(() -> query(gateway, payment)));
+            }
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(futures.size());
+        for (Future<Outcome> future : futures) {
+            try {
+                outcomes.add(future.get());
+            } catch (ExecutionException e) {
+                outcomes.add(Outcome.ERROR);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcomes.add(Outcome.ERROR);
+            }
+        }
+        return outcomes;
+    }
+
+    private Outcome query(IPaymentService gateway, PendingPayment payment) throws InterruptedException {
+        QueryRequest request = new QueryRequest();
+        request.setOrderId(String.valueOf(payment.getOrderId()));
+        request.setTransDate(transactionDate(payment));
+
+        concurrency.acquire();
+        try {
+            rateLimiter.acquire();
+            return classify(gateway.queryTransaction(request, null));
+        } catch (RuntimeException e) {
+            log.warn("Gateway query for order {} failed: {}", payment.getOrderId(), e.getMessage());
+            return Outcome.ERROR;
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    /**
+     * The vnp_CreateDate the payment URL was signed with; transactions signed
+     * before it was stored fall back to their creation time
+     */
+    static String transactionDate(PendingPayment payment) {
+        if (payment.getGatewayCreateDate() != null) {
+            return payment.getGatewayCreateDate();
+        }
+        return VNPAY_DATE.format(
+            payment.getCreatedAt().atZone(ZoneId.systemDefault()).withZoneSameInstant(VNPAY_ZONE));
+    }
+
+    static Outcome classify(QueryResponse response) {
+        if (response == null) {
+            return Outcome.ERROR;
+        }
+        if (QUERY_NOT_FOUND.equals(response.getVnp_ResponseCode())) {
+            return Outcome.NOT_FOUND;
+        }
+        if (!QUERY_SUCCESS.equals(response.getVnp_ResponseCode())) {
+            return Outcome.ERROR;
+        }
+        if (STATUS_PAID.equals(response.getVnp_TransactionStatus())) {
+            return Outcome.PAID;
+        }
+        return STATUS_FAILED.equals(response.getVnp_TransactionStatus()) ? Outcome.FAILED : Outcome.PENDING;
+    }
+}
@@ -0,0 +1,95 @@
+package com.itss.ecommerce.service.payment;
+
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.InvoiceRepository;
+import com.itss.ecommerce.repository.PaymentTransactionRepository;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
+import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies gateway query results for stale pending payments.
+ * Each call handles one page of results in a single transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class PaymentReconciliationService {
+
+    static final String FAILURE_REASON = "Payment not completed at gateway";
+    static final String MISMATCH_NOTE = "Paid at gateway after the order was closed, refund required";
+
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentTransactionRepository paymentTransactionRepository;
+    private final OrderSummaryService orderSummaryService;
+    private final AuditLogService auditLogService;
+    private final OutboxService outboxService;
+
+    /**
+     * Outcome of applying one page of results
+     *
+     * @param paid       orders whose invoice was marked paid
+     * @param failed     number of transactions marked failed
+     * @param mismatched orders paid at the gateway whose invoice is neither pending nor paid;
+     *                   their transactions are recorded as captured with a refund note
+     */
+    public record Result(List<Long> paid, int failed, List<Long> mismatched) {
+    }
+
+    /**
+     * Apply a page of results with set-based updates: record payments the
+     * gateway reports as paid and fail transactions it reports as failed
+     */
+    public Result apply(Collection<Long> paidOrderIds, Collection<Long> failedTransactionIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> paid = List.of();
+        List<Long> mismatched = List.of();
+
+        if (!paidOrderIds.isEmpty()) {
+            // Re-check inside the transaction; IPN or return may have recorded the payment since the query
+            paid = invoiceRepository.findOrderIdsByPaymentStatus(paidOrderIds, Invoice.PaymentStatus.PENDING);
+            Set<Long> settled = new HashSet<>(paid);
+            settled.addAll(invoiceRepository.findOrderIdsByPaymentStatus(paidOrderIds, Invoice.PaymentStatus.PAID));
+            mismatched = new ArrayList<>(paidOrderIds);
+            mismatched.removeAll(settled);
+
+            if (!paid.isEmpty()) {
+                invoiceRepository.markPaidByOrderIds(paid, now);
+                orderSummaryService.updatePaymentStatuses(paid, Invoice.PaymentStatus.PAID);
+                outboxService.publishAll(paid, OutboxEvent.EventType.ORDER_PAID, Map.of("source", "reconciliation"));
+                auditLogService.logAction("Payments Reconciled", "Recorded payments confirmed by gateway: " + paid);
+            }
+            if (!settled.isEmpty()) {
+                paymentTransactionRepository.markPendingSucceededByOrderIds(settled, now);
+            }
+            if (!mismatched.isEmpty()) {
+                // Record the capture so the transactions are not queried and counted again on every run
+                paymentTransactionRepository.markPendingSucceededWithNote(mismatched, now, MISMATCH_NOTE);
+                auditLogService.logAction("Payment Mismatch",
+                    "Gateway captured payment for orders no longer awaiting payment, refund required: " + mismatched);
+                log.warn("Gateway reports payment for orders {} whose invoice is neither pending nor paid", mismatched);
+            }
+        }
+
+        int failed = failedTransactionIds.isEmpty() ? 0
+            : paymentTransactionRepository.markPendingFailed(failedTransactionIds, now, FAILURE_REASON);
+
+        log.info("Reconciled payments: {} paid, {} failed, {} mismatched", paid.size(), failed, mismatched.size());
+        return new Result(paid, failed, mismatched);
+    }
+}
@@ -0,0 +1,33 @@
+package com.itss.ecommerce.service.payment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces callers evenly at a fixed rate. Each caller reserves the next free
+ * slot and sleeps until it, which is cheap on virtual threads.
+ */
+class RateLimiter {
+
+    private final long intervalNanos;
+    private long nextSlot = System.nanoTime();
+
+    RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + permitsPerSecond);
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * Block until the caller's slot is reached
+     */
+    void acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot;
+        synchronized (this) {
+            slot = Math.max(nextSlot, now);
+            nextSlot = slot + intervalNanos;
+        }
+        TimeUnit.NANOSECONDS.sleep(slot - now);
+    }
+}
@@ -0,0 +1,67 @@
+package com.itss.ecommerce.service.payment.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Small in-memory record of gateway callbacks (return redirects and IPNs)
+ * that were already verified and recorded. A callback is identified by its
+ * order reference, gateway transaction number and signature; a replay within
+ * the TTL is answered without touching the database.
+ */
+@Component
+@Slf4j
+public class CallbackReplayCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Long> recordedAt = new ConcurrentHashMap<>();
+
+    public CallbackReplayCache(@Value("${payment.callback.replay-ttl-seconds:900}") long ttlSeconds,
+                               @Value("${payment.callback.replay-max-entries:10000}") int maxEntries) {
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Build the replay key of a callback
+     */
+    public static String key(String txnRef, String transactionNo, String secureHash) {
+        return txnRef + '|' + transactionNo + '|' + secureHash;
+    }
+
+    /**
+     * Check if a callback was recorded within the TTL
+     */
+    public boolean isReplay(String key) {
+        Long at = recordedAt.get(key);
+        if (at == null) {
+            return false;
+        }
+        if (System.nanoTime() - at >= ttlNanos) {
+            recordedAt.remove(key, at);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remember a callback once it has been recorded
+     */
+    public void remember(String key) {
+        if (recordedAt.size() >= maxEntries && !recordedAt.containsKey(key)) {
+            long now = System.nanoTime();
+            recordedAt.values().removeIf(at -> now - at >= ttlNanos);
+            if (recordedAt.size() >= maxEntries) {
+                log.debug("Callback replay cache full ({} entries), clearing", recordedAt.size());
+                recordedAt.clear();
+            }
+        }
+        recordedAt.put(key, System.nanoTime());
+    }
+}
@@ -0,0 +1,80 @@
+package com.itss.ecommerce.service.payment.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Small in-memory cache of signed payment URLs per order. Repeated payment
+ * creation for the same order (refresh, back navigation) gets the same
+ * gateway session while it is still comfortably within its expiry window.
+ * A session is only reused for the same request details.
+ */
+@Component
+@Slf4j
+public class PaymentSessionCache {
+
+    private final long reuseNanos;
+    private final int maxEntries;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public PaymentSessionCache(@Value("${payment.session.reuse-seconds:720}") long reuseSeconds,
+                               @Value("${payment.session.max-entries:10000}") int maxEntries) {
+        this.reuseNanos = Duration.ofSeconds(reuseSeconds).toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the order's current payment URL, or sign a new one if there is
+     * none, it is too close to expiry or the request details changed
+     *
+     * @param orderId     order the session pays for; null disables caching
+     * @param fingerprint request details the URL was signed with
+     * @param signer      builds and signs a new payment URL
+     */
+    public String getOrCreate(String orderId, String fingerprint, Supplier<String> signer) {
+        if (orderId == null) {
+            return signer.get();
+        }
+        long now = System.nanoTime();
+        if (sessions.size() >= maxEntries && !sessions.containsKey(orderId)) {
+            sessions.values().removeIf(session -> now - session.createdAt() >= reuseNanos);
+            if (sessions.size() >= maxEntries) {
+                log.debug("Payment session cache full ({} entries), clearing", sessions.size());
+                sessions.clear();
+            }
+        }
+        // Computed atomically so concurrent requests for one order share a single session
+        return sessions.compute(orderId, (key, existing) ->
+            existing != null && existing.fingerprint().equals(fingerprint) && now - existing.createdAt() < reuseNanos
+                ? existing
+                : new Session(signer.get(), fingerprint, now)
+        ).paymentUrl();
+    }
+
+    /**
+     * Drop an order's session once the gateway has reported a result for it
+     */
+    public void evict(String orderId) {
+        if (orderId != null) {
+            sessions.remove(orderId);
+        }
+    }
+
+    /**
+     * Build the fingerprint of the request details a URL is signed with
+     */
+    public static String fingerprint(String amount, String bankCode, String language) {
+        return Objects.toString(amount, "") + '|' + Objects.toString(bankCode, "") + '|'
+            + Objects.toString(language, "");
+    }
+
+    private record Session(String paymentUrl, String fingerprint, long createdAt) {
+    }
+}
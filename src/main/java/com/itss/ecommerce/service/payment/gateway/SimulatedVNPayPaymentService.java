@@ -0,0 +1,50 @@
+package com.itss.ecommerce.service.payment.gateway;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.itss.ecommerce.config.VNPayConfig;
+import com.itss.ecommerce.dto.payment.request.QueryRequest;
+import com.itss.ecommerce.dto.payment.request.RefundRequest;
+import com.itss.ecommerce.dto.payment.response.QueryResponse;
+import com.itss.ecommerce.dto.payment.response.RefundResponse;
+import com.itss.ecommerce.service.PaymentTransactionService;
+import com.itss.ecommerce.service.payment.PaymentNotificationService;
+import com.itss.ecommerce.service.payment.simulator.VNPaySimulator;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * VNPay payment service for the {@code vnpay-sim} profile. Payment URLs,
+ * return and IPN verification are the real VNPay implementation (the pay URL
+ * points at the embedded simulator); query and refund are answered by the
+ * in-process simulator without an HTTP round trip.
+ */
+@Service
+@Profile("vnpay-sim")
+public class SimulatedVNPayPaymentService extends VNPayPaymentService {
+
+    private final VNPaySimulator vnPaySimulator;
+
+    public SimulatedVNPayPaymentService(VNPayConfig vnPayConfig, VNPayApiClient vnPayApiClient,
+                                        PaymentNotificationService paymentNotificationService,
+                                        PaymentTransactionService paymentTransactionService,
+                                        CallbackReplayCache callbackReplayCache,
+                                        PaymentSessionCache paymentSessionCache,
+                                        VNPaySimulator vnPaySimulator) {
+        super(vnPayConfig, vnPayApiClient, paymentNotificationService, paymentTransactionService, callbackReplayCache,
+            paymentSessionCache);
+        this.vnPaySimulator = vnPaySimulator;
+    }
+
+    @Override
+    public QueryResponse queryTransaction(QueryRequest request, HttpServletRequest servletRequest) {
+        return vnPaySimulator.query(request.getOrderId());
+    }
+
+    @Override
+    public RefundResponse refundTransaction(RefundRequest request, HttpServletRequest servletRequest) {
+        return vnPaySimulator.refund(request.getOrderId(), String.valueOf(request.getAmount() * 100L),
+            request.getTranType());
+    }
+}
@@ -0,0 +1,130 @@
+package com.itss.ecommerce.service.payment.gateway;
+
+import com.itss.ecommerce.exception.PaymentProcessingException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for VNPay's merchant API (query and refund). Connections are
+ * kept alive and reused by a shared JDK HttpClient, every call is bounded by
+ * connect and read timeouts, at most {@code max-concurrent-calls} requests
+ * are in flight, and a circuit breaker fails fast while the gateway is down.
+ */
+@Component
+@Slf4j
+public class VNPayApiClient {
+
+    private static final String GATEWAY = "VNPay";
+
+    private final RestTemplate restTemplate;
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+
+    public VNPayApiClient(MeterRegistry meterRegistry,
+                          @Value("${vnpay.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                          @Value("${vnpay.http.read-timeout-ms:5000}") long readTimeoutMs,
+                          @Value("${vnpay.http.max-concurrent-calls:16}") int maxConcurrentCalls,
+                          @Value("${vnpay.http.acquire-timeout-ms:200}") long acquireTimeoutMs,
+                          @Value("${vnpay.http.breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${vnpay.http.breaker.open-ms:30000}") long openMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openMs));
+
+        this.successfulCalls = Counter.builder("payment.vnpay.api.calls")
+            .tag("outcome", "success")
+            .description("VNPay API calls answered by the gateway")
+            .register(meterRegistry);
+        this.failedCalls = Counter.builder("payment.vnpay.api.calls")
+            .tag("outcome", "failure")
+            .description("VNPay API calls that failed or timed out")
+            .register(meterRegistry);
+        this.rejectedCalls = Counter.builder("payment.vnpay.api.calls")
+            .tag("outcome", "rejected")
+            .description("VNPay API calls rejected by the concurrency limit or circuit breaker")
+            .register(meterRegistry);
+    }
+
+    /**
+     * POST parameters as JSON and return the response body
+     *
+     * @throws PaymentProcessingException if the call is rejected, times out or fails
+     */
+    public <T> T post(String url, Map<String, String> params, Class<T> responseType) {
+        if (!acquirePermit()) {
+            rejectedCalls.increment();
+            throw PaymentProcessingException.gatewayError(GATEWAY, "too many concurrent requests");
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                rejectedCalls.increment();
+                throw PaymentProcessingException.gatewayError(GATEWAY, "temporarily unavailable");
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            try {
+                T body = restTemplate.postForEntity(url, new HttpEntity<>(params, headers), responseType).getBody();
+                circuitBreaker.onSuccess();
+                successfulCalls.increment();
+                return body;
+            } catch (HttpClientErrorException e) {
+                // The gateway is up and rejected the request itself
+                circuitBreaker.onSuccess();
+                failedCalls.increment();
+                throw new PaymentProcessingException(
+                    String.format("Payment gateway '%s' error: %s", GATEWAY, e.getStatusCode()), e);
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                failedCalls.increment();
+                log.warn("VNPay API call failed (breaker {}): {}", circuitBreaker.getState(), e.getMessage());
+                throw new PaymentProcessingException(
+                    String.format("Payment gateway '%s' error: %s", GATEWAY, e.getMessage()), e);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
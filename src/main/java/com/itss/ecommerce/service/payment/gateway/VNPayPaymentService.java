@@ -1,12 +1,10 @@
 package com.itss.ecommerce.service.payment.gateway;
 
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import com.itss.ecommerce.config.VNPayCanonicalizer;
 import com.itss.ecommerce.config.VNPayConfig;
 import com.itss.ecommerce.dto.payment.PaymentReturnResponse;
 import com.itss.ecommerce.dto.payment.request.PaymentRequest;
@@ -16,38 +14,75 @@ import com.itss.ecommerce.dto.payment.response.IPNResponse;
 import com.itss.ecommerce.dto.payment.response.PaymentResponse;
 import com.itss.ecommerce.dto.payment.response.QueryResponse;
 import com.itss.ecommerce.dto.payment.response.RefundResponse;
+import com.itss.ecommerce.entity.PaymentNotification;
+import com.itss.ecommerce.service.PaymentTransactionService;
+import com.itss.ecommerce.service.payment.PaymentNotificationService;
 import com.itss.ecommerce.service.payment.type.PaymentMethod;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import lombok.extern.slf4j.Slf4j;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
+@Slf4j
+@Profile("!vnpay-sim")
 public class VNPayPaymentService implements IPaymentService {
 
-    private final VNPayConfig vnPayConfig;
-    private final RestTemplate restTemplate;
+    /** Caller address sent with queries made outside an HTTP request */
+    private static final String SERVER_IP_ADDRESS = "127.0.0.1";
 
-    public VNPayPaymentService(VNPayConfig vnPayConfig) {
+    private final VNPayConfig vnPayConfig;
+    private final VNPayApiClient vnPayApiClient;
+    private final PaymentNotificationService paymentNotificationService;
+    private final PaymentTransactionService paymentTransactionService;
+    private final CallbackReplayCache callbackReplayCache;
+    private final PaymentSessionCache paymentSessionCache;
+
+    public VNPayPaymentService(VNPayConfig vnPayConfig, VNPayApiClient vnPayApiClient,
+                               PaymentNotificationService paymentNotificationService,
+                               PaymentTransactionService paymentTransactionService,
+                               CallbackReplayCache callbackReplayCache,
+                               PaymentSessionCache paymentSessionCache) {
         this.vnPayConfig = vnPayConfig;
-        this.restTemplate = new RestTemplate();
+        this.vnPayApiClient = vnPayApiClient;
+        this.paymentNotificationService = paymentNotificationService;
+        this.paymentTransactionService = paymentTransactionService;
+        this.callbackReplayCache = callbackReplayCache;
+        this.paymentSessionCache = paymentSessionCache;
     }
 
     /**
      * Creates a VNPAY payment request
-     * Builds the payment URL with all required parameters and signature according
-     * to VNPAY's specs
+     * Returns the order's current payment URL if it is still valid for the same
+     * details, otherwise builds a new one with all required parameters and
+     * signature according to VNPAY's specs
      *
      * @param request        Payment request containing amount, bankCode etc.
      * @param servletRequest HTTP request for getting IP address
      * @return PaymentResponse containing the payment URL and status
      */
     public PaymentResponse createPayment(PaymentRequest request, HttpServletRequest servletRequest) {
+        String vnp_IpAddr = vnPayConfig.getIpAddress(servletRequest);
+        String paymentUrl = paymentSessionCache.getOrCreate(request.getOrderId(),
+                PaymentSessionCache.fingerprint(request.getAmount(), request.getBankCode(), request.getLanguage()),
+                () -> buildPaymentUrl(request, vnp_IpAddr));
+
+        return PaymentResponse.builder()
+                .code("00")
+                .message("success")
+                .paymentUrl(paymentUrl)
+                .ipAddress(vnp_IpAddr)
+                .build();
+    }
+
+    /**
+     * Builds and signs a new payment URL, valid for 15 minutes, and stores its
+     * create date on the order's pending transaction for later querydr calls
+     */
+    private String buildPaymentUrl(PaymentRequest request, String vnp_IpAddr) {
         String vnp_Version = "2.1.0";
         String vnp_Command = "pay";
         String orderType = "other";
@@ -55,11 +90,10 @@ public class VNPayPaymentService implements IPaymentService {
         String bankCode = request.getBankCode();
 
         String vnp_TxnRef = request.getOrderId();
-        String vnp_IpAddr = vnPayConfig.getIpAddress(servletRequest);
         String vnp_TmnCode = vnPayConfig.getTmnCode();
 
-        LinkedHashMap<String, String> vnp_Params = new LinkedHashMap<>();
-        // Add parameters in exact order as example
+        // Sorted map so the canonical string is built without another sort
+        TreeMap<String, String> vnp_Params = new TreeMap<>();
         vnp_Params.put("vnp_Version", vnp_Version);
         vnp_Params.put("vnp_Command", vnp_Command);
         vnp_Params.put("vnp_TmnCode", vnp_TmnCode);
@@ -98,21 +132,17 @@ public class VNPayPaymentService implements IPaymentService {
         vnp_Params.values().removeIf(value -> value == null || value.trim().isEmpty());
 
         String query = generatePaymentQuery(vnp_Params);
-        String paymentUrl = vnPayConfig.getPayUrl() + "?" + query;
-
-        return PaymentResponse.builder()
-                .code("00")
-                .message("success")
-                .paymentUrl(paymentUrl)
-                .ipAddress(vnp_IpAddr)
-                .build();
+        if (vnp_TxnRef != null && vnp_TxnRef.matches("\\d+")) {
+            paymentTransactionService.recordGatewayCreateDate(Long.valueOf(vnp_TxnRef), vnp_CreateDate);
+        }
+        return vnPayConfig.getPayUrl() + "?" + query;
     }
 
     /**
      * Queries the status of a VNPAY transaction
      *
      * @param request        Query request containing orderId and transaction date
-     * @param servletRequest HTTP request for getting IP address
+     * @param servletRequest HTTP request for getting IP address, or null for background queries
      * @return QueryResponse containing transaction details and status
      */
     public QueryResponse queryTransaction(QueryRequest request, HttpServletRequest servletRequest) {
@@ -127,7 +157,8 @@ public class VNPayPaymentService implements IPaymentService {
         Calendar cld = Calendar.getInstance(TimeZone.getTimeZone("Etc/GMT+7"));
         SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMddHHmmss");
         String vnp_CreateDate = formatter.format(cld.getTime());
-        String vnp_IpAddr = vnPayConfig.getIpAddress(servletRequest);
+        String vnp_IpAddr = servletRequest != null
+                ? vnPayConfig.getIpAddress(servletRequest) : SERVER_IP_ADDRESS;
 
         Map<String, String> vnp_Params = new HashMap<>();
         vnp_Params.put("vnp_RequestId", vnp_RequestId);
@@ -199,14 +230,16 @@ public class VNPayPaymentService implements IPaymentService {
 
     /**
      * Handles Instant Payment Notification (IPN) from VNPAY
-     * Validates the signature and processes the payment status update
+     * Validates the signature in constant time and durably queues the notification;
+     * replays and retries are recognised without a database write where possible
+     * and the order is updated asynchronously
      *
      * @param params Map of parameters received from VNPAY's IPN request
      * @return IPNResponse indicating the processing result
      */
     public IPNResponse handleIpnRequest(Map<String, String> params) {
         try {
-            Map<String, String> fields = new HashMap<>(params);
+            Map<String, String> fields = new TreeMap<>(params);
             String vnp_SecureHash = fields.get("vnp_SecureHash");
 
             if (vnp_SecureHash == null) {
@@ -223,53 +256,85 @@ public class VNPayPaymentService implements IPaymentService {
                 return new IPNResponse(IPNResponse.INVALID_SIGNATURE, "Missing required fields");
             }
 
-            // Generate secure hash from remaining fields
-            String secureHash = vnPayConfig.hashAllFields(fields);
-
-            // Validate signature
-            if (!vnp_SecureHash.equals(secureHash)) {
+            // Validate signature against the remaining fields
+            if (!vnPayConfig.verifySignature(fields, vnp_SecureHash)) {
                 return new IPNResponse(IPNResponse.INVALID_SIGNATURE, "Invalid signature");
             }
 
-            // Process payment result
-            String vnp_ResponseCode = fields.get("vnp_ResponseCode");
+            PaymentNotification notification = toPaymentNotification(fields);
+            if (notification == null) {
+                return new IPNResponse(IPNResponse.ORDER_NOT_FOUND, "Order not found");
+            }
 
-            if ("00".equals(vnp_ResponseCode)) {
-                // Payment successful
-                // TODO: Update order status
-                return new IPNResponse(IPNResponse.SUCCESS, "Confirmed payment success");
-            } else {
-                // Payment failed
-                return new IPNResponse(IPNResponse.ORDER_NOT_FOUND, "Payment failed with code: " + vnp_ResponseCode);
+            // Acknowledge once the notification is stored; the order is updated asynchronously
+            if (!record(notification, replayKey(fields, vnp_SecureHash))) {
+                return new IPNResponse(IPNResponse.ORDER_ALREADY_CONFIRMED, "Notification already received");
             }
+            return new IPNResponse(IPNResponse.SUCCESS, "Confirm Success");
 
         } catch (Exception e) {
-            // Log the error
-            e.printStackTrace();
+            log.error("Error handling VNPay IPN request", e);
             return new IPNResponse(IPNResponse.UNKNOWN_ERROR, "Internal server error");
         }
     }
 
-    @Override
-    public String generateSecureHash(Map<String, String> params) {
-        // Sort parameters by key
-        List<String> fieldNames = new ArrayList<>(params.keySet());
-        Collections.sort(fieldNames);
-
-        // Create hash data
-        StringBuilder hashData = new StringBuilder();
-        for (String fieldName : fieldNames) {
-            String fieldValue = params.get(fieldName);
-            if (fieldValue != null && !fieldValue.isEmpty()) {
-                if (hashData.length() > 0) {
-                    hashData.append('&');
-                }
-                hashData.append(fieldName).append('=').append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
-            }
+    /**
+     * Store a verified payment result once. Replayed callbacks and results
+     * already received through the other channel are answered without
+     * touching the database; anything else is recognised by transaction number.
+     *
+     * @return true if the result is new, false if it was already received
+     */
+    private boolean record(PaymentNotification notification, String replayKey) {
+        if (callbackReplayCache.isReplay(replayKey)
+                || paymentNotificationService.isRecentlySeen(notification.getTransactionNo())) {
+            return false;
+        }
+        boolean recorded;
+        try {
+            recorded = paymentNotificationService.enqueue(notification);
+        } catch (DataIntegrityViolationException e) {
+            // Lost an insert race with a concurrent retry of the same result
+            recorded = false;
         }
+        // The gateway session is used up once it reported a result
+        paymentSessionCache.evict(String.valueOf(notification.getOrderId()));
+        // Only remembered once stored, so a callback that failed to record is processed on retry
+        callbackReplayCache.remember(replayKey);
+        return recorded;
+    }
+
+    private static String replayKey(Map<String, String> fields, String secureHash) {
+        return CallbackReplayCache.key(fields.get("vnp_TxnRef"), fields.get("vnp_TransactionNo"), secureHash);
+    }
 
-        return vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(), hashData.toString());
+    /**
+     * Map verified IPN or return fields to a payment notification
+     *
+     * @return the notification, or null if the order reference is not an order ID
+     */
+    private PaymentNotification toPaymentNotification(Map<String, String> fields) {
+        PaymentNotification notification = new PaymentNotification();
+        try {
+            notification.setOrderId(Long.parseLong(fields.get("vnp_TxnRef")));
+            notification.setAmount(Long.parseLong(fields.get("vnp_Amount")));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        // VNPay only numbers completed payments; key unnumbered results by order so they do not collide
+        String transactionNo = fields.get("vnp_TransactionNo");
+        notification.setTransactionNo(transactionNo == null || "0".equals(transactionNo)
+            ? "0-" + notification.getOrderId() : transactionNo);
+        notification.setResponseCode(fields.get("vnp_ResponseCode"));
+        notification.setTransactionStatus(fields.get("vnp_TransactionStatus"));
+        notification.setBankCode(fields.get("vnp_BankCode"));
+        notification.setPayDate(fields.get("vnp_PayDate"));
+        return notification;
+    }
 
+    @Override
+    public String generateSecureHash(Map<String, String> params) {
+        return vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(), VNPayCanonicalizer.hashData(params));
     }
 
     @Override
@@ -278,15 +343,14 @@ public class VNPayPaymentService implements IPaymentService {
         
         try {
             // Extract VNPay specific parameters
-            Map<String, String> fields = new HashMap<>(params);
+            Map<String, String> fields = new TreeMap<>(params);
             String secureHash = fields.get("vnp_SecureHash");
             fields.remove("vnp_SecureHashType");
             fields.remove("vnp_SecureHash");
             
             // Validate hash
-            boolean validHash = generateSecureHash(fields).equals(secureHash);
+            boolean validHash = vnPayConfig.verifySignature(fields, secureHash);
             response.setValidHash(validHash);
-            System.out.println("Valid hash: " + validHash);
             // Extract payment information
             String txnRef = fields.get("vnp_TxnRef");
             String responseCode = fields.get("vnp_ResponseCode");
@@ -319,6 +383,11 @@ public class VNPayPaymentService implements IPaymentService {
             boolean isSuccess = validHash && "00".equals(responseCode) && txnRef != null;
             response.setSuccess(isSuccess);
             
+            // Record the result durably; the order is updated in the background
+            if (validHash && responseCode != null) {
+                recordReturn(fields, secureHash);
+            }
+            
             // Set status message
             if (isSuccess) {
                 response.setTransactionStatus("SUCCESS");
@@ -339,6 +408,22 @@ public class VNPayPaymentService implements IPaymentService {
         return response;
     }
 
+    /**
+     * Record a verified return. A failure here is not shown to the customer:
+     * the IPN or payment reconciliation records the result instead.
+     */
+    private void recordReturn(Map<String, String> fields, String secureHash) {
+        PaymentNotification notification = toPaymentNotification(fields);
+        if (notification == null) {
+            return;
+        }
+        try {
+            record(notification, replayKey(fields, secureHash));
+        } catch (RuntimeException e) {
+            log.warn("Could not record payment return for order {}", notification.getOrderId(), e);
+        }
+    }
+
     @Override
     public PaymentMethod getPaymentMethod() {
         return PaymentMethod.VNPAY;
@@ -346,61 +431,20 @@ public class VNPayPaymentService implements IPaymentService {
 
     /**
      * Generates the query string for payment URL
-     * Sorts parameters, URL encodes values, and generates signature according to
-     * VNPAY specs
+     * Sorts parameters, URL encodes values once for both the signed data and
+     * the query, and generates signature according to VNPAY specs
      *
      * @param vnp_Params Map of payment parameters
      * @return URL encoded query string with signature
      */
     private String generatePaymentQuery(Map<String, String> vnp_Params) {
-        try {
-            List<String> fieldNames = new ArrayList<>(vnp_Params.keySet());
-            Collections.sort(fieldNames);
-            StringBuilder hashData = new StringBuilder();
-            StringBuilder query = new StringBuilder();
-            Iterator<String> itr = fieldNames.iterator();
-
-            while (itr.hasNext()) {
-                String fieldName = itr.next();
-                String fieldValue = vnp_Params.get(fieldName);
-                if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                    // Build hash data - URL encode values
-                    hashData.append(fieldName);
-                    hashData.append('=');
-                    hashData.append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII.toString()));
-
-                    // Build query - URL encode both fieldName and value
-                    query.append(URLEncoder.encode(fieldName, StandardCharsets.US_ASCII.toString()));
-                    query.append('=');
-                    query.append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII.toString()));
-
-                    if (itr.hasNext()) {
-                        query.append('&');
-                        hashData.append('&');
-                    }
-                }
-            }
-
-            String queryUrl = query.toString();
-            String vnp_SecureHash = vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(), hashData.toString());
-            return queryUrl + "&vnp_SecureHash=" + vnp_SecureHash;
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-            return "";
-        }
+        VNPayCanonicalizer.Canonical canonical = VNPayCanonicalizer.canonicalize(vnp_Params);
+        String vnp_SecureHash = vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(), canonical.hashData());
+        return canonical.query() + "&vnp_SecureHash=" + vnp_SecureHash;
     }
 
     private <T> T callVnpayApi(Map<String, String> params, Class<T> responseType) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, String>> request = new HttpEntity<>(params, headers);
-
-        ResponseEntity<T> response = restTemplate.postForEntity(
-                vnPayConfig.getApiUrl(),
-                request,
-                responseType);
-
-        return response.getBody();
+        return vnPayApiClient.post(vnPayConfig.getApiUrl(), params, responseType);
     }
 
 }
\ No newline at end of file
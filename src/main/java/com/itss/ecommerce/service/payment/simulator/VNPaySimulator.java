@@ -0,0 +1,295 @@
+package com.itss.ecommerce.service.payment.simulator;
+
+import com.itss.ecommerce.config.VNPayCanonicalizer;
+import com.itss.ecommerce.config.VNPayConfig;
+import com.itss.ecommerce.dto.payment.response.QueryResponse;
+import com.itss.ecommerce.dto.payment.response.RefundResponse;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the VNPay gateway, active with the {@code vnpay-sim}
+ * profile. Authorises signed payment requests, signs return and IPN callbacks
+ * with VNPayConfig and answers query and refund commands. Latency and
+ * failure ratios are configurable so checkout can be load-tested offline.
+ */
+@Component
+@Profile("vnpay-sim")
+@Slf4j
+public class VNPaySimulator {
+
+    public static final String RESPONSE_SUCCESS = "00";
+    public static final String RESPONSE_CANCELLED = "24";
+    public static final String RESPONSE_NOT_FOUND = "91";
+    public static final String RESPONSE_DUPLICATE = "94";
+    public static final String RESPONSE_INVALID_SIGNATURE = "97";
+
+    private static final DateTimeFormatter VNPAY_DATE = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final ZoneId VNPAY_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private final VNPayConfig vnPayConfig;
+    private final long latencyMs;
+    private final double paymentFailureRatio;
+    private final double apiErrorRatio;
+    private final String ipnUrl;
+    private final long ipnDelayMs;
+    private final double ipnFailureRatio;
+
+    private final Map<String, SimulatedTransaction> transactions = new ConcurrentHashMap<>();
+    // Seeded from the clock so numbers stay unique across restarts (notifications are deduplicated by them)
+    private final AtomicLong transactionNumbers = new AtomicLong(System.currentTimeMillis());
+    private final HttpClient ipnClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(2))
+        .build();
+
+    /**
+     * A payment the simulator has authorised or declined
+     */
+    public record SimulatedTransaction(String txnRef, String transactionNo, String amount, String bankCode,
+                                       String responseCode, String payDate, boolean refunded) {
+    }
+
+    public VNPaySimulator(VNPayConfig vnPayConfig,
+                          @Value("${vnpay.simulator.latency-ms:0}") long latencyMs,
+                          @Value("${vnpay.simulator.payment-failure-ratio:0}") double paymentFailureRatio,
+                          @Value("${vnpay.simulator.api-error-ratio:0}") double apiErrorRatio,
+                          @Value("${vnpay.simulator.ipn-url:}") String ipnUrl,
+                          @Value("${vnpay.simulator.ipn-delay-ms:0}") long ipnDelayMs,
+                          @Value("${vnpay.simulator.ipn-failure-ratio:0}") double ipnFailureRatio) {
+        this.vnPayConfig = vnPayConfig;
+        this.latencyMs = latencyMs;
+        this.paymentFailureRatio = paymentFailureRatio;
+        this.apiErrorRatio = apiErrorRatio;
+        this.ipnUrl = ipnUrl;
+        this.ipnDelayMs = ipnDelayMs;
+        this.ipnFailureRatio = ipnFailureRatio;
+    }
+
+    /**
+     * Authorise a payment request as received on the pay URL and return the
+     * signed callback parameters, or empty if the request signature is invalid
+     */
+    public Optional<Map<String, String>> authorize(Map<String, String> payParams) {
+        simulateLatency();
+
+        Map<String, String> fields = new TreeMap<>(payParams);
+        String secureHash = fields.remove("vnp_SecureHash");
+        fields.remove("vnp_SecureHashType");
+        if (!vnPayConfig.verifySignature(fields, secureHash)) {
+            log.warn("Simulator rejected payment {} with an invalid signature", fields.get("vnp_TxnRef"));
+            return Optional.empty();
+        }
+
+        String txnRef = fields.get("vnp_TxnRef");
+        String responseCode = roll(paymentFailureRatio) ? RESPONSE_CANCELLED : RESPONSE_SUCCESS;
+        // Like VNPay, only completed payments get a transaction number
+        String transactionNo = responseCode.equals(RESPONSE_SUCCESS)
+            ? String.valueOf(transactionNumbers.incrementAndGet()) : "0";
+        SimulatedTransaction transaction = new SimulatedTransaction(txnRef, transactionNo, fields.get("vnp_Amount"),
+            fields.getOrDefault("vnp_BankCode", "NCB"), responseCode, now(), false);
+        transactions.put(txnRef, transaction);
+
+        Map<String, String> callback = new TreeMap<>();
+        callback.put("vnp_Amount", transaction.amount());
+        callback.put("vnp_BankCode", transaction.bankCode());
+        callback.put("vnp_CardType", "ATM");
+        callback.put("vnp_OrderInfo", fields.get("vnp_OrderInfo"));
+        callback.put("vnp_PayDate", transaction.payDate());
+        callback.put("vnp_ResponseCode", responseCode);
+        callback.put("vnp_TmnCode", fields.get("vnp_TmnCode"));
+        callback.put("vnp_TransactionNo", transaction.transactionNo());
+        callback.put("vnp_TransactionStatus", responseCode.equals(RESPONSE_SUCCESS) ? "00" : "02");
+        callback.put("vnp_TxnRef", txnRef);
+        callback.values().removeIf(value -> value == null || value.isEmpty());
+        callback.put("vnp_SecureHash", vnPayConfig.hashAllFields(callback));
+        return Optional.of(callback);
+    }
+
+    /**
+     * Append signed callback parameters to a return or IPN URL
+     */
+    public static String callbackUrl(String baseUrl, Map<String, String> callback) {
+        Map<String, String> fields = new TreeMap<>(callback);
+        String secureHash = fields.remove("vnp_SecureHash");
+        String query = VNPayCanonicalizer.canonicalize(fields).query() + "&vnp_SecureHash=" + secureHash;
+        return baseUrl + (baseUrl.contains("?") ? "&" : "?") + query;
+    }
+
+    /**
+     * Send the IPN for an authorised payment after the configured delay,
+     * dropping it at the configured failure ratio
+     */
+    public void sendIpn(Map<String, String> callback) {
+        if (ipnUrl == null || ipnUrl.isBlank()) {
+            return;
+        }
+        if (roll(ipnFailureRatio)) {
+            log.debug("Simulator dropped IPN for {}", callback.get("vnp_TxnRef"));
+            return;
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(callbackUrl(ipnUrl, callback)))
+            .timeout(Duration.ofSeconds(5))
+            .GET()
+            .build();
+        CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(ipnDelayMs, TimeUnit.MILLISECONDS))
+            .thenCompose(ignored -> ipnClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+            .whenComplete((response, error) -> {
+                if (error != null) {
+                    log.warn("Simulator IPN for {} failed: {}", callback.get("vnp_TxnRef"), error.getMessage());
+                } else {
+                    log.debug("Simulator IPN for {} answered {}", callback.get("vnp_TxnRef"), response.body());
+                }
+            });
+    }
+
+    /**
+     * Answer a querydr command
+     */
+    public QueryResponse query(String txnRef) {
+        simulateLatency();
+
+        QueryResponse response = new QueryResponse();
+        response.setVnp_ResponseId(vnPayConfig.getRandomNumber(8));
+        response.setVnp_Command("querydr");
+        response.setVnp_TxnRef(txnRef);
+
+        SimulatedTransaction transaction = txnRef != null ? transactions.get(txnRef) : null;
+        if (transaction == null) {
+            response.setVnp_ResponseCode(RESPONSE_NOT_FOUND);
+            response.setVnp_Message("Transaction not found");
+            return response;
+        }
+        response.setVnp_ResponseCode(RESPONSE_SUCCESS);
+        response.setVnp_Message("QueryDR Success");
+        response.setVnp_Amount(transaction.amount());
+        response.setVnp_TransactionNo(transaction.transactionNo());
+        response.setVnp_BankCode(transaction.bankCode());
+        response.setVnp_PayDate(transaction.payDate());
+        response.setVnp_TransactionType(transaction.refunded() ? "02" : "01");
+        response.setVnp_TransactionStatus(transactionStatus(transaction));
+        return response;
+    }
+
+    /**
+     * Answer a refund command; only successful, not yet refunded payments can be refunded
+     */
+    public RefundResponse refund(String txnRef, String amount, String transactionType) {
+        simulateLatency();
+
+        RefundResponse response = new RefundResponse();
+        response.setVnp_ResponseId(vnPayConfig.getRandomNumber(8));
+        response.setVnp_Command("refund");
+        response.setVnp_TxnRef(txnRef);
+        response.setVnp_Amount(amount);
+        response.setVnp_TransactionType(transactionType);
+
+        SimulatedTransaction transaction = txnRef != null ? transactions.get(txnRef) : null;
+        if (transaction == null || !RESPONSE_SUCCESS.equals(transaction.responseCode())) {
+            response.setVnp_ResponseCode(RESPONSE_NOT_FOUND);
+            response.setVnp_Message("Transaction not found or not paid");
+            return response;
+        }
+        SimulatedTransaction refunded = new SimulatedTransaction(transaction.txnRef(), transaction.transactionNo(),
+            transaction.amount(), transaction.bankCode(), transaction.responseCode(), transaction.payDate(), true);
+        // Already refunded, or a concurrent refund replaced the record first
+        if (transaction.refunded() || !transactions.replace(txnRef, transaction, refunded)) {
+            response.setVnp_ResponseCode(RESPONSE_DUPLICATE);
+            response.setVnp_Message("Transaction already refunded");
+            return response;
+        }
+
+        response.setVnp_ResponseCode(RESPONSE_SUCCESS);
+        response.setVnp_Message("Refund success");
+        response.setVnp_TransactionNo(transaction.transactionNo());
+        response.setVnp_BankCode(transaction.bankCode());
+        response.setVnp_PayDate(now());
+        response.setVnp_TransactionStatus("05");
+        return response;
+    }
+
+    /**
+     * Verify the pipe-joined signature of a querydr or refund request
+     */
+    public boolean verifyApiRequest(Map<String, String> params) {
+        String[] fieldOrder = switch (String.valueOf(params.get("vnp_Command"))) {
+            case "querydr" -> new String[]{"vnp_RequestId", "vnp_Version", "vnp_Command", "vnp_TmnCode",
+                "vnp_TxnRef", "vnp_TransactionDate", "vnp_CreateDate", "vnp_IpAddr", "vnp_OrderInfo"};
+            case "refund" -> new String[]{"vnp_RequestId", "vnp_Version", "vnp_Command", "vnp_TmnCode",
+                "vnp_TransactionType", "vnp_TxnRef", "vnp_Amount", "vnp_TransactionNo", "vnp_TransactionDate",
+                "vnp_CreateBy", "vnp_CreateDate", "vnp_IpAddr", "vnp_OrderInfo"};
+            default -> null;
+        };
+        String secureHash = params.get("vnp_SecureHash");
+        if (fieldOrder == null || secureHash == null) {
+            return false;
+        }
+
+        StringBuilder hashData = new StringBuilder();
+        for (String field : fieldOrder) {
+            if (!hashData.isEmpty()) {
+                hashData.append('|');
+            }
+            hashData.append(params.getOrDefault(field, ""));
+        }
+        return VNPayConfig.signatureMatches(
+            vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(), hashData.toString()), secureHash);
+    }
+
+    /**
+     * Check if an API call should fail with a server error, at the configured ratio
+     */
+    public boolean shouldFailApiCall() {
+        return roll(apiErrorRatio);
+    }
+
+    public Optional<SimulatedTransaction> findTransaction(String txnRef) {
+        return Optional.ofNullable(transactions.get(txnRef));
+    }
+
+    private static String transactionStatus(SimulatedTransaction transaction) {
+        if (transaction.refunded()) {
+            return "05";
+        }
+        return RESPONSE_SUCCESS.equals(transaction.responseCode()) ? "00" : "02";
+    }
+
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean roll(double ratio) {
+        return ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+    private static String now() {
+        return LocalDateTime.now(VNPAY_ZONE).format(VNPAY_DATE);
+    }
+}
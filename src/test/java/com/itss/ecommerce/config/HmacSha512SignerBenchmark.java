@@ -0,0 +1,74 @@
+package com.itss.ecommerce.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Signatures-per-second benchmark of the previous per-call HMAC-SHA512
+ * (Mac.getInstance, new key, String.format hex) vs the pooled signer.
+ * Run with: mvn test -Dtest=HmacSha512SignerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HmacSha512SignerBenchmark {
+
+    private static final String SECRET = "3RCPI4281FRSY2W6P3E9QD3JZJICJB5M";
+    private static final String DATA =
+        "vnp_Amount=10000000&vnp_Command=pay&vnp_CreateDate=20240101120000&vnp_CurrCode=VND" +
+        "&vnp_IpAddr=127.0.0.1&vnp_Locale=vn&vnp_OrderInfo=Thanh+toan+don+hang%3A42&vnp_OrderType=other" +
+        "&vnp_ReturnUrl=http%3A%2F%2Flocalhost%3A8080%2Fapi%2Fpayment%2Freturn&vnp_TmnCode=YFW5M6GN" +
+        "&vnp_TxnRef=42&vnp_Version=2.1.0";
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 200_000;
+
+    @Test
+    @DisplayName("Benchmark per-call HMAC-SHA512 against the pooled signer")
+    void benchmarkSigning() {
+        HmacSha512Signer signer = new HmacSha512Signer(SECRET);
+        assertThat(signer.sign(DATA)).isEqualTo(perCallHmacSha512(SECRET, DATA));
+
+        run("per-call Mac + String.format", data -> perCallHmacSha512(SECRET, data));
+        run("pooled Mac + hex table", signer::sign);
+    }
+
+    private void run(String label, UnaryOperator<String> sign) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += sign.apply(DATA).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += sign.apply(DATA).length();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        System.out.printf("%-30s %,12.0f signatures/s  %,8.0f ns/op  (sink %d)%n", label,
+            MEASURED_ITERATIONS * 1e9 / elapsedNanos, (double) elapsedNanos / MEASURED_ITERATIONS, sink);
+    }
+
+    /**
+     * The implementation VNPayConfig.hmacSHA512 used before the pooled signer
+     */
+    private static String perCallHmacSha512(String key, String data) {
+        try {
+            Mac hmac512 = Mac.getInstance("HmacSHA512");
+            hmac512.init(new SecretKeySpec(key.getBytes(), "HmacSHA512"));
+            byte[] result = hmac512.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(2 * result.length);
+            for (byte b : result) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (Exception ex) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.itss.ecommerce.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Golden-signature tests for HmacSha512Signer and VNPayConfig.hmacSHA512
+ */
+class HmacSha512SignerTest {
+
+    private static final String SANDBOX_SECRET = "3RCPI4281FRSY2W6P3E9QD3JZJICJB5M";
+
+    /**
+     * Sorted, URL-encoded payment request as built by VNPayPaymentService
+     */
+    private static final String PAYMENT_HASH_DATA =
+        "vnp_Amount=10000000&vnp_Command=pay&vnp_CreateDate=20240101120000&vnp_CurrCode=VND" +
+        "&vnp_IpAddr=127.0.0.1&vnp_Locale=vn&vnp_OrderInfo=Thanh+toan+don+hang%3A42&vnp_OrderType=other" +
+        "&vnp_ReturnUrl=http%3A%2F%2Flocalhost%3A8080%2Fapi%2Fpayment%2Freturn&vnp_TmnCode=YFW5M6GN" +
+        "&vnp_TxnRef=42&vnp_Version=2.1.0";
+
+    private static final String PAYMENT_SIGNATURE =
+        "2ddebe5c0e1f6af5b4531d54b04003d684d6a686d6ab312196ce6ec9d43b3364" +
+        "c58a19a6d8b7f88e8172fc295d9c4d433dc08cdf8df130fc969e19101845d867";
+
+    @Test
+    @DisplayName("Test signer matches the RFC 4231 HMAC-SHA512 vector")
+    void testRfc4231Vector() {
+        HmacSha512Signer signer = new HmacSha512Signer("Jefe");
+
+        assertThat(signer.sign("what do ya want for nothing?")).isEqualTo(
+            "164b7a7bfcf819e2e395fbe73b56e0a387bd64222e831fd610270cd7ea250554" +
+            "9758bf75c05a994a6d034f65f8f0e6fdcaeab1a34d4a6b4b636e070a38bce737");
+    }
+
+    @Test
+    @DisplayName("Test signer matches the golden VNPay payment signature")
+    void testVnpayPaymentVector() {
+        HmacSha512Signer signer = new HmacSha512Signer(SANDBOX_SECRET);
+
+        assertThat(signer.sign(PAYMENT_HASH_DATA)).isEqualTo(PAYMENT_SIGNATURE);
+        // Second call reuses the pooled Mac and must not carry state over
+        assertThat(signer.sign(PAYMENT_HASH_DATA)).isEqualTo(PAYMENT_SIGNATURE);
+    }
+
+    @Test
+    @DisplayName("Test signer encodes non-ASCII data as UTF-8")
+    void testUtf8Vector() {
+        HmacSha512Signer signer = new HmacSha512Signer(SANDBOX_SECRET);
+
+        assertThat(signer.sign("Thanh toán đơn hàng")).isEqualTo(
+            "b62c74f74f299096da2f19c9e38bee830a427f05dc5f2f42bf266f11dd5aa661" +
+            "9b67ccb1710a7ba62339cbe83624d28fe70b150301fc2529909c6b9fcad22072");
+    }
+
+    @Test
+    @DisplayName("Test concurrent signing with a small pool gives the same signature")
+    void testConcurrentSigning() throws Exception {
+        HmacSha512Signer signer = new HmacSha512Signer(SANDBOX_SECRET, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> signer.sign(PAYMENT_HASH_DATA)));
+            }
+            for (Future<String> future : futures) {
+                assertThat(future.get()).isEqualTo(PAYMENT_SIGNATURE);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test hex encoder pads and lowercases every byte")
+    void testToHex() {
+        assertThat(HmacSha512Signer.toHex(new byte[]{0x00, 0x0f, (byte) 0xa0, (byte) 0xff}))
+            .isEqualTo("000fa0ff");
+    }
+
+    @Test
+    @DisplayName("Test VNPayConfig signs with the pooled signer and follows key changes")
+    void testVnpayConfigSigning() {
+        VNPayConfig config = new VNPayConfig();
+
+        assertThat(config.hmacSHA512(SANDBOX_SECRET, PAYMENT_HASH_DATA)).isEqualTo(PAYMENT_SIGNATURE);
+        assertThat(config.hmacSHA512("Jefe", "what do ya want for nothing?")).startsWith("164b7a7bfcf819e2");
+        assertThat(config.hmacSHA512(SANDBOX_SECRET, PAYMENT_HASH_DATA)).isEqualTo(PAYMENT_SIGNATURE);
+    }
+
+    @Test
+    @DisplayName("Test VNPayConfig returns an empty signature for a missing or empty key")
+    void testVnpayConfigInvalidKey() {
+        VNPayConfig config = new VNPayConfig();
+
+        assertThat(config.hmacSHA512(null, PAYMENT_HASH_DATA)).isEmpty();
+        assertThat(config.hmacSHA512("", PAYMENT_HASH_DATA)).isEmpty();
+    }
+}
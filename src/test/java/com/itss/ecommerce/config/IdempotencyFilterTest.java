@@ -0,0 +1,219 @@
+package com.itss.ecommerce.config;
+
+import com.itss.ecommerce.entity.IdempotencyRecord;
+import com.itss.ecommerce.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdempotencyFilter backed by an in-memory record store
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyFilterTest {
+
+    private static final String ORDER_BODY = "{\"cartItems\":[{\"productId\":1,\"quantity\":1}]}";
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    private IdempotencyFilter idempotencyFilter;
+    private Map<String, IdempotencyRecord> records;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyFilter = new IdempotencyFilter(idempotencyService, Jackson2ObjectMapperBuilder.json().build(), 5000);
+        records = new ConcurrentHashMap<>();
+        executions = new AtomicInteger();
+
+        when(idempotencyService.tryClaim(anyString(), anyString())).thenAnswer(invocation -> {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setIdempotencyKey(invocation.getArgument(0));
+            record.setRequestHash(invocation.getArgument(1));
+            record.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+            record.setClaimToken(UUID.randomUUID().toString());
+            record.setCreatedAt(LocalDateTime.now());
+            record.setExpiresAt(LocalDateTime.now().plusHours(1));
+            return records.putIfAbsent(record.getIdempotencyKey(), record) == null
+                ? Optional.of(record.getClaimToken()) : Optional.empty();
+        });
+        when(idempotencyService.findActive(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(records.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> {
+            IdempotencyRecord record = records.get(invocation.<String>getArgument(0));
+            if (record != null && record.getClaimToken().equals(invocation.getArgument(1))) {
+                record.setStatus(IdempotencyRecord.Status.COMPLETED);
+                record.setResponseStatus(invocation.getArgument(2));
+                record.setContentType(invocation.getArgument(3));
+                record.setResponseBody(invocation.getArgument(4));
+            }
+            return null;
+        }).when(idempotencyService).complete(anyString(), anyString(), anyInt(), any(), any());
+        doAnswer(invocation -> records.computeIfPresent(invocation.getArgument(0), (key, record) ->
+                record.getClaimToken().equals(invocation.getArgument(1)) ? null : record))
+            .when(idempotencyService).release(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Test retry with same key replays the stored response without re-executing")
+    void testReplayStoredResponse() throws Exception {
+        MockHttpServletResponse first = send("key-1", ORDER_BODY, createdChain());
+        MockHttpServletResponse retry = send("key-1", ORDER_BODY, createdChain());
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    @DisplayName("Test reusing a key with a different body is rejected")
+    void testKeyReuseWithDifferentBody() throws Exception {
+        send("key-2", ORDER_BODY, createdChain());
+        MockHttpServletResponse reused = send("key-2", "{\"cartItems\":[]}", createdChain());
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(reused.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    @DisplayName("Test server errors release the key so a retry executes again")
+    void testServerErrorReleasesKey() throws Exception {
+        FilterChain failingChain = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(500);
+        };
+
+        send("key-3", ORDER_BODY, failingChain);
+        MockHttpServletResponse retry = send("key-3", ORDER_BODY, createdChain());
+
+        assertThat(executions.get()).isEqualTo(2);
+        assertThat(retry.getStatus()).isEqualTo(201);
+    }
+
+    @Test
+    @DisplayName("Test concurrent duplicate waits for the in-flight request")
+    void testConcurrentDuplicateWaits() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        FilterChain slowChain = (request, response) -> {
+            firstStarted.countDown();
+            try {
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            createdChain().doFilter(request, response);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> send("key-4", ORDER_BODY, slowChain));
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<MockHttpServletResponse> duplicate = executor.submit(() -> send("key-4", ORDER_BODY, createdChain()));
+
+            Thread.sleep(100);
+            assertThat(duplicate.isDone()).isFalse();
+            releaseFirst.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(duplicate.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(duplicate.get().getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+            assertThat(executions.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test requests without a key are not intercepted")
+    void testNoKeyPassesThrough() throws Exception {
+        send(null, ORDER_BODY, createdChain());
+        send(null, ORDER_BODY, createdChain());
+
+        assertThat(executions.get()).isEqualTo(2);
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    @DisplayName("Test cached body can be read through a read listener")
+    void testCachedBodyReadListener() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContent(ORDER_BODY.getBytes(StandardCharsets.UTF_8));
+        ServletInputStream input = new IdempotencyFilter.CachedBodyRequest(request).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicInteger allDataRead = new AtomicInteger();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (input.isReady() && !input.isFinished()) {
+                    read.write(input.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail("Unexpected read error", t);
+            }
+        });
+
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(ORDER_BODY);
+        assertThat(allDataRead.get()).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.setContentType("application/json");
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private FilterChain createdChain() {
+        return (request, response) -> {
+            int orderId = executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            ((HttpServletResponse) response).setStatus(201);
+            response.setContentType("application/json");
+            response.getOutputStream().write(("{\"orderId\":" + orderId + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package com.itss.ecommerce.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Verifies that VNPayCanonicalizer produces the same hash data, query and
+ * signatures as the previous sort-and-encode implementations
+ */
+class VNPayCanonicalizerTest {
+
+    private static final String SECRET = "3RCPI4281FRSY2W6P3E9QD3JZJICJB5M";
+
+    private final HmacSha512Signer signer = new HmacSha512Signer(SECRET);
+
+    @Test
+    @DisplayName("Test payment query and signature match the previous implementation")
+    void testPaymentQueryMatchesLegacy() {
+        Map<String, String> params = paymentParams();
+
+        VNPayCanonicalizer.Canonical canonical = VNPayCanonicalizer.canonicalize(params);
+        String[] legacy = legacyPaymentQuery(params);
+
+        assertThat(canonical.hashData()).isEqualTo(legacy[0]);
+        assertThat(canonical.query()).isEqualTo(legacy[1]);
+        assertThat(signer.sign(canonical.hashData())).isEqualTo(signer.sign(legacy[0]));
+        assertThat(canonical.query()).contains("vnp_OrderInfo=Thanh+toan+don+hang%3A42")
+            .contains("vnp_ReturnUrl=http%3A%2F%2Flocalhost%3A8080%2Fapi%2Fpayment%2Freturn%3FpaymentMethod%3DVNPAY");
+    }
+
+    @Test
+    @DisplayName("Test hash data skips empty values and matches the previous implementation")
+    void testHashDataMatchesLegacy() {
+        Map<String, String> params = new HashMap<>(paymentParams());
+        params.put("vnp_BankCode", "");
+        params.put("vnp_CardType", null);
+        params.put("vnp_ZEmpty", "");
+
+        assertThat(VNPayCanonicalizer.hashData(params)).isEqualTo(legacySecureHashData(params));
+    }
+
+    @Test
+    @DisplayName("Test encoding of special and non-ASCII characters matches URLEncoder with US-ASCII")
+    void testEncodingMatchesUrlEncoder() {
+        List<String> values = List.of("a b+c", "x*y.z-_~", "!@#$%^&()=/:?;,'\"", "Thanh toán đơn hàng",
+            "emoji 😀 end", "lone \uD800 surrogate", "line\nbreak\ttab");
+
+        for (String value : values) {
+            Map<String, String> params = Map.of("vnp_OrderInfo", value);
+            assertThat(VNPayCanonicalizer.hashData(params))
+                .as(value)
+                .isEqualTo("vnp_OrderInfo=" + URLEncoder.encode(value, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    @DisplayName("Test randomized parameter sets match the previous implementation")
+    void testRandomizedParamsMatchLegacy() {
+        Random random = new Random(42);
+        String alphabet = "aZ09 -_.*~!@#%&+=/:?áđ😀";
+        for (int run = 0; run < 2000; run++) {
+            Map<String, String> params = new HashMap<>();
+            int fieldCount = 1 + random.nextInt(10);
+            for (int i = 0; i < fieldCount; i++) {
+                StringBuilder value = new StringBuilder();
+                for (int j = random.nextInt(16); j > 0; j--) {
+                    value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                params.put("vnp_Field" + random.nextInt(20), value.toString());
+            }
+
+            assertThat(VNPayCanonicalizer.hashData(params)).isEqualTo(legacySecureHashData(params));
+
+            params.values().removeIf(value -> value.trim().isEmpty());
+            VNPayCanonicalizer.Canonical canonical = VNPayCanonicalizer.canonicalize(params);
+            assertThat(new String[]{canonical.hashData(), canonical.query()})
+                .containsExactly(legacyPaymentQuery(params));
+        }
+    }
+
+    @Test
+    @DisplayName("Test VNPayConfig.hashAllFields signs the URL-encoded canonical form")
+    void testHashAllFieldsUsesEncodedValues() {
+        VNPayConfig config = new VNPayConfig();
+        config.setSecretKey(SECRET);
+        Map<String, String> params = paymentParams();
+
+        assertThat(config.hashAllFields(params)).isEqualTo(signer.sign(legacySecureHashData(params)));
+    }
+
+    private Map<String, String> paymentParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Version", "2.1.0");
+        params.put("vnp_Command", "pay");
+        params.put("vnp_TmnCode", "YFW5M6GN");
+        params.put("vnp_Amount", "10000000");
+        params.put("vnp_CurrCode", "VND");
+        params.put("vnp_BankCode", "VNBANK");
+        params.put("vnp_TxnRef", "42");
+        params.put("vnp_OrderInfo", "Thanh toan don hang:42");
+        params.put("vnp_OrderType", "other");
+        params.put("vnp_Locale", "vn");
+        params.put("vnp_ReturnUrl", "http://localhost:8080/api/payment/return?paymentMethod=VNPAY");
+        params.put("vnp_IpAddr", "127.0.0.1");
+        params.put("vnp_CreateDate", "20240101120000");
+        params.put("vnp_ExpireDate", "20240101121500");
+        return params;
+    }
+
+    /**
+     * Hash data as VNPayPaymentService.generateSecureHash built it before the canonicalizer
+     */
+    private static String legacySecureHashData(Map<String, String> params) {
+        List<String> fieldNames = new ArrayList<>(params.keySet());
+        Collections.sort(fieldNames);
+        StringBuilder hashData = new StringBuilder();
+        for (String fieldName : fieldNames) {
+            String fieldValue = params.get(fieldName);
+            if (fieldValue != null && !fieldValue.isEmpty()) {
+                if (hashData.length() > 0) {
+                    hashData.append('&');
+                }
+                hashData.append(fieldName).append('=').append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
+            }
+        }
+        return hashData.toString();
+    }
+
+    /**
+     * Hash data and query as VNPayPaymentService.generatePaymentQuery built them before the canonicalizer
+     */
+    private static String[] legacyPaymentQuery(Map<String, String> params) {
+        List<String> fieldNames = new ArrayList<>(params.keySet());
+        Collections.sort(fieldNames);
+        StringBuilder hashData = new StringBuilder();
+        StringBuilder query = new StringBuilder();
+        Iterator<String> itr = fieldNames.iterator();
+        while (itr.hasNext()) {
+            String fieldName = itr.next();
+            String fieldValue = params.get(fieldName);
+            if ((fieldValue != null) && (fieldValue.length() > 0)) {
+                hashData.append(fieldName).append('=').append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
+                query.append(URLEncoder.encode(fieldName, StandardCharsets.US_ASCII)).append('=')
+                    .append(URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
+                if (itr.hasNext()) {
+                    query.append('&');
+                    hashData.append('&');
+                }
+            }
+        }
+        return new String[]{hashData.toString(), query.toString()};
+    }
+}
@@ -0,0 +1,120 @@
+package com.itss.ecommerce.repository;
+
+import com.itss.ecommerce.entity.*;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Verifies that archiving moves an order with its lines, invoice and
+ * transactions out of the hot tables and that it can be read back by ID
+ */
+@DataJpaTest
+@Import(OrderArchiveRepository.class)
+@TestPropertySource(properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.sql.init.mode=never"
+})
+class OrderArchiveRepositoryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+
+    @BeforeEach
+    void setUp() {
+        orderArchiveRepository.createTablesIfMissing();
+    }
+
+    @Test
+    @DisplayName("Test archived order leaves the hot tables and is found in the archive")
+    void testMoveToArchive() {
+        Order order = createDeliveredOrder();
+        Long orderId = order.getOrderId();
+        Order otherOrder = createDeliveredOrder();
+        entityManager.flush();
+        entityManager.clear();
+
+        int archived = orderArchiveRepository.moveToArchive(List.of(orderId), LocalDateTime.now());
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(orderRepository.findById(orderId)).isEmpty();
+        assertThat(orderRepository.findById(otherOrder.getOrderId())).isPresent();
+
+        Order archivedOrder = orderArchiveRepository.findOrder(orderId).orElseThrow();
+        assertThat(archivedOrder.getStatus()).isEqualTo(Order.OrderStatus.DELIVERED);
+        assertThat(archivedOrder.getTotalAfterVat()).isEqualTo(order.getTotalAfterVat());
+        assertThat(archivedOrder.getDeliveryInformation().getDeliveryId())
+            .isEqualTo(order.getDeliveryInformation().getDeliveryId());
+        assertThat(orderArchiveRepository.findOrderItems(orderId)).hasSize(2)
+            .allSatisfy(item -> assertThat(item.productId()).isNotNull());
+
+        Invoice invoice = orderArchiveRepository.findInvoice(orderId).orElseThrow();
+        assertThat(orderArchiveRepository.findTransactions(invoice.getInvoiceId())).hasSize(1);
+        assertThat(orderArchiveRepository.findOrder(otherOrder.getOrderId())).isEmpty();
+    }
+
+    private Order createDeliveredOrder() {
+        Book book = newBook("Book A", "AR-A-" + System.nanoTime());
+        Book otherBook = newBook("Book B", "AR-B-" + System.nanoTime());
+        entityManager.persist(book);
+        entityManager.persist(otherBook);
+
+        DeliveryInformation delivery = new DeliveryInformation();
+        delivery.setName("Customer");
+        delivery.setPhone("0123456789");
+        delivery.setEmail("customer@example.com");
+        delivery.setProvince("Hanoi");
+        delivery.setDistrict("District 1");
+        delivery.setWard("Ward 1");
+        delivery.setAddress("1 Test Street");
+        entityManager.persist(delivery);
+
+        Order order = new Order();
+        order.setDeliveryInformation(delivery);
+        order.setStatus(Order.OrderStatus.DELIVERED);
+        for (Book product : List.of(book, otherBook)) {
+            OrderItem item = new OrderItem();
+            item.createOrderItem(product, 1);
+            order.addOrderItem(item);
+        }
+        entityManager.persist(order);
+
+        Invoice invoice = new Invoice();
+        invoice.createInvoice(order, "Order #" + order.getOrderId());
+        entityManager.persist(invoice);
+
+        PaymentTransaction transaction = new PaymentTransaction();
+        transaction.setAmount(order.getTotalAfterVat());
+        transaction.setPaymentMethod("VNPay");
+        invoice.addPaymentTransaction(transaction);
+        entityManager.persist(transaction);
+        return order;
+    }
+
+    private Book newBook(String title, String barcode) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(100000);
+        book.setQuantity(10);
+        book.setBarcode(barcode);
+        return book;
+    }
+}
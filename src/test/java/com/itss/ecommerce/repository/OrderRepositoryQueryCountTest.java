@@ -0,0 +1,145 @@
+package com.itss.ecommerce.repository;
+
+import com.itss.ecommerce.dto.OrderDTO;
+import com.itss.ecommerce.dto.mapper.OrderMapper;
+import com.itss.ecommerce.entity.*;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Verifies that mapping orders to DTOs costs a constant number of queries
+ * regardless of how many orders are listed
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.sql.init.mode=never",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderRepositoryQueryCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+    }
+
+    @Test
+    @DisplayName("Test listing orders uses constant query count")
+    void testListOrdersConstantQueryCount() {
+        createOrders(3);
+        long smallListQueries = countQueriesForListing(3);
+
+        createOrders(27);
+        long largeListQueries = countQueriesForListing(30);
+
+        assertThat(largeListQueries).isEqualTo(smallListQueries);
+    }
+
+    @Test
+    @DisplayName("Test order detail is loaded in a constant number of queries")
+    void testOrderDetailQueryCount() {
+        Long orderId = createOrders(1).get(0).getOrderId();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        OrderDTO dto = OrderMapper.toDTO(orderRepository.findWithDetailsById(orderId).orElseThrow());
+
+        assertThat(dto.getOrderItems()).hasSize(2);
+        assertThat(dto.getInvoice()).isNotNull();
+        // Order graph + payment transactions
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    private long countQueriesForListing(int expectedOrders) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OrderDTO> dtos = OrderMapper.toDTOList(orderRepository.findAllByOrderByCreatedAtDesc());
+
+        assertThat(dtos).hasSize(expectedOrders);
+        assertThat(dtos).allSatisfy(dto -> {
+            assertThat(dto.getDeliveryInfo()).isNotNull();
+            assertThat(dto.getOrderItems()).hasSize(2);
+            assertThat(dto.getOrderItems().get(0).getProduct()).isNotNull();
+            assertThat(dto.getInvoice()).isNotNull();
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Order> createOrders(int count) {
+        Book book = newBook("Book A", "QC-A-" + System.nanoTime());
+        Book otherBook = newBook("Book B", "QC-B-" + System.nanoTime());
+        entityManager.persist(book);
+        entityManager.persist(otherBook);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DeliveryInformation delivery = new DeliveryInformation();
+            delivery.setName("Customer " + i);
+            delivery.setPhone("0123456789");
+            delivery.setEmail("customer" + i + "@example.com");
+            delivery.setProvince("Hanoi");
+            delivery.setDistrict("District 1");
+            delivery.setWard("Ward 1");
+            delivery.setAddress("1 Test Street");
+            entityManager.persist(delivery);
+
+            Order order = new Order();
+            order.setDeliveryInformation(delivery);
+            for (Book product : List.of(book, otherBook)) {
+                OrderItem item = new OrderItem();
+                item.createOrderItem(product, 1);
+                order.addOrderItem(item);
+            }
+            entityManager.persist(order);
+
+            Invoice invoice = new Invoice();
+            invoice.createInvoice(order, "Order #" + order.getOrderId());
+            entityManager.persist(invoice);
+
+            PaymentTransaction transaction = new PaymentTransaction();
+            transaction.setAmount(order.getTotalAfterVat());
+            transaction.setPaymentMethod("VNPay");
+            invoice.addPaymentTransaction(transaction);
+            entityManager.persist(transaction);
+
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private Book newBook(String title, String barcode) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(100000);
+        book.setQuantity(10);
+        book.setBarcode(barcode);
+        return book;
+    }
+}
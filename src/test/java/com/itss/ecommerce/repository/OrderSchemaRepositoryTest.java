@@ -0,0 +1,82 @@
+package com.itss.ecommerce.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Verifies that the legacy unique constraint on order_items.delivery_id is
+ * removed from a SQLite database without losing rows or indexes
+ */
+class OrderSchemaRepositoryTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private OrderSchemaRepository orderSchemaRepository;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        orderSchemaRepository = new OrderSchemaRepository(jdbcTemplate);
+        jdbcTemplate.execute("CREATE TABLE delivery_information (delivery_id integer, name varchar(255), " +
+            "primary key (delivery_id))");
+        jdbcTemplate.execute("CREATE TABLE \"order_items\" (order_id integer, status varchar(255), " +
+            "total_after_vat integer not null, delivery_id bigint unique, primary key (order_id))");
+        jdbcTemplate.execute("CREATE INDEX idx_order_status ON order_items (status)");
+        jdbcTemplate.update("INSERT INTO delivery_information (delivery_id, name) VALUES (1, 'John Doe')");
+        jdbcTemplate.update("INSERT INTO order_items (order_id, status, total_after_vat, delivery_id) " +
+            "VALUES (10, 'PENDING', 110000, 1)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    @DisplayName("Test legacy unique delivery column is rebuilt so orders can share a delivery row")
+    void testDropUniqueDeliveryConstraint() {
+        assertThat(orderSchemaRepository.hasUniqueDeliveryIndex()).isTrue();
+        assertThatThrownBy(this::insertSecondOrder).isInstanceOf(DataAccessException.class);
+
+        boolean changed = orderSchemaRepository.dropUniqueDeliveryConstraint();
+
+        assertThat(changed).isTrue();
+        assertThat(orderSchemaRepository.hasUniqueDeliveryIndex()).isFalse();
+        insertSecondOrder();
+        assertThat(jdbcTemplate.queryForList("SELECT order_id FROM order_items WHERE delivery_id = 1 ORDER BY order_id",
+            Long.class)).containsExactly(10L, 11L);
+        assertThat(jdbcTemplate.queryForObject("SELECT total_after_vat FROM order_items WHERE order_id = 10",
+            Integer.class)).isEqualTo(110000);
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM sqlite_master WHERE type = 'index' " +
+            "AND tbl_name = 'order_items' AND sql IS NOT NULL", String.class)).containsExactly("idx_order_status");
+        assertThat(orderSchemaRepository.dropUniqueDeliveryConstraint()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test separate unique index on delivery column is dropped")
+    void testDropUniqueDeliveryIndex() {
+        jdbcTemplate.execute("CREATE TABLE plain_orders (order_id integer primary key, delivery_id bigint)");
+        jdbcTemplate.execute("DROP TABLE order_items");
+        jdbcTemplate.execute("ALTER TABLE plain_orders RENAME TO order_items");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX uk_order_delivery ON order_items (delivery_id)");
+
+        assertThat(orderSchemaRepository.hasUniqueDeliveryIndex()).isTrue();
+        assertThat(orderSchemaRepository.dropUniqueDeliveryConstraint()).isTrue();
+        assertThat(orderSchemaRepository.hasUniqueDeliveryIndex()).isFalse();
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM sqlite_master WHERE type = 'index' " +
+            "AND tbl_name = 'order_items'", String.class)).isEmpty();
+    }
+
+    private void insertSecondOrder() {
+        jdbcTemplate.update("INSERT INTO order_items (order_id, status, total_after_vat, delivery_id) " +
+            "VALUES (11, 'PENDING', 55000, 1)");
+    }
+}
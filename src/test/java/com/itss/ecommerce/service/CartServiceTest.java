@@ -3,6 +3,7 @@ package com.itss.ecommerce.service;
 import com.itss.ecommerce.entity.Product;
 import com.itss.ecommerce.dto.cart.CartCheckRequest;
 import com.itss.ecommerce.dto.cart.CartCheckResponse;
+import com.itss.ecommerce.dto.cart.ProductStock;
 import com.itss.ecommerce.entity.Book;
 import com.itss.ecommerce.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,7 +16,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -79,7 +79,7 @@ class CartServiceTest {
         CartCheckRequest request = new CartCheckRequest();
         request.setItems(Arrays.asList(cartItem));
         
-        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct1));
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct1)));
 
         // When - Act on the method under test
         CartCheckResponse response = cartService.checkQuantities(request);
@@ -89,7 +89,7 @@ class CartServiceTest {
         assertThat(response.isOk()).isTrue();
         assertThat(response.getInsufficient()).isEmpty();
         
-        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
     }
 
     @Test
@@ -106,7 +106,7 @@ class CartServiceTest {
         CartCheckRequest request = new CartCheckRequest();
         request.setItems(Arrays.asList(cartItem));
         
-        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct2));
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct2)));
 
         // When - Act on the method under test
         CartCheckResponse response = cartService.checkQuantities(request);
@@ -122,7 +122,7 @@ class CartServiceTest {
         assertThat(insufficient.getRequested()).isEqualTo(invalidQuantity);
         assertThat(insufficient.getAvailable()).isEqualTo(5);
         
-        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
     }
 
     @Test
@@ -139,7 +139,7 @@ class CartServiceTest {
         CartCheckRequest request = new CartCheckRequest();
         request.setItems(Arrays.asList(cartItem));
         
-        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct1));
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct1)));
 
         // When - Act on the method under test
         CartCheckResponse response = cartService.checkQuantities(request);
@@ -149,7 +149,7 @@ class CartServiceTest {
         assertThat(response.isOk()).isTrue();
         assertThat(response.getInsufficient()).isEmpty();
         
-        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
     }
 
     @Test
@@ -168,7 +168,7 @@ class CartServiceTest {
         assertThat(response.getInsufficient()).isEmpty();
         
         // No repository calls should be made for empty cart
-        verify(productRepository, never()).findById(any());
+        verify(productRepository, never()).findStockByProductIds(any());
     }
 
     @Test
@@ -186,8 +186,8 @@ class CartServiceTest {
         CartCheckRequest request = new CartCheckRequest();
         request.setItems(Arrays.asList(item1, item2));
         
-        when(productRepository.findById(1L)).thenReturn(Optional.of(sampleProduct1));
-        when(productRepository.findById(2L)).thenReturn(Optional.of(sampleProduct2));
+        when(productRepository.findStockByProductIds(anyCollection()))
+            .thenReturn(Arrays.asList(stockOf(sampleProduct1), stockOf(sampleProduct2)));
 
         // When - Act on the method under test
         CartCheckResponse response = cartService.checkQuantities(request);
@@ -201,8 +201,7 @@ class CartServiceTest {
         // Total: (2 × 100,000) + (1 × 50,000) = 250,000
         assertThat(calculatedTotal).isEqualTo(250000);
         
-        verify(productRepository, times(1)).findById(1L);
-        verify(productRepository, times(1)).findById(2L);
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
     }
 
     @Test
@@ -218,7 +217,7 @@ class CartServiceTest {
         CartCheckRequest request = new CartCheckRequest();
         request.setItems(Arrays.asList(cartItem));
         
-        when(productRepository.findById(1L)).thenReturn(Optional.of(sampleProduct1));
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct1)));
 
         // When - Act on the method under test
         CartCheckResponse response = cartService.checkQuantities(request);
@@ -229,7 +228,7 @@ class CartServiceTest {
         assertThat(response.isOk()).isTrue();
         assertThat(sessionValid).isTrue(); // Session should be valid
         
-        verify(productRepository, times(1)).findById(1L);
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
     }
 
     @Test
@@ -246,7 +245,7 @@ class CartServiceTest {
         CartCheckRequest request = new CartCheckRequest();
         request.setItems(Arrays.asList(cartItem));
         
-        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct2));
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct2)));
 
         // When - Act on the method under test
         CartCheckResponse response = cartService.checkQuantities(request);
@@ -257,7 +256,68 @@ class CartServiceTest {
         assertThat(response.isOk()).isFalse();
         assertThat(stockSufficient).isFalse(); // Stock should be insufficient
         
-        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Test duplicate cart lines are summed against stock")
+    void testDuplicateCartLinesAreSummed() {
+        // Given - two lines for the same product, each within stock but not together
+        CartCheckRequest.CartItem line1 = new CartCheckRequest.CartItem();
+        line1.setProductId(2L);
+        line1.setQuantity(3);
+
+        CartCheckRequest.CartItem line2 = new CartCheckRequest.CartItem();
+        line2.setProductId(2L);
+        line2.setQuantity(3);
+
+        CartCheckRequest request = new CartCheckRequest();
+        request.setItems(Arrays.asList(line1, line2));
+
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct2)));
+
+        // When
+        CartCheckResponse response = cartService.checkQuantities(request);
+
+        // Then - one entry for the product with the combined quantity
+        assertThat(response.isOk()).isFalse();
+        assertThat(response.getInsufficient()).hasSize(1);
+        assertThat(response.getInsufficient().get(0).getRequested()).isEqualTo(6);
+        assertThat(response.getInsufficient().get(0).getAvailable()).isEqualTo(5);
+
+        verify(productRepository, times(1)).findStockByProductIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Test unknown product is reported as insufficient")
+    void testUnknownProductReported() {
+        // Given
+        CartCheckRequest.CartItem known = new CartCheckRequest.CartItem();
+        known.setProductId(1L);
+        known.setQuantity(1);
+
+        CartCheckRequest.CartItem unknown = new CartCheckRequest.CartItem();
+        unknown.setProductId(99L);
+        unknown.setQuantity(1);
+
+        CartCheckRequest request = new CartCheckRequest();
+        request.setItems(Arrays.asList(known, unknown));
+
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(stockOf(sampleProduct1)));
+
+        // When
+        CartCheckResponse response = cartService.checkQuantities(request);
+
+        // Then
+        assertThat(response.isOk()).isFalse();
+        assertThat(response.getInsufficient()).hasSize(1);
+        assertThat(response.getInsufficient().get(0).getProductId()).isEqualTo(99L);
+        assertThat(response.getInsufficient().get(0).getTitle()).isEqualTo("Unknown");
+    }
+
+    // Helper method to build the stock projection for a product
+    private ProductStock stockOf(Product product) {
+        return new ProductStock(product.getProductId(), product.getTitle(), product.getQuantity());
     }
 
     // Helper method to calculate cart total
@@ -0,0 +1,119 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.CreateOrderRequest;
+import com.itss.ecommerce.entity.Book;
+import com.itss.ecommerce.entity.DeliveryInformation;
+import com.itss.ecommerce.repository.ProductRepository;
+import com.itss.ecommerce.service.admin.GroupCommitOrderWriter;
+import com.itss.ecommerce.service.admin.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Orders-per-second benchmark of per-request commits vs group commit on SQLite.
+ * Run with: mvn test -Dtest=GroupCommitOrderWriterBenchmark -Dbenchmark=true
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:sqlite:${java.io.tmpdir}/order-group-commit-benchmark.db",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.sql.init.mode=never",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+    "logging.level.com.itss.ecommerce=WARN",
+    "order.expiry.enabled=false"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GroupCommitOrderWriterBenchmark {
+
+    private static final int CALLERS = 16;
+    private static final int ORDERS = 2000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    @DisplayName("Benchmark orders per second with and without group commit")
+    void benchmarkOrdersPerSecond() throws Exception {
+        Long productId = createProduct();
+
+        run("per-request commit", productId,
+            (items, delivery) -> orderService.placeOrder(items, delivery));
+
+        GroupCommitOrderWriter writer = new GroupCommitOrderWriter(
+            orderService, new SimpleMeterRegistry(), true, 32, 2, ORDERS, 60000);
+        writer.start();
+        try {
+            run("group commit", productId, writer::placeOrder);
+        } finally {
+            writer.stop();
+        }
+    }
+
+    private void run(String mode, Long productId,
+                     BiConsumer<List<CreateOrderRequest.CartItemDTO>, DeliveryInformation> placeOrder) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>(ORDERS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            results.add(callers.submit(() -> {
+                try {
+                    placeOrder.accept(List.of(item(productId)), delivery());
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        callers.shutdown();
+
+        System.out.printf("%-20s %6d orders in %6.2fs = %8.1f orders/s (%d failed)%n",
+            mode, ORDERS - failures.get(), seconds, (ORDERS - failures.get()) / seconds, failures.get());
+    }
+
+    private Long createProduct() {
+        Book book = new Book();
+        book.setTitle("Benchmark Book");
+        book.setPrice(100000);
+        book.setQuantity(ORDERS * 4);
+        book.setBarcode("BENCH-" + System.nanoTime());
+        return productRepository.save(book).getProductId();
+    }
+
+    private CreateOrderRequest.CartItemDTO item(Long productId) {
+        CreateOrderRequest.CartItemDTO item = new CreateOrderRequest.CartItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        return item;
+    }
+
+    private DeliveryInformation delivery() {
+        DeliveryInformation delivery = new DeliveryInformation();
+        delivery.setName("Benchmark Customer");
+        delivery.setPhone("0123456789");
+        delivery.setEmail("benchmark@example.com");
+        delivery.setProvince("Hanoi");
+        delivery.setDistrict("District 1");
+        delivery.setWard("Ward 1");
+        delivery.setAddress("1 Benchmark Street");
+        return delivery;
+    }
+}
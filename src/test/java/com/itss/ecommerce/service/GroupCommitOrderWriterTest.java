@@ -0,0 +1,185 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.CreateOrderRequest;
+import com.itss.ecommerce.entity.DeliveryInformation;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.service.admin.GroupCommitOrderWriter;
+import com.itss.ecommerce.service.admin.OrderService;
+import com.itss.ecommerce.service.admin.OrderService.OrderPlacement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for GroupCommitOrderWriter
+ */
+@ExtendWith(MockitoExtension.class)
+class GroupCommitOrderWriterTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private GroupCommitOrderWriter writer;
+    private final AtomicLong nextOrderId = new AtomicLong(1);
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Test disabled writer places orders on the caller's thread")
+    void testDisabledDelegatesToOrderService() {
+        writer = newWriter(false);
+        Order order = new Order();
+        when(orderService.placeOrder(anyList(), any(DeliveryInformation.class))).thenReturn(order);
+
+        assertThat(writer.placeOrder(items(), new DeliveryInformation())).isSameAs(order);
+        verify(orderService, never()).placeOrders(anyList());
+    }
+
+    @Test
+    @DisplayName("Test concurrent orders are committed together and each caller gets its own order")
+    void testConcurrentOrdersShareCommits() throws Exception {
+        writer = newWriter(true);
+        CountDownLatch firstCommitStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstCommit = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<OrderPlacement> placements = invocation.getArgument(0);
+            batchSizes.add(placements.size());
+            if (batchSizes.size() == 1) {
+                firstCommitStarted.countDown();
+                releaseFirstCommit.await(5, TimeUnit.SECONDS);
+            }
+            placements.forEach(placement -> placement.setOrder(newOrder()));
+            return null;
+        }).when(orderService).placeOrders(anyList());
+
+        ExecutorService callers = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Order>> results = new ArrayList<>();
+            results.add(callers.submit(() -> writer.placeOrder(items(), new DeliveryInformation())));
+            assertThat(firstCommitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 9; i++) {
+                results.add(callers.submit(() -> writer.placeOrder(items(), new DeliveryInformation())));
+            }
+            Thread.sleep(200);
+            releaseFirstCommit.countDown();
+
+            List<Long> orderIds = new ArrayList<>();
+            for (Future<Order> result : results) {
+                orderIds.add(result.get(5, TimeUnit.SECONDS).getOrderId());
+            }
+            assertThat(orderIds).doesNotHaveDuplicates().hasSize(10);
+            assertThat(batchSizes).containsExactly(1, 9);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test rejected order fails only its own caller")
+    void testRejectedOrderFailsOnlyItsCaller() {
+        writer = newWriter(true);
+        doAnswer(invocation -> {
+            List<OrderPlacement> placements = invocation.getArgument(0);
+            placements.forEach(placement -> placement.setError(new IllegalStateException("Insufficient stock")));
+            return null;
+        }).when(orderService).placeOrders(anyList());
+
+        assertThatThrownBy(() -> writer.placeOrder(items(), new DeliveryInformation()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Insufficient stock");
+    }
+
+    @Test
+    @DisplayName("Test rolled back batch is retried one order at a time")
+    void testRolledBackBatchFallsBack() {
+        writer = newWriter(true);
+        DeliveryInformation deliveryInfo = new DeliveryInformation();
+        doAnswer(invocation -> {
+            deliveryInfo.setDeliveryId(99L);
+            throw new RuntimeException("database is locked");
+        }).when(orderService).placeOrders(anyList());
+        Order order = newOrder();
+        when(orderService.placeOrder(anyList(), same(deliveryInfo))).thenReturn(order);
+
+        assertThat(writer.placeOrder(items(), deliveryInfo)).isSameAs(order);
+        assertThat(deliveryInfo.getDeliveryId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Test timed out caller withdraws a queued order but waits for one already being written")
+    void testTimeoutWithdrawsOnlyQueuedOrders() throws Exception {
+        writer = newWriter(true, 200);
+        CountDownLatch firstCommitStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstCommit = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<OrderPlacement> placements = invocation.getArgument(0);
+            batchSizes.add(placements.size());
+            firstCommitStarted.countDown();
+            releaseFirstCommit.await(5, TimeUnit.SECONDS);
+            placements.forEach(placement -> placement.setOrder(newOrder()));
+            return null;
+        }).when(orderService).placeOrders(anyList());
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Order> written = callers.submit(() -> writer.placeOrder(items(), new DeliveryInformation()));
+            assertThat(firstCommitStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> writer.placeOrder(items(), new DeliveryInformation()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not placed");
+            assertThat(written.isDone()).isFalse();
+            releaseFirstCommit.countDown();
+
+            assertThat(written.get(5, TimeUnit.SECONDS).getOrderId()).isNotNull();
+            Thread.sleep(200);
+            assertThat(batchSizes).containsExactly(1);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private GroupCommitOrderWriter newWriter(boolean enabled) {
+        return newWriter(enabled, 5000);
+    }
+
+    private GroupCommitOrderWriter newWriter(boolean enabled, long timeoutMillis) {
+        GroupCommitOrderWriter groupCommitOrderWriter =
+            new GroupCommitOrderWriter(orderService, new SimpleMeterRegistry(), enabled, 32, 2, 100, timeoutMillis);
+        groupCommitOrderWriter.start();
+        return groupCommitOrderWriter;
+    }
+
+    private Order newOrder() {
+        Order order = new Order();
+        order.setOrderId(nextOrderId.getAndIncrement());
+        return order;
+    }
+
+    private List<CreateOrderRequest.CartItemDTO> items() {
+        CreateOrderRequest.CartItemDTO item = new CreateOrderRequest.CartItemDTO();
+        item.setProductId(1L);
+        item.setQuantity(1);
+        return List.of(item);
+    }
+}
@@ -0,0 +1,101 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdempotencyService claim leases and retention
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, 24, 300, 10000);
+    }
+
+    @Test
+    @DisplayName("Test new claim only holds a short lease")
+    void testClaimHoldsLease() {
+        when(idempotencyRecordRepository.insertInProgress(eq("key-1"), eq("hash"), anyString(), any(), any()))
+            .thenReturn(1);
+        LocalDateTime before = LocalDateTime.now();
+
+        assertThat(idempotencyService.tryClaim("key-1", "hash")).isPresent();
+
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(idempotencyRecordRepository).insertInProgress(eq("key-1"), eq("hash"), anyString(), any(),
+            expiresAt.capture());
+        assertThat(Duration.between(before, expiresAt.getValue())).isBetween(Duration.ofMinutes(5), Duration.ofMinutes(6));
+    }
+
+    @Test
+    @DisplayName("Test claim whose lease expired is taken over")
+    void testExpiredClaimTakenOver() {
+        when(idempotencyRecordRepository.takeOverExpired(eq("key-2"), eq("hash"), anyString(), any(), any()))
+            .thenReturn(1);
+
+        Optional<String> claimToken = idempotencyService.tryClaim("key-2", "hash");
+
+        assertThat(claimToken).isPresent();
+        verify(idempotencyRecordRepository).takeOverExpired(eq("key-2"), eq("hash"), eq(claimToken.get()), any(), any());
+        verify(idempotencyRecordRepository, never()).insertInProgress(anyString(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test a request whose claim was taken over cannot release the new holder's claim")
+    void testStaleClaimCannotRelease() {
+        when(idempotencyRecordRepository.insertInProgress(eq("key-5"), eq("hash"), anyString(), any(), any()))
+            .thenReturn(1);
+        when(idempotencyRecordRepository.takeOverExpired(eq("key-5"), eq("hash"), anyString(), any(), any()))
+            .thenReturn(0, 1);
+
+        String staleToken = idempotencyService.tryClaim("key-5", "hash").orElseThrow();
+        String currentToken = idempotencyService.tryClaim("key-5", "hash").orElseThrow();
+        idempotencyService.release("key-5", staleToken);
+
+        assertThat(currentToken).isNotEqualTo(staleToken);
+        verify(idempotencyRecordRepository).deleteInProgress("key-5", staleToken);
+        verify(idempotencyRecordRepository, never()).deleteInProgress("key-5", currentToken);
+    }
+
+    @Test
+    @DisplayName("Test live claim held by another request is not taken over")
+    void testLiveClaimNotTakenOver() {
+        assertThat(idempotencyService.tryClaim("key-3", "hash")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test completed response is kept for the full TTL")
+    void testCompleteKeepsResponseForTtl() {
+        when(idempotencyRecordRepository.complete(eq("key-4"), eq("token"), eq(201), anyString(), anyString(), any()))
+            .thenReturn(1);
+        LocalDateTime before = LocalDateTime.now();
+
+        idempotencyService.complete("key-4", "token", 201, "application/json", "{}");
+
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(idempotencyRecordRepository).complete(eq("key-4"), eq("token"), eq(201), anyString(), anyString(),
+            expiresAt.capture());
+        assertThat(Duration.between(before, expiresAt.getValue())).isBetween(Duration.ofHours(24), Duration.ofHours(25));
+    }
+}
@@ -0,0 +1,145 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.InvoiceRepository;
+import com.itss.ecommerce.repository.OrderRepository;
+import com.itss.ecommerce.repository.PaymentTransactionRepository;
+import com.itss.ecommerce.repository.ProductStockRepository;
+import com.itss.ecommerce.service.admin.OrderExpiryService;
+import com.itss.ecommerce.service.admin.OrderExpirySweeper;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
+import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OrderExpirySweeper and OrderExpiryService
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderExpirySweeperTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Mock
+    private ProductStockRepository productStockRepository;
+
+    @Mock
+    private OrderSummaryService orderSummaryService;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+
+    @Mock
+    private OrderExpiryService mockExpiryService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Test sweep pages through expired orders in chunks")
+    void testSweepPagesInChunks() {
+        OrderExpirySweeper sweeper = new OrderExpirySweeper(invoiceRepository, mockExpiryService, meterRegistry, true, 30, 2);
+        when(invoiceRepository.findExpiredPendingOrderIds(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(1L, 2L));
+        when(invoiceRepository.findExpiredPendingOrderIds(any(LocalDateTime.class), eq(2L), any(Pageable.class)))
+            .thenReturn(List.of(3L));
+        when(mockExpiryService.expireOrders(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(mockExpiryService.expireOrders(List.of(3L))).thenReturn(List.of(3L));
+
+        int cancelled = sweeper.sweep();
+
+        assertThat(cancelled).isEqualTo(3);
+        assertThat(meterRegistry.counter("orders.expiry.cancelled").count()).isEqualTo(3.0);
+        assertThat(meterRegistry.counter("orders.expiry.chunks").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.timer("orders.expiry.sweep").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test failed chunk is counted and sweep moves on to the next chunk")
+    void testSweepContinuesAfterFailedChunk() {
+        OrderExpirySweeper sweeper = new OrderExpirySweeper(invoiceRepository, mockExpiryService, meterRegistry, true, 30, 1);
+        when(invoiceRepository.findExpiredPendingOrderIds(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(1L));
+        when(invoiceRepository.findExpiredPendingOrderIds(any(LocalDateTime.class), eq(1L), any(Pageable.class)))
+            .thenReturn(List.of(2L));
+        when(invoiceRepository.findExpiredPendingOrderIds(any(LocalDateTime.class), eq(2L), any(Pageable.class)))
+            .thenReturn(List.of());
+        when(mockExpiryService.expireOrders(List.of(1L))).thenThrow(new RuntimeException("database is locked"));
+        when(mockExpiryService.expireOrders(List.of(2L))).thenReturn(List.of(2L));
+
+        int cancelled = sweeper.sweep();
+
+        assertThat(cancelled).isEqualTo(1);
+        assertThat(meterRegistry.counter("orders.expiry.chunk.failures").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Test expiring a chunk restocks before cancelling and skips orders no longer pending")
+    void testExpireOrdersChunk() {
+        OrderExpiryService expiryService = new OrderExpiryService(orderRepository, invoiceRepository,
+            paymentTransactionRepository, productStockRepository, orderSummaryService, auditLogService, outboxService,
+            productSnapshotCache);
+        when(orderRepository.findPendingWithHeldStock(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+        when(productStockRepository.restockOrders(List.of(1L, 3L))).thenReturn(List.of(7L, 8L));
+
+        List<Long> cancelled = expiryService.expireOrders(List.of(1L, 2L, 3L));
+
+        assertThat(cancelled).containsExactly(1L, 3L);
+        InOrder inOrder = inOrder(productStockRepository, orderRepository, invoiceRepository,
+            paymentTransactionRepository, orderSummaryService);
+        inOrder.verify(productStockRepository).restockOrders(List.of(1L, 3L));
+        inOrder.verify(orderRepository).cancelPendingOrders(eq(List.of(1L, 3L)), any(LocalDateTime.class));
+        inOrder.verify(invoiceRepository).cancelPendingByOrderIds(List.of(1L, 3L));
+        inOrder.verify(paymentTransactionRepository).cancelPendingByOrderIds(eq(List.of(1L, 3L)), any(LocalDateTime.class), anyString());
+        inOrder.verify(orderSummaryService).updateStatuses(List.of(1L, 3L), Order.OrderStatus.CANCELLED, Invoice.PaymentStatus.CANCELLED);
+        verify(outboxService).publishAll(eq(List.of(1L, 3L)), eq(OutboxEvent.EventType.ORDER_CANCELLED), anyMap());
+        verify(productSnapshotCache).evictAll(List.of(7L, 8L));
+    }
+
+    @Test
+    @DisplayName("Test expiring a chunk with no pending orders writes nothing")
+    void testExpireOrdersNothingPending() {
+        OrderExpiryService expiryService = new OrderExpiryService(orderRepository, invoiceRepository,
+            paymentTransactionRepository, productStockRepository, orderSummaryService, auditLogService, outboxService,
+            productSnapshotCache);
+        when(orderRepository.findPendingWithHeldStock(List.of(1L))).thenReturn(List.of());
+
+        assertThat(expiryService.expireOrders(List.of(1L))).isEmpty();
+        verifyNoInteractions(productStockRepository, invoiceRepository, paymentTransactionRepository,
+            orderSummaryService, outboxService);
+    }
+}
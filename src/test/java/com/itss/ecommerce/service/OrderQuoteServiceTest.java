@@ -0,0 +1,119 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.CreateOrderRequest;
+import com.itss.ecommerce.dto.OrderQuoteDTO;
+import com.itss.ecommerce.dto.cart.ProductPriceSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OrderQuoteService
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderQuoteServiceTest {
+
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+
+    @InjectMocks
+    private OrderQuoteService orderQuoteService;
+
+    @Test
+    @DisplayName("Test quote computes subtotal, VAT and regular delivery fee")
+    void testQuoteRegularCart() {
+        when(productSnapshotCache.getSnapshots(anyCollection())).thenReturn(Map.of(
+            1L, new ProductPriceSnapshot(1L, "Book A", 100000, 10, false),
+            2L, new ProductPriceSnapshot(2L, "Book B", 50000, 5, false)
+        ));
+
+        OrderQuoteDTO quote = orderQuoteService.quote(List.of(item(1L, 2, false), item(2L, 1, false)));
+
+        assertThat(quote.getSubtotal()).isEqualTo(250000);
+        assertThat(quote.getVatAmount()).isEqualTo(25000);
+        assertThat(quote.getDeliveryFee()).isEqualTo(OrderQuoteService.REGULAR_DELIVERY_FEE);
+        assertThat(quote.getRushSurcharge()).isZero();
+        assertThat(quote.getTotal()).isEqualTo(250000 + 25000 + OrderQuoteService.REGULAR_DELIVERY_FEE);
+        assertThat(quote.isAvailable()).isTrue();
+        assertThat(quote.getLines()).extracting(OrderQuoteDTO.LineQuote::getLineTotal)
+            .containsExactly(200000, 50000);
+    }
+
+    @Test
+    @DisplayName("Test VAT with a fractional part of half or more is floored, as on the checkout page")
+    void testQuoteVatIsFloored() {
+        when(productSnapshotCache.getSnapshots(anyCollection())).thenReturn(Map.of(
+            1L, new ProductPriceSnapshot(1L, "Book A", 12345, 10, false),
+            2L, new ProductPriceSnapshot(2L, "Book B", 99999, 10, false)
+        ));
+
+        OrderQuoteDTO half = orderQuoteService.quote(List.of(item(1L, 1, false)));
+        OrderQuoteDTO nineTenths = orderQuoteService.quote(List.of(item(2L, 1, false)));
+
+        // 1234.5 and 9999.9 VND
+        assertThat(half.getVatAmount()).isEqualTo(1234);
+        assertThat(half.getTotal()).isEqualTo(12345 + 1234 + OrderQuoteService.REGULAR_DELIVERY_FEE);
+        assertThat(nineTenths.getVatAmount()).isEqualTo(9999);
+    }
+
+    @Test
+    @DisplayName("Test rush surcharge only applies to products supporting rush delivery")
+    void testQuoteRushSurcharge() {
+        when(productSnapshotCache.getSnapshots(anyCollection())).thenReturn(Map.of(
+            1L, new ProductPriceSnapshot(1L, "Rush Book", 100000, 10, true),
+            2L, new ProductPriceSnapshot(2L, "Regular Book", 50000, 5, false)
+        ));
+
+        OrderQuoteDTO rushOnly = orderQuoteService.quote(List.of(item(1L, 1, true)));
+        OrderQuoteDTO mixed = orderQuoteService.quote(List.of(item(1L, 1, true), item(2L, 1, true)));
+
+        assertThat(rushOnly.getDeliveryFee()).isZero();
+        assertThat(rushOnly.getRushSurcharge()).isEqualTo(OrderQuoteService.RUSH_DELIVERY_FEE);
+        assertThat(mixed.getLines()).extracting(OrderQuoteDTO.LineQuote::isRushOrder)
+            .containsExactly(true, false);
+        assertThat(mixed.getDeliveryFee()).isEqualTo(OrderQuoteService.REGULAR_DELIVERY_FEE);
+        assertThat(mixed.getRushSurcharge()).isEqualTo(OrderQuoteService.RUSH_DELIVERY_FEE);
+    }
+
+    @Test
+    @DisplayName("Test quote flags lines exceeding stock across duplicate lines")
+    void testQuoteInsufficientStock() {
+        when(productSnapshotCache.getSnapshots(anyCollection())).thenReturn(Map.of(
+            1L, new ProductPriceSnapshot(1L, "Book A", 100000, 3, false)
+        ));
+
+        OrderQuoteDTO quote = orderQuoteService.quote(List.of(item(1L, 2, false), item(1L, 2, false)));
+
+        assertThat(quote.isAvailable()).isFalse();
+        assertThat(quote.getLines()).allSatisfy(line -> assertThat(line.isInStock()).isFalse());
+        verify(productSnapshotCache, times(1)).getSnapshots(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Test quote rejects unknown products")
+    void testQuoteUnknownProduct() {
+        when(productSnapshotCache.getSnapshots(anyCollection())).thenReturn(Map.of());
+
+        assertThatThrownBy(() -> orderQuoteService.quote(List.of(item(99L, 1, false))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("99");
+    }
+
+    private CreateOrderRequest.CartItemDTO item(Long productId, int quantity, boolean rush) {
+        CreateOrderRequest.CartItemDTO item = new CreateOrderRequest.CartItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setRushOrder(rush);
+        return item;
+    }
+}
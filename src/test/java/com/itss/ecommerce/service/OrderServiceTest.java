@@ -1,9 +1,17 @@
 package com.itss.ecommerce.service;
 
+import com.itss.ecommerce.dto.CursorPage;
+import com.itss.ecommerce.dto.OrderDTO;
+import com.itss.ecommerce.dto.OrderQueryFilter;
 import com.itss.ecommerce.entity.*;
 import com.itss.ecommerce.repository.*;
+import com.itss.ecommerce.service.admin.CustomerOrderHistoryCache;
+import com.itss.ecommerce.service.admin.DeliverySharingMigration;
+import com.itss.ecommerce.service.admin.OrderArchiveService;
 import com.itss.ecommerce.service.admin.OrderService;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
 import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +24,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -34,6 +43,9 @@ class OrderServiceTest {
     @Mock
     private ProductRepository productRepository;
     
+    @Mock
+    private ProductStockRepository productStockRepository;
+    
     @Mock
     private DeliveryInformationRepository deliveryRepository;
     
@@ -46,6 +58,24 @@ class OrderServiceTest {
     @Mock
     private PaymentTransactionRepository paymentTransactionRepository;
     
+    @Mock
+    private OrderSummaryService orderSummaryService;
+    
+    @Mock
+    private OutboxService outboxService;
+    
+    @Mock
+    private CustomerOrderHistoryCache customerOrderHistoryCache;
+    
+    @Mock
+    private OrderArchiveService orderArchiveService;
+    
+    @Mock
+    private DeliverySharingMigration deliverySharingMigration;
+    
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+    
     @InjectMocks
     private OrderService orderService;
     
@@ -134,6 +164,7 @@ class OrderServiceTest {
         
         verify(orderRepository).findById(orderId);
         verify(orderRepository).save(any(Order.class));
+        verify(orderSummaryService).updateStatus(orderId, newStatus);
         verify(auditLogService).logOrderAction(
             eq(orderId),
             isNull(),
@@ -142,6 +173,28 @@ class OrderServiceTest {
         );
     }
     
+    @Test
+    @DisplayName("Test order lookup falls through to the archive")
+    void testGetOrderByIdFallsThroughToArchive() {
+        sampleOrder.setStatus(Order.OrderStatus.DELIVERED);
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.empty());
+        when(orderArchiveService.findArchivedOrder(1L)).thenReturn(Optional.of(sampleOrder));
+        
+        Optional<Order> result = orderService.getOrderById(1L);
+        
+        assertThat(result).contains(sampleOrder);
+        verify(orderArchiveService).findArchivedOrder(1L);
+    }
+    
+    @Test
+    @DisplayName("Test order lookup does not query the archive for hot orders")
+    void testGetOrderByIdPrefersHotTable() {
+        when(orderRepository.findWithDetailsById(1L)).thenReturn(Optional.of(sampleOrder));
+        
+        assertThat(orderService.getOrderById(1L)).contains(sampleOrder);
+        verifyNoInteractions(orderArchiveService);
+    }
+    
     @Test
     @DisplayName("Test Order Confirmation Email Send - UT027")
     void testOrderConfirmationEmailSend() {
@@ -168,6 +221,7 @@ class OrderServiceTest {
             eq("Confirmed"),
             eq("Order confirmed")
         );
+        verify(outboxService).publish(eq(orderId), eq(OutboxEvent.EventType.ORDER_CONFIRMED), anyMap());
     }
     
     @Test
@@ -194,7 +248,10 @@ class OrderServiceTest {
         verify(deliveryRepository).save(deliveryInfo);
         verify(orderRepository).save(any(Order.class));
         verify(productRepository).save(sampleProduct);
+        verify(productSnapshotCache).evict(sampleProduct.getProductId());
         verify(invoiceRepository).save(any(Invoice.class));
+        verify(orderSummaryService).recordOrder(eq(sampleOrder), any(Invoice.class));
+        verify(outboxService).publish(eq(1L), eq(OutboxEvent.EventType.ORDER_CREATED), anyMap());
         verify(auditLogService).logOrderAction(
             eq(1L),
             isNull(),
@@ -203,6 +260,81 @@ class OrderServiceTest {
         );
     }
     
+    @Test
+    @DisplayName("Test order creation reuses the saved address with the same details")
+    void testOrderCreationReusesSavedAddress() {
+        DeliveryInformation savedAddress = new DeliveryInformation();
+        savedAddress.setDeliveryId(7L);
+        savedAddress.setDeliveryMessage(deliveryInfo.getDeliveryMessage());
+        savedAddress.setDeliveryFee(deliveryInfo.getDeliveryFee());
+        DeliveryInformation newRequest = new DeliveryInformation();
+        newRequest.setName("  john   DOE ");
+        newRequest.setPhone("012-345-6789");
+        newRequest.setEmail("John.Doe@example.com");
+        newRequest.setProvince("Ho Chi Minh City");
+        newRequest.setDistrict("District 1");
+        newRequest.setWard("Ward 1");
+        newRequest.setAddress("123 Main Street");
+        newRequest.setDeliveryMessage("Please call before delivery");
+        newRequest.setDeliveryFee(25000);
+        
+        when(deliverySharingMigration.isSharingEnabled()).thenReturn(true);
+        when(deliveryRepository.findByAddressHash(deliveryInfo.computeAddressHash()))
+            .thenReturn(List.of(savedAddress));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(1L);
+            return order;
+        });
+        
+        Order result = orderService.createOrder(cartItems, newRequest);
+        
+        assertThat(result.getDeliveryInformation()).isSameAs(savedAddress);
+        verify(deliveryRepository, never()).save(any(DeliveryInformation.class));
+    }
+    
+    @Test
+    @DisplayName("Test order creation saves a new address row until delivery sharing is enabled")
+    void testOrderCreationSavesNewAddressWhileSharingDisabled() {
+        when(deliverySharingMigration.isSharingEnabled()).thenReturn(false);
+        when(deliveryRepository.save(any(DeliveryInformation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(1L);
+            return order;
+        });
+        
+        Order result = orderService.createOrder(cartItems, deliveryInfo);
+        
+        assertThat(result.getDeliveryInformation()).isSameAs(deliveryInfo);
+        assertThat(deliveryInfo.getAddressHash()).isEqualTo(deliveryInfo.computeAddressHash());
+        verify(deliveryRepository, never()).findByAddressHash(anyString());
+        verify(deliveryRepository).save(deliveryInfo);
+    }
+    
+    @Test
+    @DisplayName("Test saved addresses are distinct and most recently used first")
+    void testGetSavedAddresses() {
+        DeliveryInformation home = new DeliveryInformation();
+        home.setDeliveryId(3L);
+        home.setAddressHash("home");
+        DeliveryInformation homeWithMessage = new DeliveryInformation();
+        homeWithMessage.setDeliveryId(2L);
+        homeWithMessage.setAddressHash("home");
+        DeliveryInformation office = new DeliveryInformation();
+        office.setDeliveryId(1L);
+        office.setAddressHash("office");
+        
+        when(orderRepository.findRecentDeliveryIds(eq("john.doe@example.com"), any()))
+            .thenReturn(List.of(3L, 2L, 1L));
+        when(deliveryRepository.findAllById(List.of(3L, 2L, 1L)))
+            .thenReturn(List.of(office, homeWithMessage, home));
+        
+        List<DeliveryInformation> addresses = orderService.getSavedAddresses(" John.Doe@example.com");
+        
+        assertThat(addresses).containsExactly(home, office);
+    }
+    
     @Test
     @DisplayName("Test Order Creation With Invalid Cart Items Throws Exception")
     void testOrderCreationWithInvalidCartItemsThrowsException() {
@@ -258,7 +390,8 @@ class OrderServiceTest {
         
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderToCancel));
         when(orderRepository.save(any(Order.class))).thenReturn(orderToCancel);
-        when(productRepository.save(any(Product.class))).thenReturn(productWithStock);
+        when(orderRepository.markStockRestored(orderId)).thenReturn(1);
+        when(productStockRepository.restockOrder(orderId)).thenReturn(List.of(1L));
         when(auditLogService.logOrderAction(anyLong(), any(), anyString(), anyString()))
             .thenReturn(new AuditLog());
         
@@ -271,15 +404,169 @@ class OrderServiceTest {
         
         verify(orderRepository).findById(orderId);
         verify(orderRepository).save(any(Order.class));
-        verify(productRepository).save(productWithStock); // Stock should be restored
+        verify(productStockRepository).restockOrder(orderId); // Stock should be restored in one batch
+        verify(productSnapshotCache).evictAll(List.of(1L));
+        verify(productRepository, never()).save(any(Product.class));
+        assertThat(orderToCancel.getStockRestored()).isTrue();
         verify(auditLogService).logOrderAction(
             eq(orderId),
             isNull(),
             eq("Cancelled"),
             eq("Order cancelled: " + reason)
         );
+        verify(outboxService).publish(orderId, OutboxEvent.EventType.ORDER_CANCELLED, Map.of("reason", reason));
     }
     
+    @Test
+    @DisplayName("Test Recover Quantity Skips Already Restored Order")
+    void testRecoverQuantitySkipsAlreadyRestoredOrder() {
+        // Given - stock for this order was already returned by a cancellation
+        Long orderId = 1L;
+        
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(sampleOrder));
+        when(orderRepository.markStockRestored(orderId)).thenReturn(0);
+        
+        // When
+        orderService.recoverProductQuantity(orderId);
+        
+        // Then - no second restock
+        verify(productStockRepository, never()).restockOrder(anyLong());
+        verify(auditLogService, never()).logOrderAction(anyLong(), any(), anyString(), anyString());
+    }
+    
+    @Test
+    @DisplayName("Test Query Orders Returns Keyset Cursor")
+    void testQueryOrdersReturnsKeysetCursor() {
+        // Given - repository returns one row more than the page size
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> rows = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            Order order = new Order();
+            order.setOrderId(id);
+            order.setCreatedAt(now.minusMinutes(3 - id));
+            rows.add(order);
+        }
+        
+        OrderQueryFilter filter = new OrderQueryFilter();
+        filter.setStatus("pending");
+        filter.setSize(2);
+        
+        when(orderRepository.queryOrders(eq(Order.OrderStatus.PENDING), any(), any(), any(), any(),
+                any(), any(), any(), isNull(), isNull(), any()))
+            .thenReturn(rows);
+        
+        // When
+        CursorPage<Order> page = orderService.queryOrders(filter);
+        
+        // Then - second row is the keyset position of the next page
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.getNextCursor()).isNotBlank();
+        
+        // When - request the next page with the returned cursor
+        filter.setCursor(page.getNextCursor());
+        when(orderRepository.queryOrders(any(), any(), any(), any(), any(),
+                any(), any(), any(), eq(rows.get(1).getCreatedAt()), eq(2L), any()))
+            .thenReturn(List.of(rows.get(2)));
+        CursorPage<Order> nextPage = orderService.queryOrders(filter);
+        
+        // Then
+        assertThat(nextPage.getItems()).extracting(Order::getOrderId).containsExactly(1L);
+        assertThat(nextPage.isHasMore()).isFalse();
+        assertThat(nextPage.getNextCursor()).isNull();
+    }
+    
+    @Test
+    @DisplayName("Test Query Orders Rejects Invalid Cursor")
+    void testQueryOrdersRejectsInvalidCursor() {
+        OrderQueryFilter filter = new OrderQueryFilter();
+        filter.setCursor("not-a-cursor");
+        
+        assertThatThrownBy(() -> orderService.queryOrders(filter))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid cursor");
+    }
+
+    @Test
+    @DisplayName("Test Customer Order History Uses Normalized Key And Caches First Page")
+    void testCustomerOrderHistoryCachesFirstPage() {
+        // Given
+        sampleOrder.setCustomerKey("john@example.com");
+        when(orderRepository.findCustomerOrders(eq("john@example.com"), isNull(), isNull(), any()))
+            .thenReturn(List.of(sampleOrder));
+
+        // When
+        CursorPage<OrderDTO> page = orderService.getCustomerOrders("  John@Example.com ", null, 20);
+
+        // Then
+        assertThat(page.getItems()).extracting(OrderDTO::getOrderId).containsExactly(1L);
+        assertThat(page.isHasMore()).isFalse();
+        verify(customerOrderHistoryCache).put("john@example.com", 20, page);
+    }
+
+    @Test
+    @DisplayName("Test Customer Order History Served From Cache")
+    void testCustomerOrderHistoryServedFromCache() {
+        // Given
+        CursorPage<OrderDTO> cached = new CursorPage<>(List.of(new OrderDTO()), null, false);
+        when(customerOrderHistoryCache.get("john@example.com", 20)).thenReturn(cached);
+
+        // When
+        CursorPage<OrderDTO> page = orderService.getCustomerOrders("john@example.com", null, 20);
+
+        // Then
+        assertThat(page).isSameAs(cached);
+        verify(orderRepository, never()).findCustomerOrders(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test Customer Order History Later Pages Bypass Cache")
+    void testCustomerOrderHistoryLaterPagesBypassCache() {
+        // Given - a first page with one more row than the page size
+        LocalDateTime now = LocalDateTime.now();
+        List<Order> rows = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            Order order = new Order();
+            order.setOrderId(id);
+            order.setStatus(Order.OrderStatus.PENDING);
+            order.setCreatedAt(now.minusMinutes(3 - id));
+            rows.add(order);
+        }
+        when(orderRepository.findCustomerOrders(eq("john@example.com"), isNull(), isNull(), any()))
+            .thenReturn(rows);
+        CursorPage<OrderDTO> firstPage = orderService.getCustomerOrders("john@example.com", null, 2);
+        when(orderRepository.findCustomerOrders(eq("john@example.com"), eq(rows.get(1).getCreatedAt()), eq(2L), any()))
+            .thenReturn(List.of(rows.get(2)));
+
+        // When
+        CursorPage<OrderDTO> nextPage = orderService.getCustomerOrders("john@example.com", firstPage.getNextCursor(), 2);
+
+        // Then
+        assertThat(nextPage.getItems()).extracting(OrderDTO::getOrderId).containsExactly(1L);
+        verify(customerOrderHistoryCache, times(1)).get(anyString(), anyInt());
+        verify(customerOrderHistoryCache, times(1)).put(anyString(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Test Creating Order Sets Customer Key And Evicts History Cache")
+    void testCreateOrderEvictsCustomerHistory() {
+        // Given
+        deliveryInfo.setEmail(" John@Example.com");
+        when(deliveryRepository.save(any(DeliveryInformation.class))).thenReturn(deliveryInfo);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderId(5L);
+            return order;
+        });
+
+        // When
+        Order result = orderService.createOrder(cartItems, deliveryInfo);
+
+        // Then
+        assertThat(result.getCustomerKey()).isEqualTo("john@example.com");
+        verify(customerOrderHistoryCache).evict("john@example.com");
+    }
+
     @Test
     @DisplayName("Test Get Pending Orders")
     void testGetPendingOrders() {
@@ -0,0 +1,107 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.BulkStatusUpdateResultDTO;
+import com.itss.ecommerce.dto.BulkStatusUpdateResultDTO.Outcome;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.OrderRepository;
+import com.itss.ecommerce.service.admin.CustomerOrderHistoryCache;
+import com.itss.ecommerce.service.admin.OrderStatusTransitionService;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
+import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OrderStatusTransitionService
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderStatusTransitionServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderSummaryService orderSummaryService;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private CustomerOrderHistoryCache customerOrderHistoryCache;
+
+    private OrderStatusTransitionService transitionService;
+
+    @BeforeEach
+    void setUp() {
+        transitionService = new OrderStatusTransitionService(orderRepository, orderSummaryService,
+            auditLogService, outboxService, customerOrderHistoryCache, 2);
+    }
+
+    @Test
+    @DisplayName("Test bulk transition reports per-order outcomes and writes in batches")
+    void testTransitionMixedOutcomes() {
+        when(orderRepository.findStatusRows(List.of(1L, 2L))).thenReturn(List.of(
+            new Object[]{1L, Order.OrderStatus.CONFIRMED, "a@example.com"},
+            new Object[]{2L, Order.OrderStatus.PENDING, "b@example.com"}));
+        when(orderRepository.findStatusRows(List.of(3L, 4L))).thenReturn(List.<Object[]>of(
+            new Object[]{3L, Order.OrderStatus.CONFIRMED, "a@example.com"}));
+        when(orderRepository.transitionStatus(eq(List.of(1L)), eq(Order.OrderStatus.CONFIRMED),
+            eq(Order.OrderStatus.SHIPPED), any(LocalDateTime.class))).thenReturn(1);
+        when(orderRepository.transitionStatus(eq(List.of(3L)), eq(Order.OrderStatus.CONFIRMED),
+            eq(Order.OrderStatus.SHIPPED), any(LocalDateTime.class))).thenReturn(1);
+
+        BulkStatusUpdateResultDTO result = transitionService.transition(
+            List.of(1L, 2L, 1L, 3L, 4L), Order.OrderStatus.SHIPPED, "Picked up by carrier");
+
+        assertThat(result.getUpdatedCount()).isEqualTo(2);
+        assertThat(result.getRejectedCount()).isEqualTo(2);
+        assertThat(result.getResults()).extracting(BulkStatusUpdateResultDTO.OrderOutcome::getOutcome)
+            .containsExactly(Outcome.UPDATED, Outcome.INVALID_TRANSITION, Outcome.UPDATED, Outcome.NOT_FOUND);
+        assertThat(result.getResults().get(1).getPreviousStatus()).isEqualTo("PENDING");
+
+        verify(orderSummaryService).updateStatuses(List.of(1L), Order.OrderStatus.SHIPPED);
+        verify(auditLogService).logOrderActions(eq(List.of(3L)), isNull(), eq("Status Updated"),
+            eq("Status changed from CONFIRMED to SHIPPED: Picked up by carrier"));
+        verify(outboxService).publishAll(eq(List.of(1L)), eq(OutboxEvent.EventType.ORDER_STATUS_UPDATED), anyMap());
+        verify(customerOrderHistoryCache, times(2)).evict("a@example.com");
+        verify(customerOrderHistoryCache, never()).evict("b@example.com");
+    }
+
+    @Test
+    @DisplayName("Test bulk transition fails when orders change between read and update")
+    void testTransitionConcurrentChange() {
+        when(orderRepository.findStatusRows(List.of(1L, 2L))).thenReturn(List.of(
+            new Object[]{1L, Order.OrderStatus.PENDING, null},
+            new Object[]{2L, Order.OrderStatus.PENDING, null}));
+        when(orderRepository.transitionStatus(eq(List.of(1L, 2L)), eq(Order.OrderStatus.PENDING),
+            eq(Order.OrderStatus.CONFIRMED), any(LocalDateTime.class))).thenReturn(1);
+
+        assertThatThrownBy(() -> transitionService.transition(List.of(1L, 2L), Order.OrderStatus.CONFIRMED, null))
+            .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(orderSummaryService, auditLogService, outboxService);
+    }
+
+    @Test
+    @DisplayName("Test bulk transition to an unsupported status is rejected")
+    void testTransitionUnsupportedTarget() {
+        assertThatThrownBy(() -> transitionService.transition(List.of(1L), Order.OrderStatus.CANCELLED, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(orderRepository);
+    }
+}
@@ -0,0 +1,159 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.entity.OutboxDelivery;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.repository.OutboxDeliveryRepository;
+import com.itss.ecommerce.repository.OutboxEventRepository;
+import com.itss.ecommerce.service.outbox.OutboxEventHandler;
+import com.itss.ecommerce.service.outbox.OutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxDeliveryRepository outboxDeliveryRepository;
+
+    private RecordingHandler handler;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        handler = new RecordingHandler();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Test events are delivered in order and marked delivered")
+    void testDeliversEventsInOrder() {
+        OutboxEvent created = event(1L, 10L, OutboxEvent.EventType.ORDER_CREATED);
+        OutboxEvent paid = event(2L, 10L, OutboxEvent.EventType.ORDER_PAID);
+        when(outboxEventRepository.findDeliverable(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(created, paid));
+
+        int delivered = newRelay(10).relay();
+
+        assertThat(delivered).isEqualTo(2);
+        assertThat(handler.handled).containsExactly(1L, 2L);
+        assertThat(created.getStatus()).isEqualTo(OutboxEvent.Status.DELIVERED);
+        assertThat(paid.getDeliveredAt()).isNotNull();
+        verify(outboxDeliveryRepository, times(2)).save(any(OutboxDelivery.class));
+        assertThat(meterRegistry.counter("outbox.events.delivered").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Test failed event holds back later events of the same order only")
+    void testFailureBlocksSameOrderOnly() {
+        OutboxEvent first = event(1L, 10L, OutboxEvent.EventType.ORDER_CREATED);
+        OutboxEvent second = event(2L, 10L, OutboxEvent.EventType.ORDER_PAID);
+        OutboxEvent otherOrder = event(3L, 20L, OutboxEvent.EventType.ORDER_CREATED);
+        handler.failing.add(1L);
+        when(outboxEventRepository.findDeliverable(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(first, second, otherOrder));
+
+        int delivered = newRelay(10).relay();
+
+        assertThat(delivered).isEqualTo(1);
+        assertThat(handler.handled).containsExactly(1L, 3L);
+        assertThat(first.getStatus()).isEqualTo(OutboxEvent.Status.PENDING);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getAvailableAt()).isAfter(LocalDateTime.now());
+        assertThat(first.getLastError()).contains("handler down");
+        assertThat(second.getStatus()).isEqualTo(OutboxEvent.Status.PENDING);
+        assertThat(otherOrder.getStatus()).isEqualTo(OutboxEvent.Status.DELIVERED);
+        assertThat(meterRegistry.counter("outbox.events.retried").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Test handler that already handled an event is not called again")
+    void testSkipsAlreadyDeliveredHandler() {
+        OutboxEvent event = event(1L, 10L, OutboxEvent.EventType.ORDER_PAID);
+        when(outboxEventRepository.findDeliverable(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(event));
+        when(outboxDeliveryRepository.existsByEventIdAndHandlerName(1L, "recording")).thenReturn(true);
+
+        int delivered = newRelay(10).relay();
+
+        assertThat(delivered).isEqualTo(1);
+        assertThat(handler.handled).isEmpty();
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.DELIVERED);
+        verify(outboxDeliveryRepository, never()).save(any(OutboxDelivery.class));
+    }
+
+    @Test
+    @DisplayName("Test event is given up on after the maximum attempts")
+    void testGivesUpAfterMaxAttempts() {
+        OutboxEvent failing = event(1L, 10L, OutboxEvent.EventType.ORDER_CREATED);
+        failing.setAttempts(2);
+        OutboxEvent next = event(2L, 10L, OutboxEvent.EventType.ORDER_PAID);
+        handler.failing.add(1L);
+        when(outboxEventRepository.findDeliverable(any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(List.of(failing, next));
+
+        int delivered = newRelay(3).relay();
+
+        assertThat(delivered).isEqualTo(1);
+        assertThat(failing.getStatus()).isEqualTo(OutboxEvent.Status.FAILED);
+        assertThat(failing.getAttempts()).isEqualTo(3);
+        assertThat(next.getStatus()).isEqualTo(OutboxEvent.Status.DELIVERED);
+        assertThat(meterRegistry.counter("outbox.events.failed").count()).isEqualTo(1.0);
+    }
+
+    private OutboxRelay newRelay(int maxAttempts) {
+        return new OutboxRelay(outboxEventRepository, outboxDeliveryRepository, List.of(handler),
+            meterRegistry, 100, maxAttempts, 1000, 7);
+    }
+
+    private OutboxEvent event(Long eventId, Long orderId, OutboxEvent.EventType eventType) {
+        OutboxEvent event = OutboxEvent.of(orderId, eventType, "{}");
+        event.setEventId(eventId);
+        event.setAvailableAt(LocalDateTime.now());
+        return event;
+    }
+
+    private static class RecordingHandler implements OutboxEventHandler {
+        private final List<Long> handled = new ArrayList<>();
+        private final Set<Long> failing = new HashSet<>();
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public boolean supports(OutboxEvent.EventType eventType) {
+            return true;
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            handled.add(event.getEventId());
+            if (failing.contains(event.getEventId())) {
+                throw new IllegalStateException("handler down");
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.entity.DeliveryInformation;
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.Order;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.entity.PaymentNotification;
+import com.itss.ecommerce.repository.PaymentNotificationRepository;
+import com.itss.ecommerce.service.admin.OrderExpiryService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+import com.itss.ecommerce.service.payment.PaymentNotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PaymentNotificationService
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentNotificationServiceTest {
+
+    @Mock
+    private PaymentNotificationRepository paymentNotificationRepository;
+
+    @Mock
+    private InvoiceService invoiceService;
+
+    @Mock
+    private OrderExpiryService orderExpiryService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    private PaymentNotificationService paymentNotificationService;
+
+    @BeforeEach
+    void setUp() {
+        paymentNotificationService = new PaymentNotificationService(
+            paymentNotificationRepository, invoiceService, orderExpiryService, outboxService, 2);
+    }
+
+    @Test
+    @DisplayName("Test new notification is stored, queued and remembered")
+    void testEnqueueNewNotification() {
+        when(paymentNotificationRepository.insertReceived(eq("14000001"), eq(42L), eq("00"), eq("00"),
+            eq(15_000_000L), eq("NCB"), eq("20240101120000"), any(LocalDateTime.class))).thenReturn(1);
+
+        boolean enqueued = paymentNotificationService.enqueue(notification("14000001", "00"));
+
+        assertThat(enqueued).isTrue();
+        verify(outboxService).publish(42L, OutboxEvent.EventType.PAYMENT_RECEIVED,
+            Map.of("transactionNo", "14000001"));
+        assertThat(paymentNotificationService.isRecentlySeen("14000001")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test already stored notification is not queued again")
+    void testEnqueueDuplicateNotification() {
+        when(paymentNotificationRepository.insertReceived(any(), any(), any(), any(), any(), any(), any(), any()))
+            .thenReturn(0);
+
+        boolean enqueued = paymentNotificationService.enqueue(notification("14000001", "00"));
+
+        assertThat(enqueued).isFalse();
+        verifyNoInteractions(outboxService);
+        assertThat(paymentNotificationService.isRecentlySeen("14000001")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test recent transaction numbers are bounded, oldest dropped first")
+    void testRecentCacheIsBounded() {
+        when(paymentNotificationRepository.insertReceived(any(), any(), any(), any(), any(), any(), any(), any()))
+            .thenReturn(1);
+
+        paymentNotificationService.enqueue(notification("1", "00"));
+        paymentNotificationService.enqueue(notification("2", "00"));
+        paymentNotificationService.enqueue(notification("3", "00"));
+
+        assertThat(paymentNotificationService.isRecentlySeen("1")).isFalse();
+        assertThat(paymentNotificationService.isRecentlySeen("2")).isTrue();
+        assertThat(paymentNotificationService.isRecentlySeen("3")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test successful payment notification records the payment")
+    void testApplySuccessfulPayment() {
+        when(paymentNotificationRepository.findByTransactionNo("14000001"))
+            .thenReturn(Optional.of(notification("14000001", "00")));
+        when(invoiceService.getInvoiceByOrderId(42L)).thenReturn(Optional.of(invoice(120000, 30000)));
+        when(invoiceService.recordPaymentSuccess(42L)).thenReturn(true);
+
+        paymentNotificationService.apply("14000001");
+
+        verify(paymentNotificationRepository).markProcessed(eq("14000001"),
+            eq(PaymentNotification.Status.APPLIED), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Test notification for an invoice that is no longer pending is skipped")
+    void testApplyWhenInvoiceNotPending() {
+        when(paymentNotificationRepository.findByTransactionNo("14000001"))
+            .thenReturn(Optional.of(notification("14000001", "00")));
+        when(invoiceService.getInvoiceByOrderId(42L)).thenReturn(Optional.of(invoice(120000, 30000)));
+        when(invoiceService.recordPaymentSuccess(42L)).thenReturn(false);
+
+        paymentNotificationService.apply("14000001");
+
+        verify(paymentNotificationRepository).markProcessed(eq("14000001"),
+            eq(PaymentNotification.Status.SKIPPED), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Test successful payment for a different amount than the invoice is due is not recorded")
+    void testApplyAmountMismatch() {
+        when(paymentNotificationRepository.findByTransactionNo("14000001"))
+            .thenReturn(Optional.of(notification("14000001", "00")));
+        when(invoiceService.getInvoiceByOrderId(42L)).thenReturn(Optional.of(invoice(160000, 30000)));
+
+        paymentNotificationService.apply("14000001");
+
+        verify(invoiceService, never()).recordPaymentSuccess(anyLong());
+        verify(paymentNotificationRepository).markSkipped(eq("14000001"),
+            contains("15000000"), any(LocalDateTime.class));
+        verify(paymentNotificationRepository, never()).markProcessed(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test failed payment notification cancels the unpaid order")
+    void testApplyFailedPayment() {
+        when(paymentNotificationRepository.findByTransactionNo("0-42"))
+            .thenReturn(Optional.of(notification("0-42", "24")));
+        when(orderExpiryService.cancelUnpaidOrders(eq(List.of(42L)), anyString())).thenReturn(List.of(42L));
+
+        paymentNotificationService.apply("0-42");
+
+        verifyNoInteractions(invoiceService);
+        verify(paymentNotificationRepository).markProcessed(eq("0-42"),
+            eq(PaymentNotification.Status.APPLIED), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Test failed payment notification for an order no longer pending is skipped")
+    void testApplyFailedPaymentWhenOrderNotPending() {
+        when(paymentNotificationRepository.findByTransactionNo("0-42"))
+            .thenReturn(Optional.of(notification("0-42", "24")));
+        when(orderExpiryService.cancelUnpaidOrders(eq(List.of(42L)), anyString())).thenReturn(List.of());
+
+        paymentNotificationService.apply("0-42");
+
+        verify(paymentNotificationRepository).markProcessed(eq("0-42"),
+            eq(PaymentNotification.Status.SKIPPED), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Test processed notification is not applied again")
+    void testApplyAlreadyProcessed() {
+        PaymentNotification applied = notification("14000001", "00");
+        applied.setStatus(PaymentNotification.Status.APPLIED);
+        when(paymentNotificationRepository.findByTransactionNo("14000001")).thenReturn(Optional.of(applied));
+
+        paymentNotificationService.apply("14000001");
+
+        verifyNoInteractions(invoiceService, orderExpiryService);
+        verify(paymentNotificationRepository, never()).markProcessed(any(), any(), any());
+    }
+
+    private Invoice invoice(int totalAfterVat, int deliveryFee) {
+        DeliveryInformation delivery = new DeliveryInformation();
+        delivery.setDeliveryFee(deliveryFee);
+        Order order = new Order();
+        order.setTotalAfterVat(totalAfterVat);
+        order.setDeliveryInformation(delivery);
+        Invoice invoice = new Invoice();
+        invoice.setOrder(order);
+        return invoice;
+    }
+
+    private PaymentNotification notification(String transactionNo, String responseCode) {
+        PaymentNotification notification = new PaymentNotification();
+        notification.setTransactionNo(transactionNo);
+        notification.setOrderId(42L);
+        notification.setResponseCode(responseCode);
+        notification.setTransactionStatus("00".equals(responseCode) ? "00" : "02");
+        notification.setAmount(15_000_000L);
+        notification.setBankCode("NCB");
+        notification.setPayDate("20240101120000");
+        return notification;
+    }
+}
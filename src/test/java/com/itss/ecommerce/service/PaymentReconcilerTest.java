@@ -0,0 +1,324 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.dto.payment.PaymentReturnResponse;
+import com.itss.ecommerce.dto.payment.PendingPayment;
+import com.itss.ecommerce.dto.payment.request.PaymentRequest;
+import com.itss.ecommerce.dto.payment.request.QueryRequest;
+import com.itss.ecommerce.dto.payment.request.RefundRequest;
+import com.itss.ecommerce.dto.payment.response.IPNResponse;
+import com.itss.ecommerce.dto.payment.response.PaymentResponse;
+import com.itss.ecommerce.dto.payment.response.QueryResponse;
+import com.itss.ecommerce.dto.payment.response.RefundResponse;
+import com.itss.ecommerce.entity.Invoice;
+import com.itss.ecommerce.entity.OutboxEvent;
+import com.itss.ecommerce.exception.PaymentProcessingException;
+import com.itss.ecommerce.repository.InvoiceRepository;
+import com.itss.ecommerce.repository.PaymentTransactionRepository;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
+import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
+import com.itss.ecommerce.service.payment.PaymentReconciler;
+import com.itss.ecommerce.service.payment.PaymentReconciliationService;
+import com.itss.ecommerce.service.payment.PaymentServiceFactory;
+import com.itss.ecommerce.service.payment.gateway.IPaymentService;
+import com.itss.ecommerce.service.payment.type.PaymentMethod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PaymentReconciler and PaymentReconciliationService
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentReconcilerTest {
+
+    @Mock
+    private PaymentTransactionRepository paymentTransactionRepository;
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private OrderSummaryService orderSummaryService;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private PaymentReconciliationService mockReconciliationService;
+
+    private StubGateway gateway;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new StubGateway();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Test gateway answers are classified and applied as one batch")
+    void testReconcileAppliesBatch() {
+        gateway.answer("1", "00", "00");
+        gateway.answer("2", "00", "02");
+        gateway.answer("3", "91", null);
+        gateway.answer("4", "00", "01");
+        gateway.fail("5");
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(pending(11L, 1L), pending(12L, 2L), pending(13L, 3L), pending(14L, 4L), pending(15L, 5L)));
+        when(mockReconciliationService.apply(List.of(1L), List.of(12L)))
+            .thenReturn(new PaymentReconciliationService.Result(List.of(1L), 1, List.of()));
+
+        int resolved = newReconciler(10, 4, 1000).reconcile();
+
+        assertThat(resolved).isEqualTo(2);
+        assertThat(gateway.queried).containsOnlyKeys("1", "2", "3", "4", "5");
+        assertThat(queries("paid")).isEqualTo(1.0);
+        assertThat(queries("failed")).isEqualTo(1.0);
+        assertThat(queries("not_found")).isEqualTo(1.0);
+        assertThat(queries("pending")).isEqualTo(1.0);
+        assertThat(queries("error")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Test gateway is queried with the create date the payment URL was signed with")
+    void testQueryUsesSignedCreateDate() {
+        gateway.answer("1", "00", "01");
+        gateway.answer("2", "00", "01");
+        PendingPayment legacy = pending(12L, 2L);
+        legacy.setGatewayCreateDate(null);
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(pending(11L, 1L), legacy));
+
+        newReconciler(10, 4, 1000).reconcile();
+
+        assertThat(gateway.queried.get("1").getTransDate()).isEqualTo("20240101120000");
+        assertThat(gateway.queried.get("2").getTransDate()).matches("\\d{14}").isNotEqualTo("20240101120000");
+    }
+
+    @Test
+    @DisplayName("Test reconciliation pages through pending transactions by ID")
+    void testReconcilePagesByTransactionId() {
+        gateway.answer("1", "00", "00");
+        gateway.answer("2", "00", "00");
+        gateway.answer("3", "00", "00");
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(pending(11L, 1L), pending(12L, 2L)));
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(12L), any(Pageable.class)))
+            .thenReturn(List.of(pending(13L, 3L)));
+        when(mockReconciliationService.apply(List.of(1L, 2L), List.of()))
+            .thenReturn(new PaymentReconciliationService.Result(List.of(1L, 2L), 0, List.of()));
+        when(mockReconciliationService.apply(List.of(3L), List.of()))
+            .thenReturn(new PaymentReconciliationService.Result(List.of(), 0, List.of(3L)));
+
+        int resolved = newReconciler(2, 4, 1000).reconcile();
+
+        assertThat(resolved).isEqualTo(2);
+        assertThat(meterRegistry.counter("payments.reconciliation.mismatches").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Test failed page is counted and the next page still applied")
+    void testReconcileContinuesAfterFailedPage() {
+        gateway.answer("1", "00", "00");
+        gateway.answer("2", "00", "00");
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(pending(11L, 1L)));
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(11L), any(Pageable.class)))
+            .thenReturn(List.of(pending(12L, 2L)));
+        when(mockReconciliationService.apply(List.of(1L), List.of())).thenThrow(new IllegalStateException("busy"));
+        when(mockReconciliationService.apply(List.of(2L), List.of()))
+            .thenReturn(new PaymentReconciliationService.Result(List.of(2L), 0, List.of()));
+
+        int resolved = newReconciler(1, 4, 1000).reconcile();
+
+        assertThat(resolved).isEqualTo(1);
+        assertThat(meterRegistry.counter("payments.reconciliation.page.failures").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Test gateway queries run concurrently but never above the limit")
+    void testQueriesAreConcurrentAndBounded() {
+        gateway.latencyMs = 30;
+        List<PendingPayment> page = LongStream.rangeClosed(1, 24)
+            .peek(orderId -> gateway.answer(String.valueOf(orderId), "00", "01"))
+            .mapToObj(orderId -> pending(100 + orderId, orderId))
+            .toList();
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(page);
+
+        newReconciler(50, 4, 10_000).reconcile();
+
+        assertThat(gateway.queried).hasSize(24);
+        assertThat(gateway.maxInFlight.get()).isBetween(2, 4);
+        verifyNoInteractions(mockReconciliationService);
+    }
+
+    @Test
+    @DisplayName("Test gateway queries are spaced by the global rate limit")
+    void testQueriesAreRateLimited() {
+        List<PendingPayment> page = LongStream.rangeClosed(1, 6)
+            .peek(orderId -> gateway.answer(String.valueOf(orderId), "00", "01"))
+            .mapToObj(orderId -> pending(100 + orderId, orderId))
+            .toList();
+        when(paymentTransactionRepository.findStalePending(any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+            .thenReturn(page);
+
+        long start = System.nanoTime();
+        newReconciler(50, 6, 20).reconcile();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Six queries at 20 per second need at least five 50 ms intervals
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(240);
+    }
+
+    @Test
+    @DisplayName("Test paid results mark pending invoices paid and record cancelled ones")
+    void testApplyPaidAndMismatched() {
+        PaymentReconciliationService service = new PaymentReconciliationService(invoiceRepository,
+            paymentTransactionRepository, orderSummaryService, auditLogService, outboxService);
+        when(invoiceRepository.findOrderIdsByPaymentStatus(List.of(1L, 2L, 3L), Invoice.PaymentStatus.PENDING))
+            .thenReturn(List.of(1L));
+        when(invoiceRepository.findOrderIdsByPaymentStatus(List.of(1L, 2L, 3L), Invoice.PaymentStatus.PAID))
+            .thenReturn(List.of(2L));
+        when(paymentTransactionRepository.markPendingFailed(eq(List.of(14L)), any(LocalDateTime.class), anyString()))
+            .thenReturn(1);
+
+        PaymentReconciliationService.Result result = service.apply(List.of(1L, 2L, 3L), List.of(14L));
+
+        assertThat(result.paid()).containsExactly(1L);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.mismatched()).containsExactly(3L);
+        verify(invoiceRepository).markPaidByOrderIds(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(paymentTransactionRepository).markPendingSucceededByOrderIds(
+            argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 2L))), any(LocalDateTime.class));
+        verify(orderSummaryService).updatePaymentStatuses(List.of(1L), Invoice.PaymentStatus.PAID);
+        verify(outboxService).publishAll(eq(List.of(1L)), eq(OutboxEvent.EventType.ORDER_PAID), anyMap());
+        // Mismatched captures leave PENDING so they are not queried and counted again
+        verify(paymentTransactionRepository).markPendingSucceededWithNote(eq(List.of(3L)), any(LocalDateTime.class),
+            anyString());
+        verify(auditLogService).logAction(eq("Payment Mismatch"), contains("[3]"));
+    }
+
+    @Test
+    @DisplayName("Test failed-only results leave invoices untouched")
+    void testApplyFailedOnly() {
+        PaymentReconciliationService service = new PaymentReconciliationService(invoiceRepository,
+            paymentTransactionRepository, orderSummaryService, auditLogService, outboxService);
+        when(paymentTransactionRepository.markPendingFailed(eq(List.of(14L, 15L)), any(LocalDateTime.class), anyString()))
+            .thenReturn(2);
+
+        PaymentReconciliationService.Result result = service.apply(List.of(), List.of(14L, 15L));
+
+        assertThat(result.failed()).isEqualTo(2);
+        verifyNoInteractions(invoiceRepository, orderSummaryService, outboxService);
+    }
+
+    private PaymentReconciler newReconciler(int pageSize, int maxConcurrency, double ratePerSecond) {
+        return new PaymentReconciler(paymentTransactionRepository, mockReconciliationService,
+            new PaymentServiceFactory(List.of(gateway)), meterRegistry, true, 15, pageSize, maxConcurrency, ratePerSecond);
+    }
+
+    private double queries(String outcome) {
+        return meterRegistry.counter("payments.reconciliation.queries", "outcome", outcome).count();
+    }
+
+    private static PendingPayment pending(Long transactionId, Long orderId) {
+        return new PendingPayment(transactionId, orderId, 150_000, LocalDateTime.now().minusHours(1), "20240101120000");
+    }
+
+    /**
+     * Gateway answering queries from canned responses and tracking concurrent calls
+     */
+    private static class StubGateway implements IPaymentService {
+
+        private final Map<String, QueryResponse> answers = new ConcurrentHashMap<>();
+        private final Map<String, QueryRequest> queried = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile long latencyMs;
+
+        void answer(String orderId, String responseCode, String transactionStatus) {
+            QueryResponse response = new QueryResponse();
+            response.setVnp_TxnRef(orderId);
+            response.setVnp_ResponseCode(responseCode);
+            response.setVnp_TransactionStatus(transactionStatus);
+            answers.put(orderId, response);
+        }
+
+        void fail(String orderId) {
+            answers.remove(orderId);
+        }
+
+        @Override
+        public QueryResponse queryTransaction(QueryRequest request, HttpServletRequest servletRequest) {
+            queried.put(request.getOrderId(), request);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (latencyMs > 0) {
+                    Thread.sleep(latencyMs);
+                }
+                QueryResponse response = answers.get(request.getOrderId());
+                if (response == null) {
+                    throw new PaymentProcessingException("Gateway unavailable");
+                }
+                return response;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PaymentProcessingException("Interrupted");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public PaymentMethod getPaymentMethod() {
+            return PaymentMethod.VNPAY;
+        }
+
+        @Override
+        public PaymentResponse createPayment(PaymentRequest request, HttpServletRequest servletRequest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public RefundResponse refundTransaction(RefundRequest request, HttpServletRequest servletRequest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IPNResponse handleIpnRequest(Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String generateSecureHash(Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PaymentReturnResponse processPaymentReturn(Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
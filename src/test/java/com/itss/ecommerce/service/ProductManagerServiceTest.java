@@ -41,6 +41,9 @@ class ProductManagerServiceTest {
     @Mock
     private AuthService authService;
     
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+    
     @InjectMocks
     private ProductService productService;
     
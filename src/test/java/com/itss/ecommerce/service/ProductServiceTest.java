@@ -16,6 +16,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -43,6 +45,9 @@ class ProductServiceTest {
     @Mock
     private AuditLogService auditLogService;
 
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+
     @InjectMocks
     private ProductService productService;
 
@@ -255,6 +260,36 @@ class ProductServiceTest {
         verify(productRepository, times(1)).findById(1L);
     }
 
+    @Test
+    @DisplayName("Test get products by IDs uses a single query")
+    void testGetProductsByIds() {
+        // Given
+        List<Long> ids = List.of(1L, 1L);
+        when(productRepository.findAllById(ids)).thenReturn(List.of(sampleBook));
+
+        // When
+        Map<Long, Product> result = productService.getProductsByIds(ids);
+
+        // Then
+        assertThat(result).containsOnlyKeys(1L);
+        assertThat(result.get(1L).getTitle()).isEqualTo("The Great Gatsby");
+        verify(productRepository, times(1)).findAllById(ids);
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Test get products by IDs reports all missing IDs together")
+    void testGetProductsByIdsReportsMissingIds() {
+        // Given
+        List<Long> ids = List.of(1L, 7L, 9L);
+        when(productRepository.findAllById(ids)).thenReturn(List.of(sampleBook));
+
+        // When & Then
+        assertThatThrownBy(() -> productService.getProductsByIds(ids))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("[7, 9]");
+    }
+
     // Helper method to format price according to Vietnamese currency format
     private String formatPrice(Integer price) {
         if (price == null || price == 0) {
@@ -2,9 +2,14 @@ package com.itss.ecommerce.service;
 
 import com.itss.ecommerce.entity.*;
 import com.itss.ecommerce.repository.*;
+import com.itss.ecommerce.service.admin.CustomerOrderHistoryCache;
+import com.itss.ecommerce.service.admin.DeliverySharingMigration;
+import com.itss.ecommerce.service.admin.OrderArchiveService;
 import com.itss.ecommerce.service.admin.OrderService;
+import com.itss.ecommerce.service.admin.OrderSummaryService;
 import com.itss.ecommerce.service.admin.ProductService;
 import com.itss.ecommerce.service.log.AuditLogService;
+import com.itss.ecommerce.service.outbox.OutboxService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -53,6 +58,24 @@ class RushOrderServiceTest {
     @Mock
     private PaymentTransactionRepository paymentTransactionRepository;
     
+    @Mock
+    private OrderSummaryService orderSummaryService;
+    
+    @Mock
+    private OutboxService outboxService;
+    
+    @Mock
+    private CustomerOrderHistoryCache customerOrderHistoryCache;
+    
+    @Mock
+    private OrderArchiveService orderArchiveService;
+    
+    @Mock
+    private DeliverySharingMigration deliverySharingMigration;
+    
+    @Mock
+    private ProductSnapshotCache productSnapshotCache;
+    
     @InjectMocks
     private OrderService rushOrderService; // Using OrderService as it handles rush orders
     
@@ -196,6 +219,7 @@ class RushOrderServiceTest {
         when(orderItemRepository.save(any(OrderItem.class))).thenReturn(rushOrderItem);
         
         String rushInstructions = "Deliver within 24 hours";
+        rushOrder.setHasRush(false);
         
         // When
         OrderItem result = rushOrderService.addRushDelivery(1L, rushInstructions);
@@ -208,6 +232,7 @@ class RushOrderServiceTest {
                 assertThat(orderItem.getInstructions()).isEqualTo(rushInstructions);
                 assertThat(orderItem.getProduct().getRushOrderSupported()).isTrue();
             });
+        assertThat(rushOrderItem.getOrder().hasRushItems()).isTrue();
         
         verify(orderItemRepository).save(any(OrderItem.class));
     }
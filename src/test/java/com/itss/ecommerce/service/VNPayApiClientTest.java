@@ -0,0 +1,224 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.exception.PaymentProcessingException;
+import com.itss.ecommerce.service.payment.gateway.CircuitBreaker;
+import com.itss.ecommerce.service.payment.gateway.VNPayApiClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for VNPayApiClient against a local stub HTTP server
+ */
+class VNPayApiClientTest {
+
+    private static final Map<String, String> PARAMS = Map.of("vnp_Command", "querydr", "vnp_TxnRef", "42");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String url;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile StubBehaviour behaviour;
+
+    @FunctionalInterface
+    private interface StubBehaviour {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/transaction", exchange -> {
+            hits.incrementAndGet();
+            try {
+                exchange.getRequestBody().readAllBytes();
+                behaviour.handle(exchange);
+            } catch (Exception e) {
+                // Client gave up; nothing left to answer
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/transaction";
+        behaviour = exchange -> respond(exchange, 200, "{\"vnp_ResponseCode\":\"00\"}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Test successful call returns the parsed JSON body")
+    void testSuccessfulCall() {
+        VNPayApiClient client = newClient(1000, 4, 3, 30_000);
+
+        Map<?, ?> body = client.post(url, PARAMS, Map.class);
+
+        assertThat(body.get("vnp_ResponseCode")).isEqualTo("00");
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Test slow gateway response fails after the read timeout")
+    void testReadTimeout() {
+        behaviour = exchange -> {
+            Thread.sleep(2000);
+            respond(exchange, 200, "{}");
+        };
+        VNPayApiClient client = newClient(200, 4, 3, 30_000);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.post(url, PARAMS, Map.class))
+            .isInstanceOf(PaymentProcessingException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1500));
+    }
+
+    @Test
+    @DisplayName("Test circuit opens after consecutive server errors and rejects without calling the gateway")
+    void testCircuitOpensAfterFailures() {
+        behaviour = exchange -> respond(exchange, 503, "unavailable");
+        VNPayApiClient client = newClient(1000, 4, 3, 30_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.post(url, PARAMS, Map.class))
+                .isInstanceOf(PaymentProcessingException.class);
+        }
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.post(url, PARAMS, Map.class))
+            .isInstanceOf(PaymentProcessingException.class)
+            .hasMessageContaining("temporarily unavailable");
+        assertThat(hits.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Test circuit closes again after a successful trial call")
+    void testCircuitRecovers() throws InterruptedException {
+        behaviour = exchange -> respond(exchange, 500, "error");
+        VNPayApiClient client = newClient(1000, 4, 1, 100);
+
+        assertThatThrownBy(() -> client.post(url, PARAMS, Map.class))
+            .isInstanceOf(PaymentProcessingException.class);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        behaviour = exchange -> respond(exchange, 200, "{\"vnp_ResponseCode\":\"00\"}");
+        Thread.sleep(150);
+
+        assertThat(client.post(url, PARAMS, Map.class).get("vnp_ResponseCode")).isEqualTo("00");
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Test client errors do not open the circuit")
+    void testClientErrorsKeepCircuitClosed() {
+        behaviour = exchange -> respond(exchange, 400, "bad request");
+        VNPayApiClient client = newClient(1000, 4, 2, 30_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> client.post(url, PARAMS, Map.class))
+                .isInstanceOf(PaymentProcessingException.class);
+        }
+
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(hits.get()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Test calls beyond the concurrency limit are rejected")
+    void testConcurrencyLimit() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        behaviour = exchange -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, "{\"vnp_ResponseCode\":\"00\"}");
+        };
+        VNPayApiClient client = newClient(5000, 2, 3, 30_000);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Map>> calls = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                calls.add(callers.submit(() -> client.post(url, PARAMS, Map.class)));
+            }
+            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> client.post(url, PARAMS, Map.class))
+                .isInstanceOf(PaymentProcessingException.class)
+                .hasMessageContaining("too many concurrent requests");
+
+            release.countDown();
+            for (Future<Map> call : calls) {
+                assertThat(call.get(5, TimeUnit.SECONDS)).containsEntry("vnp_ResponseCode", "00");
+            }
+            assertThat(hits.get()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test circuit breaker lets a single trial call through after the open period")
+    void testCircuitBreakerSingleTrial() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(10), now::get);
+
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    private VNPayApiClient newClient(long readTimeoutMs, int maxConcurrentCalls, int failureThreshold, long openMs) {
+        return new VNPayApiClient(new SimpleMeterRegistry(), 1000, readTimeoutMs, maxConcurrentCalls, 50,
+            failureThreshold, openMs);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type",
+            status == 200 ? "application/json" : "text/plain");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.itss.ecommerce.service;
+
+import com.itss.ecommerce.config.VNPayConfig;
+import com.itss.ecommerce.dto.payment.PaymentReturnResponse;
+import com.itss.ecommerce.dto.payment.request.PaymentRequest;
+import com.itss.ecommerce.dto.payment.response.IPNResponse;
+import com.itss.ecommerce.dto.payment.response.QueryResponse;
+import com.itss.ecommerce.dto.payment.response.RefundResponse;
+import com.itss.ecommerce.entity.PaymentNotification;
+import com.itss.ecommerce.service.payment.PaymentNotificationService;
+import com.itss.ecommerce.service.payment.gateway.CallbackReplayCache;
+import com.itss.ecommerce.service.payment.gateway.PaymentSessionCache;
+import com.itss.ecommerce.service.payment.gateway.VNPayApiClient;
+import com.itss.ecommerce.service.payment.gateway.VNPayPaymentService;
+import com.itss.ecommerce.service.payment.simulator.VNPaySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Round-trip tests of the VNPay simulator against the real VNPay payment service
+ */
+class VNPaySimulatorTest {
+
+    private VNPayConfig vnPayConfig;
+    private PaymentNotificationService paymentNotificationService;
+    private PaymentTransactionService paymentTransactionService;
+    private VNPayPaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        vnPayConfig = new VNPayConfig();
+        vnPayConfig.setTmnCode("SIMULATE");
+        vnPayConfig.setSecretKey("SIMULATORSECRETKEY0123456789ABCD");
+        vnPayConfig.setPayUrl("http://localhost:8080/sim/vnpay/pay");
+        vnPayConfig.setReturnUrl("http://localhost:8080/api/payment/return?paymentMethod=VNPAY");
+        paymentNotificationService = mock(PaymentNotificationService.class);
+        paymentTransactionService = mock(PaymentTransactionService.class);
+        paymentService = newPaymentService(720);
+    }
+
+    @Test
+    @DisplayName("Test repeated payment creation for an order reuses the signed URL")
+    void testPaymentSessionReused() {
+        String first = createPaymentUrl("60", "150000");
+
+        assertThat(createPaymentUrl("60", "150000")).isEqualTo(first);
+        assertThat(createPaymentUrl("60", "160000")).isNotEqualTo(first).contains("vnp_Amount=16000000");
+        assertThat(createPaymentUrl("61", "150000")).contains("vnp_TxnRef=61");
+        // Only newly signed URLs store their create date for querydr
+        verify(paymentTransactionService, times(2)).recordGatewayCreateDate(eq(60L), anyString());
+        verify(paymentTransactionService, atLeastOnce())
+            .recordGatewayCreateDate(60L, queryParams(first).get("vnp_CreateDate"));
+    }
+
+    @Test
+    @DisplayName("Test payment URL is signed again once the reuse window has passed or a result arrived")
+    void testPaymentSessionRenewed() throws InterruptedException {
+        VNPayPaymentService noReuse = newPaymentService(0);
+        PaymentRequest request = paymentRequest("62", "150000");
+        String first = noReuse.createPayment(request, servletRequest()).getPaymentUrl();
+        Thread.sleep(1100);
+        assertThat(noReuse.createPayment(request, servletRequest()).getPaymentUrl()).isNotEqualTo(first);
+
+        VNPaySimulator simulator = newSimulator(0.0);
+        String reused = createPaymentUrl("63", "150000");
+        Map<String, String> callback = simulator.authorize(queryParams(reused)).orElseThrow();
+        paymentService.processPaymentReturn(new HashMap<>(callback));
+        Thread.sleep(1100);
+        assertThat(createPaymentUrl("63", "150000")).isNotEqualTo(reused);
+    }
+
+    @Test
+    @DisplayName("Test signed payment is authorised and its callbacks pass return and IPN verification")
+    void testSuccessfulPaymentRoundTrip() {
+        VNPaySimulator simulator = newSimulator(0.0);
+
+        Map<String, String> payParams = createPayment("42");
+        Map<String, String> callback = simulator.authorize(payParams).orElseThrow();
+        Map<String, String> returnParams = queryParams(
+            VNPaySimulator.callbackUrl(payParams.get("vnp_ReturnUrl"), callback));
+        returnParams.remove("paymentMethod");
+        when(paymentNotificationService.enqueue(any())).thenReturn(true);
+
+        PaymentReturnResponse paymentReturn = paymentService.processPaymentReturn(returnParams);
+        assertThat(paymentReturn.isValidHash()).isTrue();
+        assertThat(paymentReturn.isSuccess()).isTrue();
+        assertThat(paymentReturn.getTransactionId()).isEqualTo("42");
+        assertThat(paymentReturn.getAmount()).isEqualTo(150_000L);
+        assertThat(paymentReturn.getOrderInfo()).isEqualTo("Thanh toan don hang:42");
+
+        // The return already recorded the result, so the IPN carrying the same signed fields is acknowledged as confirmed
+        IPNResponse ipn = paymentService.handleIpnRequest(returnParams);
+        assertThat(ipn.getRspCode()).isEqualTo(IPNResponse.ORDER_ALREADY_CONFIRMED);
+        verify(paymentNotificationService, times(1)).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("Test verified return is recorded for background processing")
+    void testReturnIsRecorded() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = simulator.authorize(createPayment("48")).orElseThrow();
+
+        assertThat(paymentService.processPaymentReturn(new HashMap<>(callback)).isSuccess()).isTrue();
+
+        ArgumentCaptor<PaymentNotification> recorded = ArgumentCaptor.forClass(PaymentNotification.class);
+        verify(paymentNotificationService).enqueue(recorded.capture());
+        assertThat(recorded.getValue().getOrderId()).isEqualTo(48L);
+        assertThat(recorded.getValue().getTransactionNo()).isEqualTo(callback.get("vnp_TransactionNo"));
+        assertThat(recorded.getValue().isSuccessfulPayment()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test cancelled return without a transaction number is recorded under its order")
+    void testCancelledReturnIsRecordedByOrder() {
+        VNPaySimulator simulator = newSimulator(1.0);
+        Map<String, String> callback = simulator.authorize(createPayment("49")).orElseThrow();
+
+        assertThat(callback).containsEntry("vnp_TransactionNo", "0");
+        assertThat(paymentService.processPaymentReturn(new HashMap<>(callback)).isSuccess()).isFalse();
+
+        ArgumentCaptor<PaymentNotification> recorded = ArgumentCaptor.forClass(PaymentNotification.class);
+        verify(paymentNotificationService).enqueue(recorded.capture());
+        assertThat(recorded.getValue().getTransactionNo()).isEqualTo("0-49");
+        assertThat(recorded.getValue().isSuccessfulPayment()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test tampered return is neither recorded nor successful")
+    void testTamperedReturnNotRecorded() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = new HashMap<>(simulator.authorize(createPayment("50")).orElseThrow());
+        callback.put("vnp_ResponseCode", "00");
+        callback.put("vnp_Amount", "100");
+
+        assertThat(paymentService.processPaymentReturn(callback).isSuccess()).isFalse();
+        verifyNoInteractions(paymentNotificationService);
+    }
+
+    @Test
+    @DisplayName("Test retried IPN is acknowledged as already confirmed")
+    void testDuplicateIpn() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = simulator.authorize(createPayment("46")).orElseThrow();
+        String transactionNo = callback.get("vnp_TransactionNo");
+
+        when(paymentNotificationService.isRecentlySeen(transactionNo)).thenReturn(true);
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode())
+            .isEqualTo(IPNResponse.ORDER_ALREADY_CONFIRMED);
+        verify(paymentNotificationService, never()).enqueue(any());
+
+        when(paymentNotificationService.isRecentlySeen(transactionNo)).thenReturn(false);
+        when(paymentNotificationService.enqueue(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode())
+            .isEqualTo(IPNResponse.ORDER_ALREADY_CONFIRMED);
+    }
+
+    @Test
+    @DisplayName("Test replayed IPN and return are answered without touching the database")
+    void testReplayedCallbacks() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = simulator.authorize(createPayment("51")).orElseThrow();
+        when(paymentNotificationService.enqueue(any())).thenReturn(true);
+
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode()).isEqualTo(IPNResponse.SUCCESS);
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode())
+            .isEqualTo(IPNResponse.ORDER_ALREADY_CONFIRMED);
+        PaymentReturnResponse replayedReturn = paymentService.processPaymentReturn(new HashMap<>(callback));
+
+        assertThat(replayedReturn.isSuccess()).isTrue();
+        verify(paymentNotificationService, times(1)).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("Test callback that failed to record is processed again when retried")
+    void testFailedRecordIsNotRemembered() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = simulator.authorize(createPayment("52")).orElseThrow();
+        when(paymentNotificationService.enqueue(any()))
+            .thenThrow(new IllegalStateException("database is locked"))
+            .thenReturn(true);
+
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode()).isEqualTo(IPNResponse.UNKNOWN_ERROR);
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode()).isEqualTo(IPNResponse.SUCCESS);
+    }
+
+    @Test
+    @DisplayName("Test replay cache forgets callbacks after the TTL")
+    void testReplayCacheExpiry() {
+        CallbackReplayCache expired = new CallbackReplayCache(0, 10);
+        expired.remember("53|14000053|abc");
+        assertThat(expired.isReplay("53|14000053|abc")).isFalse();
+
+        CallbackReplayCache bounded = new CallbackReplayCache(900, 2);
+        bounded.remember("1|1|a");
+        bounded.remember("2|2|b");
+        bounded.remember("3|3|c");
+        assertThat(bounded.isReplay("3|3|c")).isTrue();
+        assertThat(bounded.isReplay("1|1|a")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test signature comparison rejects missing, empty and altered signatures")
+    void testSignatureMatches() {
+        String signature = vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(), "vnp_Amount=100");
+
+        assertThat(VNPayConfig.signatureMatches(signature, signature)).isTrue();
+        assertThat(VNPayConfig.signatureMatches(signature, signature.toUpperCase())).isFalse();
+        assertThat(VNPayConfig.signatureMatches(signature, signature.substring(1))).isFalse();
+        assertThat(VNPayConfig.signatureMatches(signature, null)).isFalse();
+        assertThat(VNPayConfig.signatureMatches("", "")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test IPN with a tampered amount is rejected before it is queued")
+    void testTamperedIpnRejected() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = new HashMap<>(simulator.authorize(createPayment("47")).orElseThrow());
+        callback.put("vnp_Amount", "100");
+
+        assertThat(paymentService.handleIpnRequest(callback).getRspCode())
+            .isEqualTo(IPNResponse.INVALID_SIGNATURE);
+        verifyNoInteractions(paymentNotificationService);
+    }
+
+    @Test
+    @DisplayName("Test payment failure ratio produces signed cancelled callbacks")
+    void testFailedPayment() {
+        VNPaySimulator simulator = newSimulator(1.0);
+
+        Map<String, String> callback = simulator.authorize(createPayment("43")).orElseThrow();
+
+        assertThat(callback).containsEntry("vnp_ResponseCode", VNPaySimulator.RESPONSE_CANCELLED);
+        PaymentReturnResponse paymentReturn = paymentService.processPaymentReturn(new HashMap<>(callback));
+        assertThat(paymentReturn.isValidHash()).isTrue();
+        assertThat(paymentReturn.isSuccess()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test tampered payment request is rejected")
+    void testTamperedPaymentRejected() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> payParams = createPayment("44");
+        payParams.put("vnp_Amount", "100");
+
+        assertThat(simulator.authorize(payParams)).isEmpty();
+        assertThat(simulator.findTransaction("44")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test query and refund answer from the simulated transaction")
+    void testQueryAndRefund() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> callback = simulator.authorize(createPayment("45")).orElseThrow();
+
+        QueryResponse query = simulator.query("45");
+        assertThat(query.getVnp_ResponseCode()).isEqualTo(VNPaySimulator.RESPONSE_SUCCESS);
+        assertThat(query.getVnp_TransactionNo()).isEqualTo(callback.get("vnp_TransactionNo"));
+        assertThat(query.getVnp_TransactionStatus()).isEqualTo("00");
+
+        RefundResponse refund = simulator.refund("45", "15000000", "02");
+        assertThat(refund.getVnp_ResponseCode()).isEqualTo(VNPaySimulator.RESPONSE_SUCCESS);
+        assertThat(simulator.refund("45", "15000000", "02").getVnp_ResponseCode())
+            .isEqualTo(VNPaySimulator.RESPONSE_DUPLICATE);
+        assertThat(simulator.query("45").getVnp_TransactionStatus()).isEqualTo("05");
+
+        assertThat(simulator.query("999").getVnp_ResponseCode()).isEqualTo(VNPaySimulator.RESPONSE_NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("Test merchant API requests are checked against the pipe-joined signature")
+    void testVerifyApiRequest() {
+        VNPaySimulator simulator = newSimulator(0.0);
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_RequestId", "12345678");
+        params.put("vnp_Version", "2.1.0");
+        params.put("vnp_Command", "querydr");
+        params.put("vnp_TmnCode", "SIMULATE");
+        params.put("vnp_TxnRef", "45");
+        params.put("vnp_TransactionDate", "20240101120000");
+        params.put("vnp_CreateDate", "20240101120500");
+        params.put("vnp_IpAddr", "127.0.0.1");
+        params.put("vnp_OrderInfo", "Kiem tra ket qua GD OrderId:45");
+        params.put("vnp_SecureHash", vnPayConfig.hmacSHA512(vnPayConfig.getSecretKey(),
+            "12345678|2.1.0|querydr|SIMULATE|45|20240101120000|20240101120500|127.0.0.1|Kiem tra ket qua GD OrderId:45"));
+
+        assertThat(simulator.verifyApiRequest(params)).isTrue();
+
+        params.put("vnp_TxnRef", "46");
+        assertThat(simulator.verifyApiRequest(params)).isFalse();
+    }
+
+    private VNPaySimulator newSimulator(double paymentFailureRatio) {
+        return new VNPaySimulator(vnPayConfig, 0, paymentFailureRatio, 0.0, "", 0, 0.0);
+    }
+
+    private VNPayPaymentService newPaymentService(long sessionReuseSeconds) {
+        return new VNPayPaymentService(vnPayConfig,
+            new VNPayApiClient(new SimpleMeterRegistry(), 1000, 1000, 4, 50, 5, 30_000), paymentNotificationService,
+            paymentTransactionService, new CallbackReplayCache(900, 100), new PaymentSessionCache(sessionReuseSeconds, 100));
+    }
+
+    private Map<String, String> createPayment(String orderId) {
+        return queryParams(createPaymentUrl(orderId, "150000"));
+    }
+
+    private String createPaymentUrl(String orderId, String amount) {
+        return paymentService.createPayment(paymentRequest(orderId, amount), servletRequest()).getPaymentUrl();
+    }
+
+    private static PaymentRequest paymentRequest(String orderId, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setAmount(amount);
+        request.setOrderId(orderId);
+        request.setLanguage("vn");
+        return request;
+    }
+
+    private static MockHttpServletRequest servletRequest() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setRemoteAddr("127.0.0.1");
+        return servletRequest;
+    }
+
+    private static Map<String, String> queryParams(String url) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : URI.create(url).getRawQuery().split("&")) {
+            int separator = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.US_ASCII),
+                URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.US_ASCII));
+        }
+        return params;
+    }
+}